@@ -0,0 +1,238 @@
+package benchmarks;
+
+import geometries.BoundingBox;
+import geometries.Cylinder;
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import geometries.Tube;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection kernels of the geometries and of the bounding box test. Every invocation traces
+ * a fixed, seeded set of {@link Rays#COUNT} rays - about half of them hit - and the time is reported per ray.
+ * Every geometry is measured on the list path ({@link Intersectable#findGeoIntersections(Ray)}) and on the
+ * hit record path of the renderer ({@link Intersectable#intersect(Ray, Intersectable.Hit, boolean)})
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+    /** The sphere */
+    private final Sphere sphere = new Sphere(new Point(0, 0, 0), 1);
+    /** The triangle */
+    private final Triangle triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+    /** The polygon - a convex pentagon */
+    private final Polygon polygon = new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(1.2, 0.5, 0),
+            new Point(0, 1.2, 0), new Point(-1.2, 0.5, 0));
+    /** The plane */
+    private final Plane plane = new Plane(new Point(0, 0, 0), new Vector(0.2, 0.3, 1));
+    /** The tube */
+    private final Tube tube = new Tube(new Ray(new Point(0, 0, -5), new Vector(0.1, 0.2, 1)), 1);
+    /** The cylinder */
+    private final Cylinder cylinder = new Cylinder(2, new Ray(new Point(0, 0, -1), new Vector(0.1, 0.2, 1)), 1);
+    /** The bounding box of the sphere */
+    private BoundingBox box;
+    /** The rays */
+    private Ray[] rays;
+    /** The hit record, reused by all the rays */
+    private final Intersectable.Hit hit = new Intersectable.Hit(Double.POSITIVE_INFINITY);
+
+    /**
+     * Generates the rays and sets the bounding box
+     */
+    @Setup
+    public void setup() {
+        rays = Rays.towards(new Random(Rays.SEED), new Point(0, 0, 0), 1);
+        sphere.setBoundingBox();
+        box = sphere.boundingBox;
+    }
+
+    /**
+     * Traces the rays against a geometry
+     *
+     * @param geometry  the geometry
+     * @param blackhole the sink of the intersections
+     */
+    private void trace(Intersectable geometry, Blackhole blackhole) {
+        for (Ray ray : rays) blackhole.consume(geometry.findGeoIntersections(ray));
+    }
+
+    /**
+     * Finds the closest intersections of the rays with a geometry into the hit record, without the bounding box
+     *
+     * @param geometry  the geometry
+     * @param blackhole the sink of the intersections
+     */
+    private void closest(Intersectable geometry, Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(geometry.intersect(ray, hit.reset(Double.POSITIVE_INFINITY), false));
+            blackhole.consume(hit.t);
+        }
+    }
+
+    /**
+     * Sphere intersections
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void sphere(Blackhole blackhole) {
+        trace(sphere, blackhole);
+    }
+
+    /**
+     * Triangle intersections
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void triangle(Blackhole blackhole) {
+        trace(triangle, blackhole);
+    }
+
+    /**
+     * Polygon intersections
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void polygon(Blackhole blackhole) {
+        trace(polygon, blackhole);
+    }
+
+    /**
+     * Plane intersections
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void plane(Blackhole blackhole) {
+        trace(plane, blackhole);
+    }
+
+    /**
+     * Tube intersections
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void tube(Blackhole blackhole) {
+        trace(tube, blackhole);
+    }
+
+    /**
+     * Cylinder intersections
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void cylinder(Blackhole blackhole) {
+        trace(cylinder, blackhole);
+    }
+
+    /**
+     * Sphere closest intersections by the hit record
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void sphereHit(Blackhole blackhole) {
+        closest(sphere, blackhole);
+    }
+
+    /**
+     * Triangle closest intersections by the hit record
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void triangleHit(Blackhole blackhole) {
+        closest(triangle, blackhole);
+    }
+
+    /**
+     * Polygon closest intersections by the hit record
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void polygonHit(Blackhole blackhole) {
+        closest(polygon, blackhole);
+    }
+
+    /**
+     * Plane closest intersections by the hit record
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void planeHit(Blackhole blackhole) {
+        closest(plane, blackhole);
+    }
+
+    /**
+     * Tube closest intersections by the hit record
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void tubeHit(Blackhole blackhole) {
+        closest(tube, blackhole);
+    }
+
+    /**
+     * Cylinder closest intersections by the hit record
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void cylinderHit(Blackhole blackhole) {
+        closest(cylinder, blackhole);
+    }
+
+    /**
+     * Bounding box tests
+     *
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void boundingBox(Blackhole blackhole) {
+        for (Ray ray : rays) blackhole.consume(box.intersectBV(ray));
+    }
+}
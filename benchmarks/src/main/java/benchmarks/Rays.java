@@ -0,0 +1,57 @@
+package benchmarks;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+/**
+ * Fixed sets of rays for the benchmarks - the rays are generated from a seed, so every run (and every
+ * version of the code) traces the same rays
+ */
+final class Rays {
+    /** Amount of the rays of a set */
+    static final int COUNT = 1024;
+    /** The seed of the ray sets */
+    static final long SEED = 5784;
+
+    /**
+     * No instances - all the methods are static
+     */
+    private Rays() {
+    }
+
+    /**
+     * Generates rays from a sphere of origins around a target towards random points near the target - about half
+     * of the rays hit a target of the given radius
+     *
+     * @param random the generator of the rays
+     * @param target the center of the target
+     * @param radius the radius of the target
+     * @return the rays
+     */
+    static Ray[] towards(Random random, Point target, double radius) {
+        Ray[] rays = new Ray[COUNT];
+        for (int i = 0; i < COUNT; ++i) {
+            Vector offset = randomDirection(random).scale(radius * 10);
+            Point aim = target.add(randomDirection(random).scale(radius * 1.5 * random.nextDouble()));
+            Point origin = target.add(offset);
+            rays[i] = new Ray(origin, aim.subtract(origin));
+        }
+        return rays;
+    }
+
+    /**
+     * Generates a random unit vector, uniform over the directions
+     *
+     * @param random the generator
+     * @return the unit vector
+     */
+    static Vector randomDirection(Random random) {
+        double z = random.nextDouble() * 2 - 1;
+        double phi = random.nextDouble() * 2 * Math.PI;
+        double r = Math.sqrt(1 - z * z);
+        return new Vector(r * Math.cos(phi), r * Math.sin(phi), z);
+    }
+}
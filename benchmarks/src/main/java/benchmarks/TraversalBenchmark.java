@@ -0,0 +1,134 @@
+package benchmarks;
+
+import geometries.Container;
+import geometries.FlatBvh;
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the closest intersection search in a scene of random spheres and triangles - through the plain
+ * list of the geometries, with the bounding boxes of the list, through the nested hierarchy of
+ * {@link Geometries#BuildBvhTree()} and through the flattened hierarchy of {@link FlatBvh}. The scene and the
+ * rays are generated from a seed, and the time is reported per ray
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+    /** Amount of the geometries of the scene */
+    @Param({ "100", "1000", "10000" })
+    public int size;
+
+    /** The geometries as a plain list */
+    private Geometries list;
+    /** The geometries in the nested hierarchy */
+    private Geometries tree;
+    /** The geometries in the flattened hierarchy */
+    private FlatBvh flat;
+    /** The rays */
+    private Ray[] rays;
+
+    /**
+     * Generates the scene, builds the hierarchies and generates the rays
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(Rays.SEED);
+        Container[] geometries = new Container[size];
+        for (int i = 0; i < size; ++i) {
+            Point center = new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+                    random.nextDouble() * 100 - 50);
+            if (i % 2 == 0)
+                geometries[i] = new Sphere(center, random.nextDouble() * 2 + 0.5);
+            else {
+                Vector u = Rays.randomDirection(random).scale(2), v = Rays.randomDirection(random).scale(2);
+                geometries[i] = new Triangle(center, center.add(u), center.add(v));
+            }
+        }
+        list = new Geometries(geometries);
+        tree = new Geometries(geometries);
+        tree.BuildBvhTree();
+        flat = FlatBvh.compile(new Geometries(geometries));
+        rays = Rays.towards(random, new Point(0, 0, 0), 50);
+    }
+
+    /**
+     * Traces the rays to their closest intersections
+     *
+     * @param geometries the geometries
+     * @param bb         whether the bounding boxes are used
+     * @param blackhole  the sink of the intersections
+     */
+    private void trace(Intersectable geometries, boolean bb, Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(geometries.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, bb));
+    }
+
+    /**
+     * The plain list, without the bounding boxes
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void list(Blackhole blackhole) {
+        trace(list, false, blackhole);
+    }
+
+    /**
+     * The plain list with the bounding boxes of the geometries
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void boxes(Blackhole blackhole) {
+        trace(list, true, blackhole);
+    }
+
+    /**
+     * The nested hierarchy
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void bvh(Blackhole blackhole) {
+        trace(tree, true, blackhole);
+    }
+
+    /**
+     * The flattened hierarchy
+     *
+     * @param blackhole the sink of the intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(Rays.COUNT)
+    public void flatBvh(Blackhole blackhole) {
+        trace(flat, true, blackhole);
+    }
+}
@@ -5,13 +5,17 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Util;
 
+import java.io.Serializable;
+
 
 /**
  * class represents axis-aligned bounding box, it is used to check if ray is in the area of a geometry
  * by checking if the ray direction come with intersection in the bounding box of the geometry.
  * It means to us that the calculation of all the intersections of the same ray should be taken into account
  */
-public class BoundingBox {
+public class BoundingBox implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
 
 
 
@@ -229,6 +233,57 @@ public class BoundingBox {
         return (!(txMin > tzMax)) && (!(tzMin > txMax));
     }
 
+    /**
+     * Function which calculates the distance along a ray where it enters the bounding region
+     *
+     * @param ray the ray
+     * @return the distance to the entry point, 0 if the ray starts inside the region,
+     * or positive infinity if the ray misses the region
+     */
+    public double entryDistance(Ray ray) {
+        Point p0 = ray.getHead();
+        Point dir = ray.getDirection();
+        double tNear = 0;
+        double tFar = Double.POSITIVE_INFINITY;
+
+        // for all 3 axes - clip the ray range [tNear, tFar] by the slab of the axis,
+        // a ray parallel to a slab is either always inside it or never
+        double d = dir.getX();
+        double o = p0.getX();
+        if (d == 0) {
+            if (o < xMin || o > xMax) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (xMin - o) / d;
+            double t2 = (xMax - o) / d;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+
+        d = dir.getY();
+        o = p0.getY();
+        if (d == 0) {
+            if (o < yMin || o > yMax) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (yMin - o) / d;
+            double t2 = (yMax - o) / d;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+
+        d = dir.getZ();
+        o = p0.getZ();
+        if (d == 0) {
+            if (o < zMin || o > zMax) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (zMin - o) / d;
+            double t2 = (zMax - o) / d;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
     /**
      * calculate volume of BoundingBox
      *
@@ -239,6 +294,19 @@ public class BoundingBox {
     }
 
 
+    /**
+     * check whether the bounding box is a finite non-empty box which may be put into a hierarchy
+     * (tubes and geometries without an actual bounding box are not)
+     *
+     * @return true if the box is bounded
+     */
+    public boolean isBounded() {
+        return !isTube && xMin <= xMax && yMin <= yMax && zMin <= zMax
+                && Double.isFinite(xMin) && Double.isFinite(xMax)
+                && Double.isFinite(yMin) && Double.isFinite(yMax)
+                && Double.isFinite(zMin) && Double.isFinite(zMax);
+    }
+
     /**
      * function to get the center of the bounding box
      *
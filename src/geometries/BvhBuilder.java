@@ -0,0 +1,382 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Top-down builder of a bounding volume hierarchy over a set of axis-aligned boxes.
+ * At every node the primitives are binned by the centers of their boxes along each axis and
+ * the split with the lowest surface area heuristic (SAH) cost is chosen, so the whole build
+ * runs in O(n log n).<br/>
+ * The builder only computes the split tree - the callers turn it into their own node layout
+ * (nested {@link Geometries}, flattened arrays etc.)
+ */
+class BvhBuilder {
+    /** Amount of bins used for evaluating the split candidates along an axis */
+    private static final int BINS = 12;
+    /** Cost of traversing an inner node, relative to the intersection cost */
+    static final double TRAVERSAL_COST = 1;
+    /** Cost of intersecting a single primitive */
+    static final double INTERSECTION_COST = 1;
+    /** Maximal amount of primitives which are allowed in a leaf */
+    private static final int MAX_LEAF_SIZE = 4;
+    /** Depth from which the builder falls back to median splits (degenerate distributions) */
+    private static final int MAX_SAH_DEPTH = 64;
+
+    /**
+     * A node of the split tree. A leaf holds the range [start, start + count) of {@link #order},
+     * an inner node has exactly two children
+     */
+    static final class Node {
+        /** Node bounds - minX, minY, minZ, maxX, maxY, maxZ */
+        final double[] bounds = new double[6];
+        /** Children of an inner node (null for a leaf) */
+        Node left, right;
+        /** First index of the leaf primitives in {@link #order} */
+        int start;
+        /** Amount of the leaf primitives */
+        int count;
+
+        /**
+         * Checks whether the node is a leaf
+         *
+         * @return true for a leaf, false for an inner node
+         */
+        boolean isLeaf() {
+            return left == null;
+        }
+    }
+
+    /** The boxes of the primitives - 6 values per primitive as in {@link Node#bounds} */
+    private final double[] boxes;
+    /** Centers of the primitives boxes - 3 values per primitive */
+    private final double[] centers;
+    /** Permutation of the primitive indices, the leaves refer to ranges of it */
+    final int[] order;
+
+    /** Amount of nodes in the built tree */
+    private int nodes = 0;
+    /** Amount of leaves in the built tree */
+    private int leaves = 0;
+    /** Depth of the built tree */
+    private int depth = 0;
+
+    /**
+     * Constructs a builder over the given primitive boxes
+     *
+     * @param boxes 6 values per primitive - minX, minY, minZ, maxX, maxY, maxZ
+     */
+    BvhBuilder(double[] boxes) {
+        this.boxes = boxes;
+        int n = boxes.length / 6;
+        centers = new double[n * 3];
+        order = new int[n];
+        for (int i = 0; i < n; ++i) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; ++axis)
+                centers[i * 3 + axis] = (boxes[i * 6 + axis] + boxes[i * 6 + axis + 3]) / 2;
+        }
+    }
+
+    /**
+     * Builds the split tree over all the primitives
+     *
+     * @return the root of the tree, or null if there are no primitives
+     */
+    Node build() {
+        return order.length == 0 ? null : build(0, order.length, 1);
+    }
+
+    /**
+     * Gets the amount of nodes (inner nodes and leaves) of the built tree
+     *
+     * @return amount of nodes
+     */
+    int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the amount of leaves of the built tree
+     *
+     * @return amount of leaves
+     */
+    int getLeaves() {
+        return leaves;
+    }
+
+    /**
+     * Gets the depth of the built tree
+     *
+     * @return the depth (a single leaf has depth 1)
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Recursively builds the subtree of the primitives range [start, end) of {@link #order}
+     *
+     * @param start first index of the range
+     * @param end   index after the last one of the range
+     * @param level the level of the node in the tree
+     * @return the root of the subtree
+     */
+    private Node build(int start, int end, int level) {
+        Node node = new Node();
+        ++nodes;
+        depth = Math.max(depth, level);
+        int count = end - start;
+
+        // node bounds and the bounds of the primitives centers
+        double[] centerBounds = new double[6];
+        empty(node.bounds);
+        empty(centerBounds);
+        for (int i = start; i < end; ++i) {
+            int p = order[i];
+            for (int axis = 0; axis < 3; ++axis) {
+                node.bounds[axis] = Math.min(node.bounds[axis], boxes[p * 6 + axis]);
+                node.bounds[axis + 3] = Math.max(node.bounds[axis + 3], boxes[p * 6 + axis + 3]);
+                centerBounds[axis] = Math.min(centerBounds[axis], centers[p * 3 + axis]);
+                centerBounds[axis + 3] = Math.max(centerBounds[axis + 3], centers[p * 3 + axis]);
+            }
+        }
+
+        if (count == 1) return leaf(node, start, count);
+
+        int mid = level > MAX_SAH_DEPTH ? -1 : sahPartition(node.bounds, centerBounds, start, end);
+        if (mid == start) // the SAH prefers a leaf
+            return leaf(node, start, count);
+        if (mid < 0) // no meaningful split plane - all centers coincide or the tree is degenerate
+            mid = medianPartition(centerBounds, start, end);
+
+        node.left = build(start, mid, level + 1);
+        node.right = build(mid, end, level + 1);
+        return node;
+    }
+
+    /**
+     * Chooses the binned SAH split of the range and partitions the range accordingly
+     *
+     * @param bounds       the bounds of the node
+     * @param centerBounds the bounds of the primitives centers in the node
+     * @param start        first index of the range
+     * @param end          index after the last one of the range
+     * @return the index of the first primitive of the right part, start if a leaf is cheaper,
+     * or -1 if there is no axis to split along
+     */
+    private int sahPartition(double[] bounds, double[] centerBounds, int start, int end) {
+        int count = end - start;
+        double nodeArea = area(bounds);
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = -1;
+
+        int[] binCounts = new int[BINS];
+        double[] binBounds = new double[BINS * 6];
+        double[] rightCosts = new double[BINS];
+        double[] box = new double[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = centerBounds[axis];
+            double extent = centerBounds[axis + 3] - min;
+            if (!(extent > 0)) continue;
+
+            Arrays.fill(binCounts, 0);
+            for (int b = 0; b < BINS; ++b) empty(binBounds, b * 6);
+            for (int i = start; i < end; ++i) {
+                int p = order[i];
+                int b = bin(centers[p * 3 + axis], min, extent);
+                ++binCounts[b];
+                include(binBounds, b * 6, p);
+            }
+
+            // sweep from the right - accumulated area * count of the bins right to each plane
+            empty(box);
+            int rightCount = 0;
+            for (int b = BINS - 1; b > 0; --b) {
+                rightCount += binCounts[b];
+                union(box, binBounds, b * 6);
+                rightCosts[b - 1] = rightCount == 0 ? 0 : area(box) * rightCount;
+            }
+            // sweep from the left and evaluate the plane after each bin
+            empty(box);
+            int leftCount = 0;
+            for (int b = 0; b < BINS - 1; ++b) {
+                leftCount += binCounts[b];
+                union(box, binBounds, b * 6);
+                if (leftCount == 0 || leftCount == count) continue;
+                double cost = leftCount * area(box) + rightCosts[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+        if (bestAxis < 0) return -1;
+
+        double splitCost = TRAVERSAL_COST
+                + INTERSECTION_COST * (nodeArea > 0 ? bestCost / nodeArea : count);
+        if (count <= MAX_LEAF_SIZE && splitCost >= INTERSECTION_COST * count)
+            return start;
+
+        // partition the range in place - primitives of bins up to the best one go to the left
+        double min = centerBounds[bestAxis];
+        double extent = centerBounds[bestAxis + 3] - min;
+        int i = start;
+        int j = end - 1;
+        while (i <= j) {
+            if (bin(centers[order[i] * 3 + bestAxis], min, extent) <= bestBin) ++i;
+            else swap(i, j--);
+        }
+        return i;
+    }
+
+    /**
+     * Splits the range in the middle after sorting it by the centers along the longest axis
+     *
+     * @param centerBounds the bounds of the primitives centers in the node
+     * @param start        first index of the range
+     * @param end          index after the last one of the range
+     * @return the index of the first primitive of the right part
+     */
+    private int medianPartition(double[] centerBounds, int start, int end) {
+        int axis = 0;
+        for (int a = 1; a < 3; ++a)
+            if (centerBounds[a + 3] - centerBounds[a] > centerBounds[axis + 3] - centerBounds[axis])
+                axis = a;
+        final int sortAxis = axis;
+        int[] sorted = IntStream.of(Arrays.copyOfRange(order, start, end)).boxed()
+                .sorted(Comparator.comparingDouble(p -> centers[p * 3 + sortAxis]))
+                .mapToInt(Integer::intValue).toArray();
+        System.arraycopy(sorted, 0, order, start, sorted.length);
+        return (start + end) / 2;
+    }
+
+    /**
+     * Turns the node into a leaf over the given range
+     *
+     * @param node  the node
+     * @param start first index of the range
+     * @param count amount of primitives in the range
+     * @return the node
+     */
+    private Node leaf(Node node, int start, int count) {
+        node.start = start;
+        node.count = count;
+        ++leaves;
+        return node;
+    }
+
+    /**
+     * Calculates the SAH cost of a built tree - the expected cost of a random ray which hits the root box
+     *
+     * @param root the root of the tree
+     * @return the cost of the tree
+     */
+    static double cost(Node root) {
+        if (root == null) return 0;
+        double rootArea = area(root.bounds);
+        return rootArea > 0 ? cost(root, rootArea) : INTERSECTION_COST * root.count;
+    }
+
+    /**
+     * Recursive helper of {@link #cost(Node)}
+     *
+     * @param node     current node
+     * @param rootArea surface area of the root box
+     * @return the cost of the subtree weighted by its probability to be hit
+     */
+    private static double cost(Node node, double rootArea) {
+        double probability = area(node.bounds) / rootArea;
+        if (node.isLeaf()) return probability * INTERSECTION_COST * node.count;
+        return probability * TRAVERSAL_COST + cost(node.left, rootArea) + cost(node.right, rootArea);
+    }
+
+    /**
+     * Calculates the bin of a center coordinate
+     *
+     * @param center the coordinate
+     * @param min    the minimal center coordinate in the node
+     * @param extent the extent of the centers in the node
+     * @return the bin index
+     */
+    private static int bin(double center, double min, double extent) {
+        return Math.min(BINS - 1, (int) (BINS * (center - min) / extent));
+    }
+
+    /**
+     * Surface area of a box
+     *
+     * @param b the box - minX, minY, minZ, maxX, maxY, maxZ
+     * @return the surface area, 0 for an empty box
+     */
+    static double area(double[] b) {
+        double dx = b[3] - b[0];
+        double dy = b[4] - b[1];
+        double dz = b[5] - b[2];
+        if (dx < 0 || dy < 0 || dz < 0) return 0;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Resets a box to be empty
+     *
+     * @param b the box
+     */
+    private static void empty(double[] b) {
+        empty(b, 0);
+    }
+
+    /**
+     * Resets a box inside an array to be empty
+     *
+     * @param b      the array
+     * @param offset offset of the box in the array
+     */
+    private static void empty(double[] b, int offset) {
+        Arrays.fill(b, offset, offset + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(b, offset + 3, offset + 6, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Extends a box inside an array by the box of a primitive
+     *
+     * @param b         the array
+     * @param offset    offset of the box in the array
+     * @param primitive the primitive index
+     */
+    private void include(double[] b, int offset, int primitive) {
+        for (int axis = 0; axis < 3; ++axis) {
+            b[offset + axis] = Math.min(b[offset + axis], boxes[primitive * 6 + axis]);
+            b[offset + axis + 3] = Math.max(b[offset + axis + 3], boxes[primitive * 6 + axis + 3]);
+        }
+    }
+
+    /**
+     * Extends a box by a box inside an array
+     *
+     * @param b      the box to extend
+     * @param other  the array
+     * @param offset offset of the other box in the array
+     */
+    private static void union(double[] b, double[] other, int offset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            b[axis] = Math.min(b[axis], other[offset + axis]);
+            b[axis + 3] = Math.max(b[axis + 3], other[offset + axis + 3]);
+        }
+    }
+
+    /**
+     * Swaps two entries of {@link #order}
+     *
+     * @param i first index
+     * @param j second index
+     */
+    private void swap(int i, int j) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+}
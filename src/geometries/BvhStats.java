@@ -0,0 +1,20 @@
+package geometries;
+
+/**
+ * Report of a bounding volume hierarchy build
+ *
+ * @param primitives     amount of bounded primitives which were put into the hierarchy
+ * @param nodes          amount of nodes in the hierarchy (inner nodes and leaves)
+ * @param leaves         amount of leaves in the hierarchy
+ * @param depth          the depth of the hierarchy
+ * @param sahCost        surface area heuristic cost of the hierarchy - the expected amount of
+ *                       traversal steps and primitive tests of a ray which hits the root box
+ * @param buildTimeNanos the time the build took, in nanoseconds
+ */
+public record BvhStats(int primitives, int nodes, int leaves, int depth, double sahCost, long buildTimeNanos) {
+    @Override
+    public String toString() {
+        return String.format("BVH: %d primitives, %d nodes, %d leaves, depth %d, SAH cost %.2f, built in %.1f ms",
+                primitives, nodes, leaves, depth, sahCost, buildTimeNanos / 1e6);
+    }
+}
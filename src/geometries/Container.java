@@ -9,6 +9,8 @@ import java.util.List;
  * class to contain the proper methods for setting a bounding box for both geometry and geometries
  */
 public abstract class Container extends Intersectable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
 
     /**
      * every Intersectable composite have his bounding volume, which is represented by a bounding box
@@ -10,6 +10,9 @@ import static primitives.Util.isZero;
  * Represents a cylinder in three-dimensional space.
  */
 public class Cylinder extends Tube {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The height of the cylinder.
      */
@@ -27,6 +30,15 @@ public class Cylinder extends Tube {
         height = h;
     }
 
+    /**
+     * Returns the height of the cylinder.
+     *
+     * @return The height of the cylinder.
+     */
+    double getHeight() {
+        return height;
+    }
+
     /**
      * Computes the normal vector to the surface of the cylinder at a given point.
      *
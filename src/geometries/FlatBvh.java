@@ -0,0 +1,390 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Compiled, immutable bounding volume hierarchy over the geometries of a {@link Geometries} composite.
+ * The nodes are kept in depth-first order in primitive arrays - the first child of an inner node is
+ * the node right after it, so a traversal walks contiguous memory instead of chasing list nodes.
+ * Geometries without a finite bounding box (tubes, planes) are kept aside and tested by every ray.
+ */
+public final class FlatBvh extends Intersectable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /** Node bounds, 6 values per node - minX, minY, minZ, maxX, maxY, maxZ */
+    final double[] bounds;
+    /**
+     * Node links, 2 values per node - for an inner node the index of its second child and 0,
+     * for a leaf the offset of its primitives in {@link #primitives} and their amount
+     */
+    final int[] links;
+    /** The bounded geometries in the order of the leaves */
+    final Intersectable[] primitives;
+    /** The geometries without a finite bounding box */
+    final Intersectable[] unbounded;
+    /** Depth of the hierarchy - bounds the traversal stack */
+    final int depth;
+    /** Report of the compilation */
+    final BvhStats stats;
+
+    /**
+     * Constructs the compiled hierarchy from its arrays
+     *
+     * @param bounds     the node bounds
+     * @param links      the node links
+     * @param primitives the bounded geometries in the order of the leaves
+     * @param unbounded  the geometries without a finite bounding box
+     * @param depth      depth of the hierarchy
+     * @param stats      report of the compilation
+     */
+    FlatBvh(double[] bounds, int[] links, Intersectable[] primitives, Intersectable[] unbounded,
+                    int depth, BvhStats stats) {
+        this.bounds = bounds;
+        this.links = links;
+        this.primitives = primitives;
+        this.unbounded = unbounded;
+        this.depth = depth;
+        this.stats = stats;
+    }
+
+    /**
+     * Checks the node links of a hierarchy in depth-first order - every leaf refers to existing items, and every
+     * inner node to a second child after its first child (the next node), so a traversal always moves forward
+     * and ends
+     *
+     * @param links the node links, 2 values per node
+     * @param items the amount of the items of the leaves
+     * @return true if the links are valid
+     */
+    static boolean validLinks(int[] links, int items) {
+        if (links.length % 2 != 0) return false;
+        int nodes = links.length / 2;
+        for (int node = 0; node < nodes; ++node) {
+            int first = links[node * 2], count = links[node * 2 + 1];
+            if (count < 0 || first < 0
+                    || (count == 0 ? first <= node + 1 || first >= nodes : first > items - count))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the geometries of a composite into a flattened hierarchy. The composite itself is not changed -
+     * its geometries are collected and split by the binned SAH of {@link BvhBuilder}
+     *
+     * @param geometries the composite
+     * @return the compiled hierarchy
+     */
+    public static FlatBvh compile(Geometries geometries) {
+        long start = System.nanoTime();
+        geometries.setBoundingBox();
+        List<Container> all = new ArrayList<>();
+        geometries.collectGeometries(all);
+
+        List<Container> bounded = new ArrayList<>(all.size());
+        List<Intersectable> unbounded = new LinkedList<>();
+        for (Container container : all)
+            if (container.boundingBox != null && container.boundingBox.isBounded()) bounded.add(container);
+            else unbounded.add(container);
+
+        BvhBuilder builder = new BvhBuilder(Geometries.boxesOf(bounded));
+        BvhBuilder.Node root = builder.build();
+
+        int nodes = builder.getNodes();
+        double[] bounds = new double[nodes * 6];
+        int[] links = new int[nodes * 2];
+        Intersectable[] primitives = new Intersectable[bounded.size()];
+        if (root != null)
+            emit(root, builder.order, bounded, bounds, links, primitives, new int[2]);
+
+        BvhStats stats = new BvhStats(bounded.size(), nodes, builder.getLeaves(), builder.getDepth(),
+                BvhBuilder.cost(root), System.nanoTime() - start);
+        return new FlatBvh(bounds, links, primitives, unbounded.toArray(new Intersectable[0]),
+                builder.getDepth(), stats);
+    }
+
+    /**
+     * Writes a node of the split tree and its subtree into the arrays in depth-first order
+     *
+     * @param node       the node of the split tree
+     * @param order      the primitives order of the split tree
+     * @param bounded    the bounded geometries
+     * @param bounds     the node bounds array
+     * @param links      the node links array
+     * @param primitives the primitives array
+     * @param next       the next free node index and the next free primitive index
+     * @return the index of the node
+     */
+    private static int emit(BvhBuilder.Node node, int[] order, List<Container> bounded,
+                            double[] bounds, int[] links, Intersectable[] primitives, int[] next) {
+        int index = next[0]++;
+        System.arraycopy(node.bounds, 0, bounds, index * 6, 6);
+        if (node.isLeaf()) {
+            links[index * 2] = next[1];
+            links[index * 2 + 1] = node.count;
+            for (int i = node.start; i < node.start + node.count; ++i)
+                primitives[next[1]++] = bounded.get(order[i]);
+        } else {
+            emit(node.left, order, bounded, bounds, links, primitives, next);
+            links[index * 2] = emit(node.right, order, bounded, bounds, links, primitives, next);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the report of the compilation
+     *
+     * @return the size, the depth and the SAH cost of the hierarchy and the compilation time
+     */
+    public BvhStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the amount of nodes in the hierarchy
+     *
+     * @return amount of nodes
+     */
+    public int getNodeCount() {
+        return links.length / 2;
+    }
+
+    /**
+     * Gets the geometries of the hierarchy
+     *
+     * @return the bounded geometries in the order of the leaves, followed by the unbounded geometries
+     */
+    public List<Intersectable> getGeometries() {
+        List<Intersectable> geometries = new ArrayList<>(primitives.length + unbounded.length);
+        geometries.addAll(Arrays.asList(primitives));
+        geometries.addAll(Arrays.asList(unbounded));
+        return geometries;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance, boolean bb) {
+        List<GeoPoint> intersections = new LinkedList<>();
+        for (Intersectable geometry : unbounded)
+            addAll(intersections, geometry.findGeoIntersections(ray, maxDistance, bb));
+
+        if (links.length > 0) {
+            Point head = ray.getHead();
+            Vector direction = ray.getDirection();
+            double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+            double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+            double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+            int[] stack = new int[depth + 1];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (entryDistance(bounds, node, ox, oy, oz, dx, dy, dz, ix, iy, iz, maxDistance) == Double.POSITIVE_INFINITY)
+                    continue;
+                int count = links[node * 2 + 1];
+                if (count > 0) {
+                    int first = links[node * 2];
+                    for (int i = first; i < first + count; ++i)
+                        addAll(intersections, primitives[i].findGeoIntersections(ray, maxDistance, bb));
+                } else {
+                    stack[top++] = links[node * 2];
+                    stack[top++] = node + 1;
+                }
+            }
+        }
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Finds the closest intersection of the ray. The nearer child of every inner node is visited first,
+     * the maximal distance shrinks with every intersection found, and any node which the ray enters beyond
+     * the closest intersection found so far is skipped.
+     *
+     * @param ray the ray to intersect with the geometries
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization inside the geometries
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        boolean found = false;
+        for (Intersectable geometry : unbounded)
+            found |= geometry.intersect(ray, hit, bb);
+        if (links.length == 0) return found;
+
+        Point head = ray.getHead();
+
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+        double rootEntry = entryDistance(bounds, 0, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit.t);
+        if (rootEntry == Double.POSITIVE_INFINITY) return found;
+
+        int[] stack = new int[depth + 1];
+        double[] entries = new double[depth + 1];
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > hit.t) continue;
+            int count = links[node * 2 + 1];
+            if (count > 0) {
+                int first = links[node * 2];
+                for (int i = first; i < first + count; ++i)
+                    found |= primitives[i].intersect(ray, hit, bb);
+                continue;
+            }
+
+            int near = node + 1;
+            int far = links[node * 2];
+            double nearEntry = entryDistance(bounds, near, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit.t);
+            double farEntry = entryDistance(bounds, far, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit.t);
+            if (farEntry < nearEntry) {
+                int tmpNode = near;
+                near = far;
+                far = tmpNode;
+                double tmpEntry = nearEntry;
+                nearEntry = farEntry;
+                farEntry = tmpEntry;
+            }
+            // push the farther child first so the nearer one is visited first
+            if (farEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = farEntry;
+            }
+            if (nearEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = nearEntry;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds how much light passes along the ray through the geometries. The nodes are visited in any order
+     * and the traversal stops as soon as the ray is blocked.
+     *
+     * @param ray the ray from the shaded point towards the light source
+     * @param maxDistance the distance to the light source
+     * @param bb whether to use the bounding box optimization inside the geometries
+     * @param cutoff the transparency factor below which the ray is considered blocked, 0 for an exact factor
+     * @param occluder the hit record which receives the geometry blocking the ray by itself, or null
+     * @return the transparency factor along the ray
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, boolean bb, double cutoff,
+                                             Hit occluder) {
+        Double3 ktr = Double3.ONE;
+        for (Intersectable geometry : unbounded) {
+            Double3 k = geometry.findTransparency(ray, maxDistance, bb, cutoff, occluder);
+            if (!k.equals(Double3.ONE)) {
+                ktr = ktr.product(k);
+                if (isBlocked(ktr, cutoff)) return Double3.ZERO;
+            }
+        }
+        if (links.length == 0) return ktr;
+
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entryDistance(bounds, node, ox, oy, oz, dx, dy, dz, ix, iy, iz, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            int count = links[node * 2 + 1];
+            if (count > 0) {
+                int first = links[node * 2];
+                for (int i = first; i < first + count; ++i) {
+                    Double3 k = primitives[i].findTransparency(ray, maxDistance, bb, cutoff, occluder);
+                    if (!k.equals(Double3.ONE)) {
+                        ktr = ktr.product(k);
+                        if (isBlocked(ktr, cutoff)) return Double3.ZERO;
+                    }
+                }
+            } else {
+                stack[top++] = links[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Slab test of a ray against a node box
+     *
+     * @param bounds      the node bounds, 6 values per node
+     * @param node        the node index
+     * @param ox          x of the ray head
+     * @param oy          y of the ray head
+     * @param oz          z of the ray head
+     * @param dx          x of the ray direction
+     * @param dy          y of the ray direction
+     * @param dz          z of the ray direction
+     * @param ix          inverse of x of the ray direction
+     * @param iy          inverse of y of the ray direction
+     * @param iz          inverse of z of the ray direction
+     * @param maxDistance the maximal distance along the ray
+     * @return the distance along the ray where it enters the box (0 if the head is inside),
+     * or positive infinity if the ray misses the box within the maximal distance
+     */
+    static double entryDistance(double[] bounds, int node, double ox, double oy, double oz, double dx, double dy, double dz,
+                                double ix, double iy, double iz, double maxDistance) {
+        int b = node * 6;
+        double tNear = 0;
+        double tFar = maxDistance;
+
+        if (dx == 0) {
+            if (ox < bounds[b] || ox > bounds[b + 3]) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (bounds[b] - ox) * ix;
+            double t2 = (bounds[b + 3] - ox) * ix;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (oy < bounds[b + 1] || oy > bounds[b + 4]) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (bounds[b + 1] - oy) * iy;
+            double t2 = (bounds[b + 4] - oy) * iy;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (dz == 0) {
+            if (oz < bounds[b + 2] || oz > bounds[b + 5]) return Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (bounds[b + 2] - oz) * iz;
+            double t2 = (bounds[b + 5] - oz) * iz;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Adds intersections of a geometry to the result list
+     *
+     * @param intersections the result list
+     * @param found         the intersections of the geometry (may be null)
+     */
+    private static void addAll(List<GeoPoint> intersections, List<GeoPoint> found) {
+        if (found != null) intersections.addAll(found);
+    }
+}
@@ -1,9 +1,10 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Ray;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -13,6 +14,9 @@ import java.util.List;
  * allowing it to be treated as a single intersectable object.
  */
 public class Geometries extends Container {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     private final List<Intersectable> geometries = new LinkedList<>();
 
     /**
@@ -20,6 +24,19 @@ public class Geometries extends Container {
      */
     private List<Container> containers = null;
 
+    /**
+     * the box of the components - minimal x, y, z and maximal x, y, z - kept apart from the bounding box,
+     * which swaps the infinite bounds of an empty box, so shapes can be added without visiting the others
+     */
+    private final double[] extent = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+    /**
+     * maximal amount of components which are sorted by their distance for the closest intersection search,
+     * larger (not hierarchical) collections are visited in their order
+     */
+    private static final int SORTED_COMPONENTS = 8;
+
 
     /**
      * Default constructor for creating an empty collection of geometries.
@@ -44,12 +61,19 @@ public class Geometries extends Container {
 
     /**
      * a method that receive one or more shape and adds to this list.
+     * The bounding box is extended by the boxes of the added shapes only, so adding the shapes one by one
+     * (e.g. while a scene file is parsed) takes a constant time per shape.
      *
      * @param geometries - shapes to be added to this instance
      */
     public void add(Container... geometries) {
         containers.addAll(Arrays.asList(geometries));
-        setBoundingBox();
+        super.setBoundingBox();
+        for (Container geo : geometries) {
+            geo.setBoundingBox();
+            extend(geo);
+        }
+        boundingBox.setBoundingBox(extent[0], extent[3], extent[1], extent[4], extent[2], extent[5]);
     }
 
     /**
@@ -92,7 +116,7 @@ public class Geometries extends Container {
             // declare list as null
             List<Intersectable.GeoPoint> geoIntersections = null;
             // if we don't want to use bounding boxes, find intersections as usual
-            if (!bb || geometry.boundingBox == null) {
+            if (!bb || geometry.boundingBox == null || !geometry.boundingBox.isBounded()) {
                 geoIntersections = geometry.findGeoIntersections(ray, maxDistance, false);
             }
             // but if we do want to use it, if the ray intersects the bounding box...
@@ -112,93 +136,238 @@ public class Geometries extends Container {
         return null;
 
     }
+    /**
+     * Finds the closest intersection between the ray and the geometries in the collection.
+     * When the bounding boxes are used, the components are visited front-to-back by the distance where
+     * the ray enters their boxes, and any component whose box is entered beyond the closest intersection
+     * found so far is skipped.
+     *
+     * @param ray the ray to intersect with the geometries
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
     @Override
-    public void setBoundingBox() {
-        super.setBoundingBox();                 // first, create a default bounding region if necessary
-        for (Container geo : containers) {     // in a recursive call set bounding region for all the
-            geo.setBoundingBox();               // components and composites inside
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        if (!bb) {
+            boolean found = false;
+            for (Container geometry : containers)
+                found |= geometry.intersect(ray, hit, bb);
+            return found;
+        }
+        // the nodes of a hierarchy have two children - they are ordered without allocating anything
+        if (containers.size() == 2 && isBoxed(containers.get(0)) && isBoxed(containers.get(1))) {
+            Container near = containers.get(0), far = containers.get(1);
+            double nearEntry = near.boundingBox.entryDistance(ray), farEntry = far.boundingBox.entryDistance(ray);
+            if (farEntry < nearEntry) {
+                Container tmpGeometry = near;
+                near = far;
+                far = tmpGeometry;
+                double tmpEntry = nearEntry;
+                nearEntry = farEntry;
+                farEntry = tmpEntry;
+            }
+            boolean found = false;
+            if (nearEntry != Double.POSITIVE_INFINITY && nearEntry <= hit.t)
+                found = near.intersect(ray, hit, bb);
+            if (farEntry != Double.POSITIVE_INFINITY && farEntry <= hit.t)
+                found |= far.intersect(ray, hit, bb);
+            return found;
         }
 
-        double minX = Double.POSITIVE_INFINITY;
-        double minY = Double.POSITIVE_INFINITY;
-        double minZ = Double.POSITIVE_INFINITY;
-
-        double maxX = Double.NEGATIVE_INFINITY;
-        double maxY = Double.NEGATIVE_INFINITY;
-        double maxZ = Double.NEGATIVE_INFINITY;
+        int size = containers.size();
+        Container[] components = new Container[size];
+        double[] entries = new double[size];
+        int count = 0;
+        boolean found = false;
+        for (Container geometry : containers) {
+            // components without a usable box are intersected right away
+            if (!isBoxed(geometry)) {
+                found |= geometry.intersect(ray, hit, bb);
+                continue;
+            }
+            double entry = geometry.boundingBox.entryDistance(ray);
+            if (entry == Double.POSITIVE_INFINITY || entry > hit.t) continue;
+            // keep the components sorted by their entry distance (there are only a few of them in a tree node)
+            int i = count++;
+            if (size <= SORTED_COMPONENTS)
+                for (; i > 0 && entries[i - 1] > entry; --i) {
+                    entries[i] = entries[i - 1];
+                    components[i] = components[i - 1];
+                }
+            entries[i] = entry;
+            components[i] = geometry;
+        }
 
-        for (Container inter : containers) {
+        for (int i = 0; i < count; ++i) {
+            if (entries[i] > hit.t) {
+                if (size <= SORTED_COMPONENTS) break; // all the rest are even farther
+                continue;
+            }
+            found |= components[i].intersect(ray, hit, bb);
+        }
+        return found;
+    }
 
-            // get minimal & maximal x value for the containing box
-            minX = Math.min(inter.boundingBox.getMinX(), minX);
-            maxX = Math.max(inter.boundingBox.getMaxX(), maxX);
+    /**
+     * Checks whether a component has a finite bounding box which may be tested before intersecting it
+     *
+     * @param geometry the component
+     * @return true if the component has a usable bounding box
+     */
+    private static boolean isBoxed(Container geometry) {
+        return geometry.boundingBox != null && geometry.boundingBox.isBounded();
+    }
 
-            // get minimal & maximal y value for the containing box
-            minY = Math.min(inter.boundingBox.getMinY(), minY);
-            maxY = Math.max(inter.boundingBox.getMaxY(), maxY);
+    /**
+     * Finds how much light passes along the ray through the geometries in the collection.
+     * The traversal stops as soon as the ray is blocked.
+     *
+     * @param ray the ray from the shaded point towards the light source
+     * @param maxDistance the distance to the light source
+     * @param bb whether to use the bounding box optimization
+     * @param cutoff the transparency factor below which the ray is considered blocked, 0 for an exact factor
+     * @param occluder the hit record which receives the geometry blocking the ray by itself, or null
+     * @return the transparency factor along the ray
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, boolean bb, double cutoff,
+                                             Hit occluder) {
+        Double3 ktr = Double3.ONE;
+        for (Container geometry : containers) {
+            if (bb && isBoxed(geometry) && geometry.boundingBox.entryDistance(ray) > maxDistance)
+                continue;
+            Double3 k = geometry.findTransparency(ray, maxDistance, bb, cutoff, occluder);
+            if (!k.equals(Double3.ONE)) {
+                ktr = ktr.product(k);
+                if (isBlocked(ktr, cutoff)) return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
 
-            // get minimal & maximal z value for the containing box
-            minZ = Math.min(inter.boundingBox.getMinZ(), minZ);
-            maxZ = Math.max(inter.boundingBox.getMaxZ(), maxZ);
+    @Override
+    public void setBoundingBox() {
+        super.setBoundingBox();                 // first, create a default bounding region if necessary
+        for (Container geo : containers) {     // in a recursive call set bounding region for all the
+            geo.setBoundingBox();               // components and composites inside
         }
 
+        extent[0] = extent[1] = extent[2] = Double.POSITIVE_INFINITY;
+        extent[3] = extent[4] = extent[5] = Double.NEGATIVE_INFINITY;
+        for (Container inter : containers)
+            extend(inter);
+
         // set the minimum and maximum values in 3 axes for this bounding region of the component
-        boundingBox.setBoundingBox(minX, maxX, minY, maxY, minZ, maxZ);
+        boundingBox.setBoundingBox(extent[0], extent[3], extent[1], extent[4], extent[2], extent[5]);
+    }
+
+    /**
+     * Extends the box of the components by the bounding box of a component
+     *
+     * @param geo the component, with its bounding box already set
+     */
+    private void extend(Container geo) {
+        // get minimal & maximal x, y and z values for the containing box
+        extent[0] = Math.min(geo.boundingBox.getMinX(), extent[0]);
+        extent[1] = Math.min(geo.boundingBox.getMinY(), extent[1]);
+        extent[2] = Math.min(geo.boundingBox.getMinZ(), extent[2]);
+        extent[3] = Math.max(geo.boundingBox.getMaxX(), extent[3]);
+        extent[4] = Math.max(geo.boundingBox.getMaxY(), extent[4]);
+        extent[5] = Math.max(geo.boundingBox.getMaxZ(), extent[5]);
     }
 
 
 
     /**
      * Method to build the BVH tree automatically.
+     * The geometries are flattened and then split top-down by the binned surface area heuristic,
+     * so the build takes O(n log n). Tubes and other unbounded geometries are kept at the top level.
+     *
+     * @return report of the build - the size, the depth and the SAH cost of the tree and the build time
      */
-    public void BuildBvhTree() {
+    public BvhStats BuildBvhTree() {
+        long start = System.nanoTime();
         this.flatten();
-        double distance;
-        Container bestGeometry1 = null;
-        Container bestGeometry2 = null;
-        List<Container> tubes = new LinkedList<>();
-
-        // Use an iterator to safely remove tubes from the containers list
-        Iterator<Container> iterator = containers.iterator();
-        while (iterator.hasNext()) {
-            Container container = iterator.next();
-            if (container.boundingBox.getIsTube()) {
-                iterator.remove(); // Safely remove the tube from the containers list
-                tubes.add(container); // Add the tube to the tubes list
-            }
-        }
 
-        // While there are more than one container in the list
-        while (containers.size() > 1) {
-            // Initialize the best distance to the maximum value
-            double best = Double.MAX_VALUE;
-
-            // For each geometry in the list
-            for (Container geometry1 : containers) {
-                // For each geometry in the list
-                for (Container geometry2 : containers) {
-                    // Calculate the distance between bounding boxes
-                    distance = geometry1.boundingBox.BoundingBoxDistance(geometry2.boundingBox);
-                    if (!geometry1.equals(geometry2) && distance < best) {
-                        best = distance;
-                        bestGeometry1 = geometry1;
-                        bestGeometry2 = geometry2;
-                    }
-                }
-            }
+        List<Container> bounded = new ArrayList<>(containers.size());
+        List<Container> unbounded = new LinkedList<>();
+        for (Container container : containers)
+            (container.boundingBox.isBounded() ? bounded : unbounded).add(container);
+        containers.clear();
 
-            // If two geometries are found to merge, create a new geometry and add it to the containers list
-            if (bestGeometry1 != null && bestGeometry2 != null) {
-                containers.add(new Geometries(bestGeometry1, bestGeometry2));
-                containers.remove(bestGeometry1);
-                containers.remove(bestGeometry2);
-            }
-        }
+        BvhBuilder builder = new BvhBuilder(boxesOf(bounded));
+        BvhBuilder.Node root = builder.build();
+        if (root != null)
+            containers.add(toContainer(root, builder.order, bounded));
 
         // Re-add the tubes back to the containers list
-        containers.addAll(tubes);
+        containers.addAll(unbounded);
+        setBoundingBox();
+
+        return new BvhStats(bounded.size(), builder.getNodes(), builder.getLeaves(), builder.getDepth(),
+                BvhBuilder.cost(root), System.nanoTime() - start);
+    }
+
+    /**
+     * Collects the bounding boxes of the given containers into an array in the layout of {@link BvhBuilder}
+     *
+     * @param list the containers
+     * @return 6 values per container - minX, minY, minZ, maxX, maxY, maxZ
+     */
+    static double[] boxesOf(List<? extends Container> list) {
+        double[] boxes = new double[list.size() * 6];
+        int i = 0;
+        for (Container container : list) {
+            BoundingBox box = container.boundingBox;
+            boxes[i++] = box.getMinX();
+            boxes[i++] = box.getMinY();
+            boxes[i++] = box.getMinZ();
+            boxes[i++] = box.getMaxX();
+            boxes[i++] = box.getMaxY();
+            boxes[i++] = box.getMaxZ();
+        }
+        return boxes;
     }
 
+    /**
+     * Turns a node of the split tree into a container - a leaf with a single primitive becomes
+     * the primitive itself, any other node becomes a composite with an already calculated box
+     *
+     * @param node       the node of the split tree
+     * @param order      the primitives order of the split tree
+     * @param primitives the primitives
+     * @return the container of the node
+     */
+    private static Container toContainer(BvhBuilder.Node node, int[] order, List<Container> primitives) {
+        List<Container> children = new LinkedList<>();
+        if (node.isLeaf()) {
+            if (node.count == 1) return primitives.get(order[node.start]);
+            for (int i = node.start; i < node.start + node.count; ++i)
+                children.add(primitives.get(order[i]));
+        } else {
+            children.add(toContainer(node.left, order, primitives));
+            children.add(toContainer(node.right, order, primitives));
+        }
+        Geometries composite = new Geometries();
+        composite.containers = children;
+        double[] b = node.bounds;
+        composite.boundingBox.setBoundingBox(b[0], b[3], b[1], b[4], b[2], b[5]);
+        return composite;
+    }
+
+
+    /**
+     * Collects all the geometries of the composite and of its nested composites
+     *
+     * @param result the list the geometries are added to
+     */
+    void collectGeometries(List<Container> result) {
+        for (Container container : containers) {
+            if (container instanceof Geometries composite) composite.collectGeometries(result);
+            else result.add(container);
+        }
+    }
 
     /**
      * method to flatten the geometries list
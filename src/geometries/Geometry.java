@@ -9,6 +9,8 @@ import primitives.Vector;
  * It extends the Intersectable interface, inheriting the ability to find intersections with a ray.
  */
 public  abstract class Geometry extends Container {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
 
     /** The emission color of the geometry */
     protected Color emission= Color.BLACK;
@@ -65,5 +67,14 @@ public  abstract class Geometry extends Container {
         return this;
     }
 
+    /**
+     * Gets the geometry to be shaded at an intersection found by this geometry.
+     * It is the geometry itself, except for geometries which consist of parts (a mesh and its faces).
+     *
+     * @param hit the hit record of the intersection
+     * @return the geometry to be shaded
+     */
+    Geometry hitGeometry(Intersectable.Hit hit) {
+        return this;
+    }
 }
-
@@ -0,0 +1,490 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of a compiled hierarchy ({@link FlatBvh}) with its geometries, for scene snapshots.
+ * The hierarchy is written as it is - the node arrays and the geometries in the order of the leaves - so
+ * reading it builds nothing. The geometries of the library are written by their defining values, meshes with
+ * their own prebuilt hierarchies, and any other geometry by Java serialization. Materials and vertex arrays
+ * which are shared by several geometries are written once.<br/>
+ * The values are written big-endian (as by {@link DataOutput}) and read from a {@link ByteBuffer}, which may be
+ * a memory mapping of the file. A codec keeps the shared objects of one hierarchy, so a new codec is used for
+ * every file.
+ */
+public final class GeometryCodec {
+    /** Tag of a geometry written by Java serialization */
+    private static final byte SERIALIZED = 0;
+    /** Tag of a sphere */
+    private static final byte SPHERE = 1;
+    /** Tag of a plane */
+    private static final byte PLANE = 2;
+    /** Tag of a triangle */
+    private static final byte TRIANGLE = 3;
+    /** Tag of a polygon */
+    private static final byte POLYGON = 4;
+    /** Tag of a tube */
+    private static final byte TUBE = 5;
+    /** Tag of a cylinder */
+    private static final byte CYLINDER = 6;
+    /** Tag of a mesh */
+    private static final byte MESH = 7;
+
+    /** The shared objects written so far, by their indices */
+    private final Map<Object, Integer> written = new IdentityHashMap<>();
+    /** The shared objects read so far, in the order of their indices */
+    private final List<Object> read = new ArrayList<>();
+
+    /**
+     * Writes a compiled hierarchy with its geometries
+     *
+     * @param bvh the hierarchy
+     * @param out the output
+     * @throws IOException if the output fails or a geometry can not be serialized
+     */
+    public void writeHierarchy(FlatBvh bvh, DataOutput out) throws IOException {
+        writeDoubles(bvh.bounds, out);
+        writeInts(bvh.links, out);
+        out.writeInt(bvh.depth);
+        writeStats(bvh.stats, out);
+        out.writeInt(bvh.primitives.length);
+        for (Intersectable geometry : bvh.primitives) writeGeometry(geometry, out);
+        out.writeInt(bvh.unbounded.length);
+        for (Intersectable geometry : bvh.unbounded) writeGeometry(geometry, out);
+    }
+
+    /**
+     * Reads a compiled hierarchy with its geometries
+     *
+     * @param in the input, positioned at the hierarchy
+     * @return the hierarchy
+     * @throws IOException if the input is malformed
+     */
+    public FlatBvh readHierarchy(ByteBuffer in) throws IOException {
+        try {
+            double[] bounds = readDoubles(in);
+            int[] links = readInts(in);
+            int depth = in.getInt();
+            BvhStats stats = readStats(in);
+            Intersectable[] primitives = new Intersectable[readCount(in)];
+            for (int i = 0; i < primitives.length; ++i) primitives[i] = readGeometry(in);
+            Intersectable[] unbounded = new Intersectable[readCount(in)];
+            for (int i = 0; i < unbounded.length; ++i) unbounded[i] = readGeometry(in);
+            if (bounds.length != links.length * 3)
+                throw new IOException("The hierarchy arrays do not match");
+            if (!FlatBvh.validLinks(links, primitives.length))
+                throw new IOException("A node of the hierarchy refers to missing nodes or geometries");
+            return new FlatBvh(bounds, links, primitives, unbounded, depth, stats);
+        } catch (BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+            throw new IOException("Malformed hierarchy", e);
+        }
+    }
+
+    /**
+     * Writes a geometry
+     *
+     * @param intersectable the geometry
+     * @param out           the output
+     * @throws IOException if the output fails or the geometry can not be serialized
+     */
+    private void writeGeometry(Intersectable intersectable, DataOutput out) throws IOException {
+        Class<?> type = intersectable.getClass();
+        if (type == Sphere.class) {
+            Sphere sphere = (Sphere) intersectable;
+            out.writeByte(SPHERE);
+            writePoint(sphere.getCenter(), out);
+            out.writeDouble(sphere.radius);
+        } else if (type == Plane.class) {
+            Plane plane = (Plane) intersectable;
+            out.writeByte(PLANE);
+            writePoint(plane.getPoint(), out);
+            writePoint(plane.getNormal(), out);
+        } else if (type == Triangle.class || type == Polygon.class) {
+            Polygon polygon = (Polygon) intersectable;
+            out.writeByte(type == Triangle.class ? TRIANGLE : POLYGON);
+            out.writeInt(polygon.vertices.size());
+            for (Point vertex : polygon.vertices) writePoint(vertex, out);
+        } else if (type == Tube.class || type == Cylinder.class) {
+            Tube tube = (Tube) intersectable;
+            out.writeByte(type == Tube.class ? TUBE : CYLINDER);
+            writePoint(tube.axis.getHead(), out);
+            writePoint(tube.axis.getDirection(), out);
+            out.writeDouble(tube.radius);
+            if (type == Cylinder.class) out.writeDouble(((Cylinder) tube).getHeight());
+        } else if (type == Mesh.class) {
+            Mesh mesh = (Mesh) intersectable;
+            out.writeByte(MESH);
+            writeSharedDoubles(mesh.vertices, out);
+            out.writeBoolean(mesh.normals != null);
+            if (mesh.normals != null) writeSharedDoubles(mesh.normals, out);
+            writeInts(mesh.faces, out);
+            writeDoubles(mesh.bounds, out);
+            writeInts(mesh.links, out);
+            out.writeInt(mesh.depth);
+            writeStats(mesh.stats, out);
+        } else {
+            // the emission and the material are serialized with the geometry
+            out.writeByte(SERIALIZED);
+            writeSerialized(intersectable, out);
+            return;
+        }
+        Geometry geometry = (Geometry) intersectable;
+        writeColor(geometry.getEmission(), out);
+        writeMaterial(geometry.getMaterial(), out);
+    }
+
+    /**
+     * Reads a geometry
+     *
+     * @param in the input
+     * @return the geometry
+     * @throws IOException if the input is malformed
+     */
+    private Container readGeometry(ByteBuffer in) throws IOException {
+        byte tag = in.get();
+        Geometry geometry = switch (tag) {
+            case SERIALIZED -> null;
+            case SPHERE -> new Sphere(readPoint(in), in.getDouble());
+            case PLANE -> new Plane(readPoint(in), readVector(in));
+            case TRIANGLE, POLYGON -> {
+                Point[] vertices = new Point[readCount(in)];
+                for (int i = 0; i < vertices.length; ++i) vertices[i] = readPoint(in);
+                if (tag == POLYGON) yield new Polygon(vertices);
+                if (vertices.length != 3) throw new IOException("A triangle of " + vertices.length + " vertices");
+                yield new Triangle(vertices[0], vertices[1], vertices[2]);
+            }
+            case TUBE -> new Tube(new Ray(readPoint(in), readVector(in)), in.getDouble());
+            case CYLINDER -> {
+                Ray axis = new Ray(readPoint(in), readVector(in));
+                double radius = in.getDouble();
+                yield new Cylinder(in.getDouble(), axis, radius);
+            }
+            case MESH -> {
+                double[] vertices = readSharedDoubles(in);
+                double[] normals = in.get() != 0 ? readSharedDoubles(in) : null;
+                yield new Mesh(vertices, normals, readInts(in), readDoubles(in), readInts(in), in.getInt(),
+                        readStats(in));
+            }
+            default -> throw new IOException("Unknown geometry " + tag);
+        };
+        if (geometry == null) {
+            // the geometries of a hierarchy are containers, see FlatBvh.compile
+            Container container = (Container) readSerialized(in);
+            container.setBoundingBox();
+            return container;
+        }
+        geometry.setEmission(readColor(in));
+        geometry.setMaterial(readMaterial(in));
+        geometry.setBoundingBox();
+        return geometry;
+    }
+
+    /**
+     * Writes a material, once for all the geometries which share it
+     *
+     * @param material the material
+     * @param out      the output
+     * @throws IOException if the output fails
+     */
+    private void writeMaterial(Material material, DataOutput out) throws IOException {
+        if (writeReference(material, out)) return;
+        writeDouble3(material.kD, out);
+        writeDouble3(material.kS, out);
+        writeDouble3(material.kT, out);
+        writeDouble3(material.kR, out);
+        out.writeInt(material.nShininess);
+    }
+
+    /**
+     * Reads a material
+     *
+     * @param in the input
+     * @return the material - the same object for all the geometries which share it
+     * @throws IOException if the input is malformed
+     */
+    private Material readMaterial(ByteBuffer in) throws IOException {
+        Object shared = readReference(in);
+        if (shared != null) return (Material) shared;
+        Material material = new Material().setKd(readDouble3(in)).setKs(readDouble3(in)).setKt(readDouble3(in))
+                .setKr(readDouble3(in)).setShininess(in.getInt());
+        read.add(material);
+        return material;
+    }
+
+    /**
+     * Writes an array of doubles, once for all the geometries which share it
+     *
+     * @param values the array
+     * @param out    the output
+     * @throws IOException if the output fails
+     */
+    private void writeSharedDoubles(double[] values, DataOutput out) throws IOException {
+        if (!writeReference(values, out)) writeDoubles(values, out);
+    }
+
+    /**
+     * Reads an array of doubles
+     *
+     * @param in the input
+     * @return the array - the same array for all the geometries which share it
+     * @throws IOException if the input is malformed
+     */
+    private double[] readSharedDoubles(ByteBuffer in) throws IOException {
+        Object shared = readReference(in);
+        if (shared != null) return (double[]) shared;
+        double[] values = readDoubles(in);
+        read.add(values);
+        return values;
+    }
+
+    /**
+     * Writes a reference to a shared object - its index if it was already written, -1 if it follows
+     *
+     * @param object the shared object
+     * @param out    the output
+     * @return true if the object was already written
+     * @throws IOException if the output fails
+     */
+    private boolean writeReference(Object object, DataOutput out) throws IOException {
+        Integer index = written.get(object);
+        out.writeInt(index == null ? -1 : index);
+        if (index == null) written.put(object, written.size());
+        return index != null;
+    }
+
+    /**
+     * Reads a reference to a shared object
+     *
+     * @param in the input
+     * @return the object if it was already read, null if it follows
+     * @throws IOException if the reference is not of an object which was read
+     */
+    private Object readReference(ByteBuffer in) throws IOException {
+        int index = in.getInt();
+        if (index == -1) return null;
+        if (index < 0 || index >= read.size()) throw new IOException("Reference to a missing object " + index);
+        return read.get(index);
+    }
+
+    /**
+     * Writes the report of a hierarchy build
+     *
+     * @param stats the report
+     * @param out   the output
+     * @throws IOException if the output fails
+     */
+    private static void writeStats(BvhStats stats, DataOutput out) throws IOException {
+        out.writeInt(stats.primitives());
+        out.writeInt(stats.nodes());
+        out.writeInt(stats.leaves());
+        out.writeInt(stats.depth());
+        out.writeDouble(stats.sahCost());
+        out.writeLong(stats.buildTimeNanos());
+    }
+
+    /**
+     * Reads the report of a hierarchy build
+     *
+     * @param in the input
+     * @return the report
+     */
+    private static BvhStats readStats(ByteBuffer in) {
+        return new BvhStats(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getDouble(), in.getLong());
+    }
+
+    /**
+     * Writes an array of doubles
+     *
+     * @param values the array
+     * @param out    the output
+     * @throws IOException if the output fails
+     */
+    public static void writeDoubles(double[] values, DataOutput out) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) out.writeDouble(value);
+    }
+
+    /**
+     * Reads an array of doubles - the values are copied at once from the buffer
+     *
+     * @param in the input
+     * @return the array
+     * @throws IOException if the length is malformed
+     */
+    public static double[] readDoubles(ByteBuffer in) throws IOException {
+        double[] values = new double[readCount(in)];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * Writes an array of ints
+     *
+     * @param values the array
+     * @param out    the output
+     * @throws IOException if the output fails
+     */
+    public static void writeInts(int[] values, DataOutput out) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) out.writeInt(value);
+    }
+
+    /**
+     * Reads an array of ints - the values are copied at once from the buffer
+     *
+     * @param in the input
+     * @return the array
+     * @throws IOException if the length is malformed
+     */
+    public static int[] readInts(ByteBuffer in) throws IOException {
+        int[] values = new int[readCount(in)];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Reads an amount of elements
+     *
+     * @param in the input
+     * @return the amount
+     * @throws IOException if the amount is negative or larger than the rest of the input
+     */
+    public static int readCount(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) throw new IOException("Malformed amount " + count);
+        return count;
+    }
+
+    /**
+     * Writes a point (or a vector)
+     *
+     * @param point the point
+     * @param out   the output
+     * @throws IOException if the output fails
+     */
+    public static void writePoint(Point point, DataOutput out) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        out.writeDouble(point.getZ());
+    }
+
+    /**
+     * Reads a point
+     *
+     * @param in the input
+     * @return the point
+     */
+    public static Point readPoint(ByteBuffer in) {
+        return new Point(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Reads a vector
+     *
+     * @param in the input
+     * @return the vector
+     */
+    public static Vector readVector(ByteBuffer in) {
+        return new Vector(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes a color
+     *
+     * @param color the color
+     * @param out   the output
+     * @throws IOException if the output fails
+     */
+    public static void writeColor(Color color, DataOutput out) throws IOException {
+        out.writeDouble(color.getRed());
+        out.writeDouble(color.getGreen());
+        out.writeDouble(color.getBlue());
+    }
+
+    /**
+     * Reads a color
+     *
+     * @param in the input
+     * @return the color
+     */
+    public static Color readColor(ByteBuffer in) {
+        return new Color(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes a triad of numbers
+     *
+     * @param values the triad
+     * @param out    the output
+     * @throws IOException if the output fails
+     */
+    private static void writeDouble3(Double3 values, DataOutput out) throws IOException {
+        out.writeDouble(values.getD1());
+        out.writeDouble(values.getD2());
+        out.writeDouble(values.getD3());
+    }
+
+    /**
+     * Reads a triad of numbers
+     *
+     * @param in the input
+     * @return the triad
+     */
+    private static Double3 readDouble3(ByteBuffer in) {
+        return new Double3(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes an object by Java serialization, as a block of bytes
+     *
+     * @param object the object
+     * @param out    the output
+     * @throws IOException if the output fails or the object can not be serialized
+     */
+    public static void writeSerialized(Serializable object, DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(object);
+        }
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /**
+     * Reads an object written by Java serialization
+     *
+     * @param in the input
+     * @return the object
+     * @throws IOException if the object is malformed or of an unknown class
+     */
+    public static Object readSerialized(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[readCount(in)];
+        in.get(bytes);
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return stream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class of a serialized object", e);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
 
+import static primitives.Util.alignZero;
+
 /**
  * The Intersectable interface represents any object that can be intersected by a ray.
  * Implementing classes are required to provide a method for finding intersection points with a ray.
  */
-public abstract class Intersectable {
+public abstract class Intersectable implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
 
 
 
@@ -68,6 +74,107 @@ public abstract class Intersectable {
     }
 
 
+    /**
+     * A mutable record of the closest intersection found along a ray so far.
+     * The record is owned by the caller and is filled by the intersectable objects without allocating
+     * anything - a point is built only for the final intersection.
+     */
+    public static class Hit {
+        /**
+         * The distance along the ray to the closest intersection found so far,
+         * or the maximal distance to consider while nothing was found
+         */
+        public double t;
+        /**
+         * The geometry of the closest intersection, null while nothing was found
+         */
+        public Geometry geometry;
+        /**
+         * The barycentric coordinates of the intersection on a triangle (relative to its second and third
+         * vertices) - they are meaningless for other geometries
+         */
+        public double u, v;
+        /**
+         * The index of the intersected face of a mesh - it is meaningless for other geometries
+         */
+        public int face;
+        /**
+         * The intersection point if it is already known, null if it should be calculated from the distance
+         */
+        private Point point;
+
+        /**
+         * Constructs an empty hit record
+         *
+         * @param maxDistance the maximum distance from the ray's starting point to consider
+         */
+        public Hit(double maxDistance) {
+            reset(maxDistance);
+        }
+
+        /**
+         * Empties the hit record for reusing it with another ray
+         *
+         * @param maxDistance the maximum distance from the ray's starting point to consider
+         * @return the hit record itself
+         */
+        public Hit reset(double maxDistance) {
+            t = maxDistance;
+            geometry = null;
+            point = null;
+            u = v = 0;
+            face = -1;
+            return this;
+        }
+
+        /**
+         * Offers an intersection to the record. It is taken if it is closer than the closest intersection
+         * found so far, or not beyond the maximal distance while nothing was found.
+         *
+         * @param t        the distance along the ray to the intersection
+         * @param geometry the intersected geometry
+         * @return true if the intersection was taken
+         */
+        public boolean offer(double t, Geometry geometry) {
+            if (!accepts(t)) return false;
+            this.t = t;
+            this.geometry = geometry;
+            point = null;
+            return true;
+        }
+
+        /**
+         * Checks whether an intersection would be taken by the record
+         *
+         * @param t the distance along the ray to the intersection
+         * @return true if the intersection is closer than the closest intersection found so far
+         */
+        public boolean accepts(double t) {
+            return geometry == null ? alignZero(t - this.t) <= 0 : t < this.t;
+        }
+
+        /**
+         * Checks whether an intersection was found
+         *
+         * @return true if an intersection was found
+         */
+        public boolean found() {
+            return geometry != null;
+        }
+
+        /**
+         * Builds the intersection point
+         *
+         * @param ray the intersected ray
+         * @return the intersection point, or null if nothing was found
+         */
+        public GeoPoint toGeoPoint(Ray ray) {
+            if (geometry == null) return null;
+            return new GeoPoint(geometry.hitGeometry(this), point != null ? point : ray.GetPoint(t));
+        }
+    }
+
+
     /**
      * Finds all intersection points between the ray and the intersectable object.
      *
@@ -149,6 +256,130 @@ public abstract class Intersectable {
     }
 
 
+    /**
+     * Finds the closest intersection point between the ray and the intersectable object.
+     *
+     * @param ray the ray to intersect with the object
+     * @param maxDistance the maximum distance from the ray's starting point to consider
+     * @param bb whether to use the bounding box optimization
+     * @return the closest intersection point, or null if there are no intersections
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance, boolean bb) {
+        Hit hit = new Hit(maxDistance);
+        return intersectHelper(ray, hit, bb) ? hit.toGeoPoint(ray) : null;
+    }
+
+    /**
+     * Finds the closest intersection between the ray and the intersectable object which is closer
+     * than the one in the hit record, and writes it into the record.
+     *
+     * @param ray the ray to intersect with the object
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    public final boolean intersect(Ray ray, Hit hit, boolean bb) {
+        return intersectHelper(ray, hit, bb);
+    }
+
+    /**
+     * Finds the closest intersection between the ray and the intersectable object which is closer
+     * than the one in the hit record. By default, all the intersections are found and offered to the record -
+     * geometries override it for calculating the distance without allocations, and composites for pruning
+     * everything beyond the closest intersection found so far.
+     *
+     * @param ray the ray to intersect with the object
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, hit.t, bb);
+        if (intersections == null) return false;
+        Point head = ray.getHead();
+        boolean found = false;
+        for (GeoPoint gp : intersections)
+            if (hit.offer(head.distance(gp.point), gp.geometry)) {
+                hit.point = gp.point;
+                found = true;
+            }
+        return found;
+    }
+
+
+    /**
+     * Finds how much light passes along the ray through the intersectable object - the product of the
+     * transparency coefficients of all the geometries the ray crosses (an occlusion query for shadow rays).
+     *
+     * @param ray the ray from the shaded point towards the light source
+     * @param maxDistance the distance to the light source
+     * @param bb whether to use the bounding box optimization
+     * @return the transparency factor along the ray, {@link Double3#ONE} if nothing blocks it
+     * and {@link Double3#ZERO} if an opaque geometry blocks it
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, boolean bb) {
+        return findTransparencyHelper(ray, maxDistance, bb, 0, null);
+    }
+
+    /**
+     * Finds how much light passes along the ray through the intersectable object, and records the geometry
+     * which blocks the ray - testing that geometry first for the next rays towards the same light source
+     * spares their traversal, since neighbouring points are usually blocked by the same geometry.
+     * The traversal stops as soon as every component of the transparency factor is below the cutoff.
+     *
+     * @param ray the ray from the shaded point towards the light source
+     * @param maxDistance the distance to the light source
+     * @param bb whether to use the bounding box optimization
+     * @param cutoff the transparency factor below which the ray is considered blocked, 0 for an exact factor
+     * @param occluder the hit record which receives the geometry blocking the ray in its geometry
+     *                 field - it is not changed unless a single geometry blocks the ray
+     * @return the transparency factor along the ray, {@link Double3#ONE} if nothing blocks it
+     * and {@link Double3#ZERO} if the ray is blocked
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, boolean bb, double cutoff, Hit occluder) {
+        return findTransparencyHelper(ray, maxDistance, bb, cutoff, occluder);
+    }
+
+    /**
+     * Finds how much light passes along the ray through the intersectable object.
+     * By default, all the intersections are found and their transparency coefficients are multiplied,
+     * stopping once the ray is blocked - composites override it for stopping their traversal as well.
+     *
+     * @param ray the ray from the shaded point towards the light source
+     * @param maxDistance the distance to the light source
+     * @param bb whether to use the bounding box optimization
+     * @param cutoff the transparency factor below which the ray is considered blocked, 0 for an exact factor
+     * @param occluder the hit record which receives the geometry blocking the ray by itself, or null
+     * @return the transparency factor along the ray
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, boolean bb, double cutoff,
+                                             Hit occluder) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance, bb);
+        if (intersections == null) return Double3.ONE;
+        Double3 ktr = Double3.ONE;
+        for (GeoPoint gp : intersections) {
+            Double3 kT = gp.geometry.getMaterial().kT;
+            ktr = ktr.product(kT);
+            if (isBlocked(ktr, cutoff)) {
+                if (occluder != null && isBlocked(kT, cutoff)) occluder.geometry = gp.geometry;
+                return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Checks whether a transparency factor blocks the light
+     *
+     * @param ktr the transparency factor
+     * @param cutoff the transparency factor below which the light is considered blocked, 0 for no light at all
+     * @return true if the light is blocked
+     */
+    static boolean isBlocked(Double3 ktr, double cutoff) {
+        return ktr.lowerThan(cutoff) || ktr.equals(Double3.ZERO);
+    }
+
+
 
 
 }
@@ -0,0 +1,616 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Indexed triangle mesh - the vertices are kept in a flat coordinates array (which may be shared by several
+ * meshes), and every face is a triple of vertex indices. The mesh has its own bounding volume hierarchy
+ * over its faces, so it is a single geometry for the scene however many faces it has.
+ * The faces are not objects of their own - a {@link Face} is built only for an intersection which is shaded.
+ */
+public class Mesh extends Geometry {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /** Vertex coordinates, 3 values per vertex */
+    final double[] vertices;
+    /** Vertex normals, 3 values per vertex, or null for flat faces */
+    final double[] normals;
+    /** Vertex indices, 3 values per face, in the order of the leaves of the hierarchy */
+    final int[] faces;
+    /** Node bounds, 6 values per node - minX, minY, minZ, maxX, maxY, maxZ */
+    final double[] bounds;
+    /**
+     * Node links, 2 values per node - for an inner node the index of its second child and 0,
+     * for a leaf the index of its first face and the amount of its faces
+     */
+    final int[] links;
+    /** Depth of the hierarchy - bounds the traversal stack */
+    final int depth;
+    /** Report of the hierarchy build */
+    final BvhStats stats;
+
+    /**
+     * Constructs a mesh of flat faces
+     *
+     * @param vertices the vertex coordinates, 3 values per vertex
+     * @param faces    the vertex indices, 3 values per face
+     * @throws IllegalArgumentException if the arrays are not made of triples or a face refers to a missing vertex
+     */
+    public Mesh(double[] vertices, int[] faces) {
+        this(vertices, faces, null);
+    }
+
+    /**
+     * Constructs a mesh. The vertices array is used as is (it is not copied), the faces are copied
+     * in the order of the hierarchy.
+     *
+     * @param vertices the vertex coordinates, 3 values per vertex
+     * @param faces    the vertex indices, 3 values per face
+     * @param normals  the vertex normals, 3 values per vertex, or null for flat faces
+     * @throws IllegalArgumentException if the arrays are not made of triples, a face refers to a missing vertex,
+     *                                  or the amount of the normals is not the amount of the vertices
+     */
+    public Mesh(double[] vertices, int[] faces, double[] normals) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Vertex coordinates must come in triples");
+        if (faces.length % 3 != 0)
+            throw new IllegalArgumentException("Face indices must come in triples");
+        if (normals != null && normals.length != vertices.length)
+            throw new IllegalArgumentException("There must be a normal for every vertex");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("A face refers to a missing vertex");
+
+        long start = System.nanoTime();
+        this.vertices = vertices;
+        this.normals = normals;
+
+        int faceCount = faces.length / 3;
+        double[] boxes = new double[faceCount * 6];
+        for (int f = 0; f < faceCount; ++f)
+            for (int axis = 0; axis < 3; ++axis) {
+                double a = vertices[faces[f * 3] * 3 + axis];
+                double b = vertices[faces[f * 3 + 1] * 3 + axis];
+                double c = vertices[faces[f * 3 + 2] * 3 + axis];
+                boxes[f * 6 + axis] = Math.min(a, Math.min(b, c));
+                boxes[f * 6 + 3 + axis] = Math.max(a, Math.max(b, c));
+            }
+
+        BvhBuilder builder = new BvhBuilder(boxes);
+        BvhBuilder.Node root = builder.build();
+        int nodes = builder.getNodes();
+        bounds = new double[nodes * 6];
+        links = new int[nodes * 2];
+        this.faces = new int[faces.length];
+        if (root != null)
+            emit(root, builder.order, faces, bounds, links, this.faces, new int[2]);
+        depth = builder.getDepth();
+        stats = new BvhStats(faceCount, nodes, builder.getLeaves(), depth, BvhBuilder.cost(root),
+                System.nanoTime() - start);
+        setBoundingBox();
+    }
+
+    /**
+     * Constructs a mesh from its prebuilt hierarchy (of a scene snapshot) - the arrays are used as they are
+     *
+     * @param vertices the vertex coordinates, 3 values per vertex
+     * @param normals  the vertex normals, 3 values per vertex, or null for flat faces
+     * @param faces    the vertex indices, 3 values per face, in the order of the leaves
+     * @param bounds   the node bounds
+     * @param links    the node links
+     * @param depth    depth of the hierarchy
+     * @param stats    report of the hierarchy build
+     * @throws IllegalArgumentException if the arrays do not match, a face refers to a missing vertex, or a node
+     *                                  refers to missing nodes or faces
+     */
+    Mesh(double[] vertices, double[] normals, int[] faces, double[] bounds, int[] links, int depth,
+         BvhStats stats) {
+        if (vertices.length % 3 != 0 || faces.length % 3 != 0 || bounds.length != links.length * 3
+                || normals != null && normals.length != vertices.length)
+            throw new IllegalArgumentException("The arrays of the mesh do not match");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("A face refers to a missing vertex");
+        if (!FlatBvh.validLinks(links, faces.length / 3))
+            throw new IllegalArgumentException("A node of the mesh refers to missing nodes or faces");
+        this.vertices = vertices;
+        this.normals = normals;
+        this.faces = faces;
+        this.bounds = bounds;
+        this.links = links;
+        this.depth = depth;
+        this.stats = stats;
+        setBoundingBox();
+    }
+
+    /**
+     * Writes a node of the split tree and its subtree into the arrays in depth-first order
+     *
+     * @param node   the node of the split tree
+     * @param order  the faces order of the split tree
+     * @param source the vertex indices of the faces in their original order
+     * @param bounds the node bounds array
+     * @param links  the node links array
+     * @param faces  the vertex indices array in the order of the leaves
+     * @param next   the next free node index and the next free face index
+     * @return the index of the node
+     */
+    private static int emit(BvhBuilder.Node node, int[] order, int[] source,
+                            double[] bounds, int[] links, int[] faces, int[] next) {
+        int index = next[0]++;
+        System.arraycopy(node.bounds, 0, bounds, index * 6, 6);
+        if (node.isLeaf()) {
+            links[index * 2] = next[1];
+            links[index * 2 + 1] = node.count;
+            for (int i = node.start; i < node.start + node.count; ++i)
+                System.arraycopy(source, order[i] * 3, faces, next[1]++ * 3, 3);
+        } else {
+            emit(node.left, order, source, bounds, links, faces, next);
+            links[index * 2] = emit(node.right, order, source, bounds, links, faces, next);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the amount of the vertices
+     *
+     * @return amount of the vertices
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Gets the amount of the faces
+     *
+     * @return amount of the faces
+     */
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Gets the report of the hierarchy build over the faces
+     *
+     * @return the size, the depth and the SAH cost of the hierarchy and the build time
+     */
+    public BvhStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Calculates the normal of the mesh at a point - the normal of the face nearest to the point,
+     * found through the hierarchy. A shaded intersection takes the normal of its {@link Face} instead.
+     *
+     * @param p the point on the surface
+     * @return the normal of the nearest face at the point nearest to p
+     * @throws IllegalStateException if the mesh has no faces
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        if (links.length == 0) throw new IllegalStateException("An empty mesh has no normal");
+        double px = p.getX(), py = p.getY(), pz = p.getZ();
+        // the nearest face so far, its squared distance and its barycentric coordinates
+        int nearest = -1;
+        double best = Double.POSITIVE_INFINITY;
+        double[] uv = new double[2];
+        double nearestU = 0, nearestV = 0;
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (boxDistanceSquared(node, px, py, pz) >= best) continue;
+            int count = links[node * 2 + 1];
+            if (count > 0) {
+                int first = links[node * 2];
+                for (int f = first; f < first + count; ++f) {
+                    double d = faceDistanceSquared(f, px, py, pz, uv);
+                    if (d < best) {
+                        best = d;
+                        nearest = f;
+                        nearestU = uv[0];
+                        nearestV = uv[1];
+                    }
+                }
+            } else {
+                stack[top++] = links[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+        return faceNormal(nearest, nearestU, nearestV);
+    }
+
+    /**
+     * Calculates the squared distance from a point to the box of a node
+     *
+     * @param node the node index
+     * @param px   x of the point
+     * @param py   y of the point
+     * @param pz   z of the point
+     * @return the squared distance, 0 if the point is inside the box
+     */
+    private double boxDistanceSquared(int node, double px, double py, double pz) {
+        int b = node * 6;
+        double dx = Math.max(0, Math.max(bounds[b] - px, px - bounds[b + 3]));
+        double dy = Math.max(0, Math.max(bounds[b + 1] - py, py - bounds[b + 4]));
+        double dz = Math.max(0, Math.max(bounds[b + 2] - pz, pz - bounds[b + 5]));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Finds the point of a face nearest to a point, by the regions of the triangle
+     * (vertices, edges and interior) which the point projects into
+     *
+     * @param face the face index
+     * @param px   x of the point
+     * @param py   y of the point
+     * @param pz   z of the point
+     * @param uv   receives the barycentric coordinates of the nearest point relative to the second
+     *             and the third vertices
+     * @return the squared distance from the point to the face
+     */
+    private double faceDistanceSquared(int face, double px, double py, double pz, double[] uv) {
+        int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+        double abx = vertices[b] - vertices[a], aby = vertices[b + 1] - vertices[a + 1], abz = vertices[b + 2] - vertices[a + 2];
+        double acx = vertices[c] - vertices[a], acy = vertices[c + 1] - vertices[a + 1], acz = vertices[c + 2] - vertices[a + 2];
+        double apx = px - vertices[a], apy = py - vertices[a + 1], apz = pz - vertices[a + 2];
+        double d1 = abx * apx + aby * apy + abz * apz;
+        double d2 = acx * apx + acy * apy + acz * apz;
+        double u, v;
+        if (d1 <= 0 && d2 <= 0) {
+            u = 0;
+            v = 0;
+        } else {
+            double bpx = px - vertices[b], bpy = py - vertices[b + 1], bpz = pz - vertices[b + 2];
+            double d3 = abx * bpx + aby * bpy + abz * bpz;
+            double d4 = acx * bpx + acy * bpy + acz * bpz;
+            double cpx = px - vertices[c], cpy = py - vertices[c + 1], cpz = pz - vertices[c + 2];
+            double d5 = abx * cpx + aby * cpy + abz * cpz;
+            double d6 = acx * cpx + acy * cpy + acz * cpz;
+            double vc = d1 * d4 - d3 * d2, vb = d5 * d2 - d1 * d6, va = d3 * d6 - d5 * d4;
+            if (d3 >= 0 && d4 <= d3) {
+                u = 1;
+                v = 0;
+            } else if (d6 >= 0 && d5 <= d6) {
+                u = 0;
+                v = 1;
+            } else if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+                u = d1 / (d1 - d3);
+                v = 0;
+            } else if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+                u = 0;
+                v = d2 / (d2 - d6);
+            } else if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+                v = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+                u = 1 - v;
+            } else {
+                double denominator = 1 / (va + vb + vc);
+                u = vb * denominator;
+                v = vc * denominator;
+            }
+        }
+        uv[0] = u;
+        uv[1] = v;
+        double dx = apx - u * abx - v * acx, dy = apy - u * aby - v * acy, dz = apz - u * abz - v * acz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Override
+    Geometry hitGeometry(Hit hit) {
+        return new Face(this, hit.face, hit.u, hit.v);
+    }
+
+    /**
+     * Finds all intersection points between the ray and the faces of the mesh
+     *
+     * @param ray the ray to intersect with the mesh
+     * @param maxDistance the maximum distance from the ray's starting point to consider
+     * @param bb whether to use the bounding box optimization
+     * @return a list of intersection points, or null if there are no intersections
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance, boolean bb) {
+        if (links.length == 0) return null;
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+        List<GeoPoint> intersections = null;
+        Hit hit = new Hit(maxDistance);
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (FlatBvh.entryDistance(bounds, node, ox, oy, oz, dx, dy, dz, ix, iy, iz, maxDistance)
+                    == Double.POSITIVE_INFINITY)
+                continue;
+            int count = links[node * 2 + 1];
+            if (count > 0) {
+                int first = links[node * 2];
+                for (int f = first; f < first + count; ++f)
+                    if (intersectFace(f, ox, oy, oz, dx, dy, dz, hit.reset(maxDistance))) {
+                        if (intersections == null) intersections = new LinkedList<>();
+                        intersections.add(hit.toGeoPoint(ray));
+                    }
+            } else {
+                stack[top++] = links[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection between the ray and the faces of the mesh.
+     * The nearer child of every inner node is visited first, and any node which the ray enters beyond
+     * the closest intersection found so far is skipped.
+     *
+     * @param ray the ray to intersect with the mesh
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        return links.length != 0 && traverse(ray, hit, false);
+    }
+
+    /**
+     * Finds how much light passes along the ray through the mesh. For an opaque mesh it is enough to find
+     * any face which blocks the ray.
+     *
+     * @param ray the ray from the shaded point towards the light source
+     * @param maxDistance the distance to the light source
+     * @param bb whether to use the bounding box optimization
+     * @param cutoff the transparency factor below which the ray is considered blocked, 0 for an exact factor
+     * @param occluder the hit record which receives the mesh if it blocks the ray, or null
+     * @return the transparency factor along the ray
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, boolean bb, double cutoff,
+                                             Hit occluder) {
+        if (links.length == 0) return Double3.ONE;
+        if (isBlocked(getMaterial().kT, cutoff)) {
+            if (!traverse(ray, new Hit(maxDistance), true)) return Double3.ONE;
+            // the whole mesh is the occluder - its faces are not intersectable by themselves
+            if (occluder != null) occluder.geometry = this;
+            return Double3.ZERO;
+        }
+        return super.findTransparencyHelper(ray, maxDistance, bb, cutoff, occluder);
+    }
+
+    /**
+     * Traverses the hierarchy front-to-back for the closest intersection
+     *
+     * @param ray    the ray to intersect with the mesh
+     * @param hit    the hit record of the closest intersection found so far
+     * @param anyHit whether to stop at the first intersection found
+     * @return true if a closer intersection was found
+     */
+    private boolean traverse(Ray ray, Hit hit, boolean anyHit) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+        double rootEntry = FlatBvh.entryDistance(bounds, 0, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit.t);
+        if (rootEntry == Double.POSITIVE_INFINITY) return false;
+
+        boolean found = false;
+        int[] stack = new int[depth + 1];
+        double[] entries = new double[depth + 1];
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > hit.t) continue;
+            int count = links[node * 2 + 1];
+            if (count > 0) {
+                int first = links[node * 2];
+                for (int f = first; f < first + count; ++f)
+                    if (intersectFace(f, ox, oy, oz, dx, dy, dz, hit)) {
+                        if (anyHit) return true;
+                        found = true;
+                    }
+                continue;
+            }
+
+            int near = node + 1;
+            int far = links[node * 2];
+            double nearEntry = FlatBvh.entryDistance(bounds, near, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit.t);
+            double farEntry = FlatBvh.entryDistance(bounds, far, ox, oy, oz, dx, dy, dz, ix, iy, iz, hit.t);
+            if (farEntry < nearEntry) {
+                int tmpNode = near;
+                near = far;
+                far = tmpNode;
+                double tmpEntry = nearEntry;
+                nearEntry = farEntry;
+                farEntry = tmpEntry;
+            }
+            // push the farther child first so the nearer one is visited first
+            if (farEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = farEntry;
+            }
+            if (nearEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = nearEntry;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Intersects the ray with a face by the Moller-Trumbore algorithm, like {@link Triangle}
+     *
+     * @param face the face index
+     * @param ox   x of the ray head
+     * @param oy   y of the ray head
+     * @param oz   z of the ray head
+     * @param dx   x of the ray direction
+     * @param dy   y of the ray direction
+     * @param dz   z of the ray direction
+     * @param hit  the hit record of the closest intersection found so far
+     * @return true if a closer intersection was found
+     */
+    private boolean intersectFace(int face, double ox, double oy, double oz, double dx, double dy, double dz,
+                                  Hit hit) {
+        int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+        double p0x = vertices[a], p0y = vertices[a + 1], p0z = vertices[a + 2];
+        double e1x = vertices[b] - p0x, e1y = vertices[b + 1] - p0y, e1z = vertices[b + 2] - p0z;
+        double e2x = vertices[c] - p0x, e2y = vertices[c + 1] - p0y, e2z = vertices[c + 2] - p0z;
+
+        double hx = dy * e2z - dz * e2y;
+        double hy = dz * e2x - dx * e2z;
+        double hz = dx * e2y - dy * e2x;
+        double det = e1x * hx + e1y * hy + e1z * hz;
+        if (det * det <= Triangle.PARALLEL * (e1x * e1x + e1y * e1y + e1z * e1z) * (e2x * e2x + e2y * e2y + e2z * e2z))
+            return false;
+        double f = 1 / det;
+
+        double sx = ox - p0x, sy = oy - p0y, sz = oz - p0z;
+        double u = alignZero(f * (sx * hx + sy * hy + sz * hz));
+        if (u <= 0 || u >= 1) return false;
+
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = alignZero(f * (dx * qx + dy * qy + dz * qz));
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return false;
+
+        double t = alignZero(f * (e2x * qx + e2y * qy + e2z * qz));
+        if (t <= 0 || !hit.offer(t, this)) return false;
+        hit.u = u;
+        hit.v = v;
+        hit.face = face;
+        return true;
+    }
+
+    /**
+     * Calculates the normal of a face at a point given by its barycentric coordinates - interpolated
+     * from the vertex normals if there are any, or the normal of the face's plane otherwise
+     *
+     * @param face the face index
+     * @param u    the barycentric coordinate of the second vertex
+     * @param v    the barycentric coordinate of the third vertex
+     * @return the normal
+     */
+    private Vector faceNormal(int face, double u, double v) {
+        int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+        if (normals != null) {
+            double w = 1 - u - v;
+            double nx = w * normals[a] + u * normals[b] + v * normals[c];
+            double ny = w * normals[a + 1] + u * normals[b + 1] + v * normals[c + 1];
+            double nz = w * normals[a + 2] + u * normals[b + 2] + v * normals[c + 2];
+            if (!(isZero(nx) && isZero(ny) && isZero(nz)))
+                return new Vector(nx, ny, nz).normalize();
+        }
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1], e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1], e2z = vertices[c + 2] - vertices[a + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    /**
+     * Sets the bounding box of the mesh - the box of the root of its hierarchy
+     */
+    @Override
+    public void setBoundingBox() {
+        super.setBoundingBox();
+        if (bounds.length != 0)
+            boundingBox.setBoundingBox(bounds[0], bounds[3], bounds[1], bounds[4], bounds[2], bounds[5]);
+    }
+
+    /**
+     * An intersected face of a mesh. It is built for shading an intersection - it holds the normal at the
+     * intersection and starts with the emission and the material of its mesh. Setting them on the face
+     * changes only this face object, not the mesh.
+     */
+    public static class Face extends Geometry {
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        /** The mesh of the face */
+        private final Mesh mesh;
+        /** The index of the face in the mesh */
+        private final int index;
+        /** The normal of the face at the intersection */
+        private final Vector normal;
+
+        /**
+         * Constructs a face of a mesh
+         *
+         * @param mesh  the mesh
+         * @param index the index of the face in the mesh
+         * @param u     the barycentric coordinate of the intersection relative to the second vertex
+         * @param v     the barycentric coordinate of the intersection relative to the third vertex
+         */
+        Face(Mesh mesh, int index, double u, double v) {
+            this.mesh = mesh;
+            this.index = index;
+            this.normal = mesh.faceNormal(index, u, v);
+            this.emission = mesh.getEmission();
+            setMaterial(mesh.getMaterial());
+        }
+
+        /**
+         * Gets the mesh of the face
+         *
+         * @return the mesh
+         */
+        public Mesh getMesh() {
+            return mesh;
+        }
+
+        /**
+         * Gets the index of the face in the mesh
+         *
+         * @return the index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public Vector getNormal(Point p) {
+            return normal;
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance, boolean bb) {
+            Hit hit = new Hit(maxDistance);
+            if (!mesh.intersectFace(index, ray.getHead().getX(), ray.getHead().getY(), ray.getHead().getZ(),
+                    ray.getDirection().getX(), ray.getDirection().getY(), ray.getDirection().getZ(), hit))
+                return null;
+            return List.of(new GeoPoint(this, ray.GetPoint(hit.t)));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Face other && mesh == other.mesh && index == other.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mesh) * 31 + index;
+        }
+    }
+}
@@ -13,6 +13,9 @@ import static primitives.Util.isZero;
  * Represents a plane in three-dimensional space.
  */
 public class Plane extends Geometry {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * A point on the plane.
      */
@@ -46,8 +49,8 @@ public class Plane extends Geometry {
         Vector v1 = p2.subtract(p1);
         Vector v2 = p3.subtract(p1);
 
-        // Check if the points are collinear
-        if (isZero(v1.crossProduct(v2).lengthSquared())) {
+        // Check if the points are collinear - relative to the lengths of the edges, so small planes are valid
+        if (isZero(v1.crossProduct(v2).lengthSquared() / (v1.lengthSquared() * v2.lengthSquared()))) {
             throw new IllegalArgumentException("Points are in the same line");
         }
 
@@ -97,6 +100,15 @@ public class Plane extends Geometry {
         return normal;
     }
 
+    /**
+     * Returns the point which defines the plane.
+     *
+     * @return A point on the plane.
+     */
+    Point getPoint() {
+        return q;
+    }
+
 
     /**
      * Finds all intersection points between the given ray and this geometric object.
@@ -163,12 +175,52 @@ public class Plane extends Geometry {
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance,boolean bb) {
         List<Point> listIntersections=this.findIntersections(ray);
+        if(listIntersections==null)
+            return null;
         if(alignZero(listIntersections.get(0).distance(ray.getHead())-maxDistance)<=0)
         return List.of(new  GeoPoint(this,listIntersections.get(0)));
         return null;
     }
 
-}
+    /**
+     * Finds the closest intersection between the ray and the plane without allocating anything.
+     *
+     * @param ray the ray to intersect with the plane
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        double t = intersectionDistance(ray);
+        return t != Double.POSITIVE_INFINITY && hit.offer(t, this);
+    }
 
+    /**
+     * Calculates the distance along the ray to its intersection with the plane, by the same rules
+     * as {@link #findIntersections(Ray)}.
+     *
+     * @param ray the ray to intersect with the plane
+     * @return the distance to the intersection, or positive infinity if there is no intersection
+     */
+    double intersectionDistance(Ray ray) {
+        Point p0 = ray.getHead();
+        Vector v = ray.getDirection();
+        if (p0.equals(q))
+            return Double.POSITIVE_INFINITY;
 
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        double nQMinusP0 = alignZero((q.getX() - p0.getX()) * nx + (q.getY() - p0.getY()) * ny
+                + (q.getZ() - p0.getZ()) * nz);
+        if (nQMinusP0 == 0)
+            return Double.POSITIVE_INFINITY;
 
+        double nv = alignZero(v.getX() * nx + v.getY() * ny + v.getZ() * nz);
+        if (nv == 0)
+            return Double.POSITIVE_INFINITY;
+
+        double t = alignZero(nQMinusP0 / nv);
+        return t < 0 ? Double.POSITIVE_INFINITY : t;
+    }
+
+}
@@ -15,6 +15,9 @@ import primitives.Vector;
  * @author Dan
  */
 public class Polygon extends Geometry {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * List of polygon's vertices
      */
@@ -149,6 +152,45 @@ public class Polygon extends Geometry {
     }
 
 
+    /**
+     * Finds the closest intersection between the ray and the polygon without allocating anything.
+     * The intersection point with the polygon's plane must be strictly inside the polygon -
+     * on the same side of all its edges.
+     *
+     * @param ray the ray to intersect with the polygon
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        double t = plane.intersectionDistance(ray);
+        if (t == Double.POSITIVE_INFINITY || !hit.accepts(t)) return false;
+
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double px = head.getX() + t * direction.getX();
+        double py = head.getY() + t * direction.getY();
+        double pz = head.getZ() + t * direction.getZ();
+        Vector normal = plane.getNormal();
+
+        for (int i = 0; i < size; i++) {
+            Point currentVertex = vertices.get(i);
+            Point nextVertex = vertices.get((i + 1) % size);
+            double cx = currentVertex.getX(), cy = currentVertex.getY(), cz = currentVertex.getZ();
+            double ex = nextVertex.getX() - cx, ey = nextVertex.getY() - cy, ez = nextVertex.getZ() - cz;
+            double tx = px - cx, ty = py - cy, tz = pz - cz;
+            double crossX = ey * tz - ez * ty;
+            double crossY = ez * tx - ex * tz;
+            double crossZ = ex * ty - ey * tx;
+            // the point is on the edge (or on a vertex)
+            if (isZero(crossX) && isZero(crossY) && isZero(crossZ)) return false;
+            if (crossX * normal.getX() + crossY * normal.getY() + crossZ * normal.getZ() < 0) return false;
+        }
+        return hit.offer(t, this);
+    }
+
+
   /**
      * method sets the values of the bounding volume of the intersectable component
      * this implementation is for constructing new bounding box if necessary/needed
@@ -8,6 +8,9 @@ import primitives.Vector;
  * A radial geometry is a geometric shape characterized by a radius.
  */
 public abstract class RadialGeometry extends Geometry {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The radius of the radial geometry.
      */
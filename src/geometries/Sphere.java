@@ -12,6 +12,9 @@ import static primitives.Util.alignZero;
  * Represents a sphere in three-dimensional space.
  */
 public class Sphere extends RadialGeometry {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The center point of the sphere.
      */
@@ -112,6 +115,42 @@ public class Sphere extends RadialGeometry {
         }
     }
 
+    /**
+     * Finds the closest intersection between the ray and the sphere without allocating anything.
+     *
+     * @param ray the ray to intersect with the sphere
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        Point head = ray.getHead();
+        // If the ray's head is at the center of the sphere, the intersection is at the distance of the radius
+        if (head.equals(center))
+            return hit.offer(radius, this);
+
+        Vector direction = ray.getDirection();
+        // the vector from the ray's head to the center of the sphere
+        double ux = center.getX() - head.getX();
+        double uy = center.getY() - head.getY();
+        double uz = center.getZ() - head.getZ();
+
+        double tm = direction.getX() * ux + direction.getY() * uy + direction.getZ() * uz;
+        double d = Math.sqrt(ux * ux + uy * uy + uz * uz - tm * tm);
+        if (d >= radius) {
+            return false;
+        }
+        double th = Math.sqrt(radius * radius - d * d);
+
+        // the nearer intersection is taken if it is in front of the ray's head
+        double t2 = tm - th;
+        if (t2 > 0)
+            return hit.offer(t2, this);
+        double t1 = tm + th;
+        return t1 > 0 && hit.offer(t1, this);
+    }
+
     /**
      * Sets the bounding box for the sphere.
      * The bounding box is a box that contains the sphere.
@@ -5,6 +5,8 @@ import primitives.Ray;
 import primitives.Vector;
 import java.util.List;
 
+import static primitives.Util.alignZero;
+
 /**
  * Represents a triangle in three-dimensional space.
  * A triangle is a polygon with three edges and three vertices.
@@ -12,6 +14,33 @@ import java.util.List;
  */
 public class Triangle extends Polygon
 {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The first vertex of the triangle
+     */
+    private final double p0x, p0y, p0z;
+    /**
+     * The edge from the first vertex to the second one
+     */
+    private final double e1x, e1y, e1z;
+    /**
+     * The edge from the first vertex to the third one
+     */
+    private final double e2x, e2y, e2z;
+    /**
+     * The bound of the squared determinant under which a ray is parallel to the triangle
+     */
+    private final double parallel;
+
+    /**
+     * The square of the accuracy of {@link primitives.Util#isZero(double)} - a ray is parallel to a triangle
+     * if the determinant relative to the lengths of the edges is [almost] zero, so the test does not depend on the
+     * size of the triangle
+     */
+    static final double PARALLEL = 0x1.0p-80;
+
     /**
      * Constructs a triangle with the specified vertices.
      *
@@ -21,73 +50,76 @@ public class Triangle extends Polygon
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        p0x = p1.getX();
+        p0y = p1.getY();
+        p0z = p1.getZ();
+        e1x = p2.getX() - p0x;
+        e1y = p2.getY() - p0y;
+        e1z = p2.getZ() - p0z;
+        e2x = p3.getX() - p0x;
+        e2y = p3.getY() - p0y;
+        e2z = p3.getZ() - p0z;
+        parallel = PARALLEL * (e1x * e1x + e1y * e1y + e1z * e1z) * (e2x * e2x + e2y * e2y + e2z * e2z);
     }
 
     /**
      * Finds all intersection points between the given ray and this triangle.
-     * The method first checks if the ray intersects the plane of the triangle.
-     * If it does, it then checks if the intersection point lies within the triangle.
      *
      * @param ray the ray to intersect with the triangle
      * @return a list containing the intersection point if it lies within the triangle, or null if there are no intersections
      */
     @Override
     public List<Point> findIntersections(Ray ray) {
+        Hit hit = new Hit(Double.POSITIVE_INFINITY);
+        return intersectHelper(ray, hit, false) ? List.of(ray.GetPoint(hit.t)) : null;
+    }
 
-        try {
-            // Check if the ray intersects the plane of the triangle
-            List<Point> planeIntersections = plane.findIntersections(ray);
-            if (planeIntersections == null) {
-                return null;
-            }
-
-            // Retrieve the vertices of the triangle
-            Point p1 = vertices.get(0);
-            Point p2 = vertices.get(1);
-            Point p3 = vertices.get(2);
-
-            // Calculate vectors from the ray's head to the vertices of the triangle
-            Vector v1 = p1.subtract(ray.getHead());
-            Vector v2 = p2.subtract(ray.getHead());
-            Vector v3 = p3.subtract(ray.getHead());
-
-            // Calculate the normals of the planes formed by the ray and the edges of the triangle
-            Vector n1 = v1.crossProduct(v2).normalize();
-            Vector n2 = v2.crossProduct(v3).normalize();
-            Vector n3 = v3.crossProduct(v1).normalize();
-
-            // Check if the ray's direction is consistently on the same side of each plane
-            double d1 = ray.getDirection().dotProduct(n1);
-            double d2 = ray.getDirection().dotProduct(n2);
-            double d3 = ray.getDirection().dotProduct(n3);
-
-            if ((d1 > 0 && d2 > 0 && d3 > 0) || (d1 < 0 && d2 < 0 && d3 < 0)) {
-                // The ray intersects the plane within the triangle
-
-                Point intersectionPoint = planeIntersections.get(0);
-
-                // Further validate the intersection point by ensuring it's inside the triangle
-                Vector AP = intersectionPoint.subtract(p1);
-                Vector BP = intersectionPoint.subtract(p2);
-                Vector CP = intersectionPoint.subtract(p3);
-
-                Vector AB = p2.subtract(p1);
-                Vector BC = p3.subtract(p2);
-                Vector CA = p1.subtract(p3);
-
-                if (AP.crossProduct(AB).lengthSquared() == 0 || BP.crossProduct(BC).lengthSquared() == 0 || CP.crossProduct(CA).lengthSquared() == 0) {
-                    return null;
-                }
-
-                return planeIntersections;
-            }
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance, boolean bb) {
+        Hit hit = new Hit(maxDistance);
+        return intersectHelper(ray, hit, bb) ? List.of(new GeoPoint(this, ray.GetPoint(hit.t))) : null;
+    }
 
-            return null;
-        }
-        catch(IllegalArgumentException e)
-        {
-            return null;
-        }
+    /**
+     * Finds the intersection between the ray and the triangle by the Moller-Trumbore algorithm -
+     * the intersection is found by its barycentric coordinates, which are written into the hit record as well.
+     * The intersection must be strictly inside the triangle and strictly in front of the ray's head.
+     *
+     * @param ray the ray to intersect with the triangle
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+
+        // h = d x e2
+        double hx = dy * e2z - dz * e2y;
+        double hy = dz * e2x - dx * e2z;
+        double hz = dx * e2y - dy * e2x;
+        double det = e1x * hx + e1y * hy + e1z * hz;
+        if (det * det <= parallel) return false; // the ray is parallel to the triangle
+        double f = 1 / det;
+
+        // s = head - p0
+        double sx = head.getX() - p0x, sy = head.getY() - p0y, sz = head.getZ() - p0z;
+        double u = alignZero(f * (sx * hx + sy * hy + sz * hz));
+        if (u <= 0 || u >= 1) return false;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = alignZero(f * (dx * qx + dy * qy + dz * qz));
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return false;
+
+        double t = alignZero(f * (e2x * qx + e2y * qy + e2z * qz));
+        if (t <= 0 || !hit.offer(t, this)) return false;
+        hit.u = u;
+        hit.v = v;
+        return true;
     }
 }
-
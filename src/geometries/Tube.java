@@ -15,6 +15,9 @@ import static primitives.Util.isZero;
  * It is characterized by a radius and an axis represented by a ray.
  */
 public class Tube extends RadialGeometry {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The axis of the tube represented by a ray.
      */
@@ -173,6 +176,60 @@ public class Tube extends RadialGeometry {
     }
 
 
+    /**
+     * Finds the closest intersection between the ray and the tube without allocating anything.
+     * The degenerated cases of a ray which starts on the axis are left to the general calculation.
+     *
+     * @param ray the ray to intersect with the tube
+     * @param hit the hit record of the closest intersection found so far
+     * @param bb whether to use the bounding box optimization
+     * @return true if a closer intersection was found
+     */
+    @Override
+    protected boolean intersectHelper(Ray ray, Hit hit, boolean bb) {
+        Vector vAxis = axis.getDirection();
+        Vector v = ray.getDirection();
+        Point p0 = ray.getHead();
+        Point axisHead = axis.getHead();
+        double ax = vAxis.getX(), ay = vAxis.getY(), az = vAxis.getZ();
+
+        // w = v-(v*va)*va
+        double vVa = alignZero(v.getX() * ax + v.getY() * ay + v.getZ() * az);
+        double wx = v.getX() - vVa * ax, wy = v.getY() - vVa * ay, wz = v.getZ() - vVa * az;
+        if (isZero(wx) && isZero(wy) && isZero(wz)) // the ray is parallel to the axis
+            return false;
+
+        // dw = dp-(dp*va)*va
+        double dx = p0.getX() - axisHead.getX(), dy = p0.getY() - axisHead.getY(), dz = p0.getZ() - axisHead.getZ();
+        if (isZero(dx) && isZero(dy) && isZero(dz)) // the ray begins at axis P0
+            return super.intersectHelper(ray, hit, bb);
+        double dPVAxis = alignZero(dx * ax + dy * ay + dz * az);
+        double dwx = dx - dPVAxis * ax, dwy = dy - dPVAxis * ay, dwz = dz - dPVAxis * az;
+        if (isZero(dwx) && isZero(dwy) && isZero(dwz)) // the ray begins on the axis
+            return super.intersectHelper(ray, hit, bb);
+
+        // A*t^2 + B*t + C = 0
+        double a = wx * wx + wy * wy + wz * wz;
+        double b = 2 * alignZero(wx * dwx + wy * dwy + wz * dwz);
+        double c = dwx * dwx + dwy * dwy + dwz * dwz - radius * radius;
+
+        double discr = alignZero(b * b - 4 * a * c);
+        if (discr <= 0) return false; // the ray is outside or tangent to the tube
+
+        double doubleA = 2 * a;
+        double tm = alignZero(-b / doubleA);
+        double th = Math.sqrt(discr) / doubleA;
+        if (isZero(th)) return false; // the ray is tangent to the tube
+
+        double t1 = alignZero(tm + th);
+        if (t1 <= 0) return false; // both intersections are behind the head
+
+        double t2 = alignZero(tm - th);
+        if (t2 > 0)
+            return hit.offer(t2, this);
+        return hit.offer(t1, this);
+    }
+
     @Override
     public void setBoundingBox()
     {
@@ -8,6 +8,9 @@ import primitives.Double3;
  * It extends the {@code Light} class and provides a constant ambient light.
  */
 public class AmbientLight extends Light {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * A constant representing no ambient light.
      */
@@ -8,6 +8,9 @@ import primitives.Vector;
  * It extends the {@code Light} class and implements the {@code LightSource} interface.
  */
 public class DirectionalLight extends Light implements LightSource {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     private Vector direction;
 
     /**
@@ -45,6 +48,15 @@ public class DirectionalLight extends Light implements LightSource {
         return direction.normalize();
     }
 
+    /**
+     * Gets the direction of the light, as it was given.
+     *
+     * @return The direction of the light.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     /**
      * Gets the distance between the light source and the specified point.
      * Since this is a directional light, the distance is infinite.
@@ -4,11 +4,16 @@ package lighting;
 import primitives.Color;
 import primitives.Vector;
 
+import java.io.Serializable;
+
 /**
  * The {@code Light} class represents a light source with a specified intensity.
  * This is an abstract class that serves as a base for specific types of light sources.
  */
-abstract class Light {
+abstract class Light implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The intensity of the light.
      */
@@ -33,5 +33,16 @@ public interface LightSource {
      * @return
      */
     public double getDistance(Point point);
+
+    /**
+     * Checks cheaply whether the light may reach the specified point at all - whether the point is in its
+     * cone and in its range. A point which is not illuminated gets no light, so no shadow ray is needed for it.
+     *
+     * @param point the point to check.
+     * @return false if the light does not reach the point, true if it may reach it.
+     */
+    default boolean illuminates(Point point) {
+        return true;
+    }
 }
 
@@ -0,0 +1,252 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Hierarchy of the light sources of a scene, for scenes with many lights.<br/>
+ * The lights which have a position (point lights and spot lights) are kept in a binary tree of boxes,
+ * and every node knows the total power of its lights and their weakest attenuation - so a whole subtree
+ * whose lights cannot reach a point with a noticeable intensity is skipped at once, and a light can be
+ * chosen at random by its importance in logarithmic time. The other lights (directional lights) reach
+ * every point and are never skipped.<br/>
+ * The nodes are kept in depth-first order in primitive arrays - the first child of an inner node is
+ * the node right after it.
+ */
+public final class LightTree {
+    /** The light sources in the order of the scene */
+    private final LightSource[] lights;
+    /** Indices of the light sources without a position */
+    private final int[] global;
+    /** Node bounds, 6 values per node - minX, minY, minZ, maxX, maxY, maxZ */
+    private final double[] bounds;
+    /** Node power - the largest color component of the total intensity of the lights of the node */
+    private final double[] power;
+    /** Node attenuation, 3 values per node - the smallest kC, kL and kQ of the lights of the node */
+    private final double[] attenuation;
+    /** Node links - for an inner node the index of its second child, for a leaf -1 - the index of its light */
+    private final int[] links;
+    /** Amount of the nodes built so far */
+    private int nodes = 0;
+
+    /**
+     * Builds the hierarchy of the light sources
+     *
+     * @param lightSources the light sources of the scene
+     */
+    public LightTree(List<LightSource> lightSources) {
+        lights = lightSources.toArray(new LightSource[0]);
+        int[] positioned = new int[lights.length];
+        int[] others = new int[lights.length];
+        int count = 0, otherCount = 0;
+        for (int i = 0; i < lights.length; ++i)
+            if (lights[i] instanceof PointLight) positioned[count++] = i;
+            else others[otherCount++] = i;
+        global = Arrays.copyOf(others, otherCount);
+
+        int size = count == 0 ? 0 : 2 * count - 1;
+        bounds = new double[size * 6];
+        power = new double[size];
+        attenuation = new double[size * 3];
+        links = new int[size];
+        if (count > 0) build(Arrays.copyOf(positioned, count), 0, count);
+    }
+
+    /**
+     * Builds the subtree of a range of lights - the range is split at the median of the longest axis of their
+     * positions
+     *
+     * @param indices the indices of the positioned lights
+     * @param from    the first light of the range
+     * @param to      the end of the range
+     * @return the index of the root node of the subtree
+     */
+    private int build(int[] indices, int from, int to) {
+        int node = nodes++;
+        double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int i = from; i < to; ++i) {
+            Point position = ((PointLight) lights[indices[i]]).getPosition();
+            double[] xyz = { position.getX(), position.getY(), position.getZ() };
+            for (int axis = 0; axis < 3; ++axis) {
+                box[axis] = Math.min(box[axis], xyz[axis]);
+                box[axis + 3] = Math.max(box[axis + 3], xyz[axis]);
+            }
+        }
+        System.arraycopy(box, 0, bounds, node * 6, 6);
+
+        if (to - from == 1) {
+            PointLight light = (PointLight) lights[indices[from]];
+            Color intensity = light.getIntensity();
+            power[node] = Math.max(intensity.getRed(), Math.max(intensity.getGreen(), intensity.getBlue()));
+            attenuation[node * 3] = light.getkC();
+            attenuation[node * 3 + 1] = light.getkL();
+            attenuation[node * 3 + 2] = light.getkQ();
+            links[node] = -1 - indices[from];
+            return node;
+        }
+
+        int axis = 0;
+        for (int a = 1; a < 3; ++a)
+            if (box[a + 3] - box[a] > box[axis + 3] - box[axis]) axis = a;
+        sortByAxis(indices, from, to, axis);
+        int middle = (from + to) >>> 1;
+        int first = build(indices, from, middle);
+        int second = build(indices, middle, to);
+        links[node] = second;
+        power[node] = power[first] + power[second];
+        for (int i = 0; i < 3; ++i)
+            attenuation[node * 3 + i] = Math.min(attenuation[first * 3 + i], attenuation[second * 3 + i]);
+        return node;
+    }
+
+    /**
+     * Sorts a range of lights by a coordinate of their positions
+     *
+     * @param indices the indices of the positioned lights
+     * @param from    the first light of the range
+     * @param to      the end of the range
+     * @param axis    the coordinate - 0 for x, 1 for y, 2 for z
+     */
+    private void sortByAxis(int[] indices, int from, int to, int axis) {
+        Integer[] range = new Integer[to - from];
+        for (int i = from; i < to; ++i) range[i - from] = indices[i];
+        Arrays.sort(range, (a, b) -> Double.compare(coordinate(a, axis), coordinate(b, axis)));
+        for (int i = from; i < to; ++i) indices[i] = range[i - from];
+    }
+
+    /**
+     * A coordinate of the position of a light
+     *
+     * @param index the index of the light
+     * @param axis  the coordinate - 0 for x, 1 for y, 2 for z
+     * @return the coordinate
+     */
+    private double coordinate(int index, int axis) {
+        Point position = ((PointLight) lights[index]).getPosition();
+        return axis == 0 ? position.getX() : axis == 1 ? position.getY() : position.getZ();
+    }
+
+    /**
+     * Amount of the light sources
+     *
+     * @return amount of the light sources
+     */
+    public int size() {
+        return lights.length;
+    }
+
+    /**
+     * Gets a light source by its index in the scene
+     *
+     * @param index the index of the light source
+     * @return the light source
+     */
+    public LightSource get(int index) {
+        return lights[index];
+    }
+
+    /**
+     * Upper bound of the intensity which the lights of a node give to a point - the total power of the lights,
+     * attenuated by the weakest attenuation over the distance of the point from the box of the node
+     *
+     * @param node the node
+     * @param x    x of the point
+     * @param y    y of the point
+     * @param z    z of the point
+     * @return the upper bound of the intensity (of a color component)
+     */
+    private double bound(int node, double x, double y, double z) {
+        int b = node * 6;
+        double dx = Math.max(0, Math.max(bounds[b] - x, x - bounds[b + 3]));
+        double dy = Math.max(0, Math.max(bounds[b + 1] - y, y - bounds[b + 4]));
+        double dz = Math.max(0, Math.max(bounds[b + 2] - z, z - bounds[b + 5]));
+        double d2 = dx * dx + dy * dy + dz * dz;
+        int a = node * 3;
+        double denominator = attenuation[a] + attenuation[a + 1] * Math.sqrt(d2) + attenuation[a + 2] * d2;
+        return denominator <= 0 ? Double.POSITIVE_INFINITY : power[node] / denominator;
+    }
+
+    /**
+     * Finds the lights which may give a point an intensity of at least the threshold (of some color component).
+     * The lights without a position are always found.
+     *
+     * @param point     the point
+     * @param threshold the smallest intensity which is not negligible
+     * @param result    array of at least {@link #size()} elements for the indices of the found lights
+     * @return the amount of the found lights
+     */
+    public int cull(Point point, double threshold, int[] result) {
+        int count = global.length;
+        System.arraycopy(global, 0, result, 0, count);
+        if (links.length == 0) return count;
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (bound(node, x, y, z) < threshold) continue;
+            if (links[node] < 0) result[count++] = -1 - links[node];
+            else {
+                stack[top++] = links[node];
+                stack[top++] = node + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Chooses lights for a point at random by their importance - the upper bound of their intensity at the point.
+     * Every sample walks down the tree, choosing a child by its share of the importance of the node, and is
+     * weighted by the inverse of its probability, so the weighted sum of the samples estimates the sum of all
+     * the lights. The lights without a position are always chosen, with weight 1.
+     *
+     * @param point     the point
+     * @param threshold the smallest intensity which is not negligible - weaker subtrees are never chosen
+     * @param samples   amount of the samples of the positioned lights
+     * @param random    the random generator - a seeded generator chooses the same lights for the same point
+     * @param result    array of at least {@link #size()} + samples elements for the indices of the chosen lights
+     * @param weights   array of the same size for the weights of the chosen lights
+     * @return the amount of the chosen lights
+     */
+    public int sample(Point point, double threshold, int samples, RandomGenerator random, int[] result, double[] weights) {
+        int count = global.length;
+        System.arraycopy(global, 0, result, 0, count);
+        Arrays.fill(weights, 0, count, 1);
+        if (links.length == 0) return count;
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        if (bound(0, x, y, z) < threshold) return count;
+        for (int s = 0; s < samples; ++s) {
+            int node = 0;
+            double probability = 1;
+            while (node >= 0 && links[node] >= 0) {
+                int first = node + 1, second = links[node];
+                double b1 = bound(first, x, y, z), b2 = bound(second, x, y, z);
+                if (b1 < threshold) b1 = 0;
+                if (b2 < threshold) b2 = 0;
+                double p1;
+                if (b1 == Double.POSITIVE_INFINITY || b2 == Double.POSITIVE_INFINITY)
+                    p1 = b1 == b2 ? 0.5 : b1 == Double.POSITIVE_INFINITY ? 1 : 0;
+                else if (b1 + b2 == 0) p1 = -1; // nothing under this node is worth a ray
+                else p1 = b1 / (b1 + b2);
+                if (p1 < 0) node = -1;
+                else if (random.nextDouble() < p1) {
+                    node = first;
+                    probability *= p1;
+                } else {
+                    node = second;
+                    probability *= 1 - p1;
+                }
+            }
+            if (node < 0) continue;
+            result[count] = -1 - links[node];
+            weights[count++] = 1 / (samples * probability);
+        }
+        return count;
+    }
+}
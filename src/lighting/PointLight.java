@@ -8,10 +8,20 @@ import primitives.Vector;
  * It extends the {@code Light} class and implements the {@code LightSource} interface.
  */
 public class PointLight extends Light implements LightSource {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     protected Point position;
     private double kC = 1;
     private double kL = 0;
     private double kQ = 0;
+    /**
+     * The smallest intensity (of a color component) which is not negligible - the range of the light
+     * is the distance where its intensity falls below it
+     */
+    public static final double MIN_INTENSITY = 0.001;
+    /** The squared range of the light, infinite if its intensity never falls below {@link #MIN_INTENSITY} */
+    private double rangeSquared = Double.POSITIVE_INFINITY;
 
     public double getkC() {
         return kC;
@@ -38,6 +48,40 @@ public class PointLight extends Light implements LightSource {
     public PointLight(Color color, Point position) {
         super(color);
         this.position = position;
+        updateRange();
+    }
+
+    /**
+     * Calculates the range of the light by its attenuation factors - the distance d where
+     * I0 / (kC + kL * d + kQ * d^2) falls below {@link #MIN_INTENSITY}
+     */
+    private void updateRange() {
+        Color i0 = getIntensity();
+        double denominator = Math.max(i0.getRed(), Math.max(i0.getGreen(), i0.getBlue())) / MIN_INTENSITY;
+        double range;
+        if (kQ > 0)
+            range = (-kL + Math.sqrt(kL * kL + 4 * kQ * (denominator - kC))) / (2 * kQ);
+        else if (kL > 0)
+            range = (denominator - kC) / kL;
+        else
+            range = kC >= denominator ? 0 : Double.POSITIVE_INFINITY;
+        // a light which is negligible everywhere reaches no point
+        if (Double.isNaN(range) || range < 0) range = 0;
+        rangeSquared = range * range;
+    }
+
+    /**
+     * Gets the range of the light - the distance where its intensity falls below {@link #MIN_INTENSITY}.
+     *
+     * @return the range of the light, infinite if there is no attenuation.
+     */
+    public double getRange() {
+        return Math.sqrt(rangeSquared);
+    }
+
+    @Override
+    public boolean illuminates(Point point) {
+        return position.distanceSquared(point) <= rangeSquared;
     }
 
     /**
@@ -63,6 +107,7 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKc(double Kc) {
         this.kC =Kc;
+        updateRange();
         return this;
     }
 
@@ -74,6 +119,7 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKl(double Kl) {
         this.kL =Kl;
+        updateRange();
         return this;
     }
 
@@ -85,6 +131,7 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKq(double Kq) {
         this.kQ = Kq;
+        updateRange();
         return this;
     }
 
@@ -10,6 +10,9 @@ import primitives.Vector;
  * It extends the {@code PointLight} class and adds a direction to the light.
  */
 public class SpotLight extends PointLight{
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     private Vector direction;
 
     /**
@@ -40,6 +43,29 @@ public class SpotLight extends PointLight{
     }
 
 
+    /**
+     * Gets the normalized direction of the light.
+     *
+     * @return The direction of the light.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * Checks whether the point is in the range of the light and in front of it - the intensity of a spot light
+     * vanishes behind the plane of its direction.
+     *
+     * @param p The point to check.
+     * @return false if the light does not reach the point.
+     */
+    @Override
+    public boolean illuminates(Point p) {
+        return super.illuminates(p)
+                && direction.getX() * (p.getX() - position.getX()) + direction.getY() * (p.getY() - position.getY())
+                + direction.getZ() * (p.getZ() - position.getZ()) > 0;
+    }
+
     /**
      * Sets the constant attenuation factor.
      *
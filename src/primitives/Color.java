@@ -2,6 +2,8 @@ package primitives;
 
 import geometries.Intersectable;
 
+import java.io.Serializable;
+
 
 import static primitives.Util.alignZero;
 
@@ -13,7 +15,10 @@ import static primitives.Util.alignZero;
  *
  * @author Dan Zilberstein
  */
-public class Color {
+public class Color implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The internal fields maintain RGB components as double numbers from 0 to
      * whatever...
@@ -81,6 +86,33 @@ public class Color {
         return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
     }
 
+    /**
+     * Red component getter
+     *
+     * @return the red component
+     */
+    public double getRed() {
+        return rgb.d1;
+    }
+
+    /**
+     * Green component getter
+     *
+     * @return the green component
+     */
+    public double getGreen() {
+        return rgb.d2;
+    }
+
+    /**
+     * Blue component getter
+     *
+     * @return the blue component
+     */
+    public double getBlue() {
+        return rgb.d3;
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      *
@@ -3,13 +3,18 @@
  */
 package primitives;
 
+import java.io.Serializable;
+
 import static primitives.Util.isZero;
 
 /**
  * This class will serve all primitive classes based on three numbers
  * @author Dan Zilberstein
  */
-public class Double3 {
+public class Double3 implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
    /** First number */
    final double                d1;
    /** Second number */
@@ -109,6 +114,30 @@ public class Double3 {
 
    public boolean lowerThan(double k) { return d1 < k && d2 < k && d3 < k; }
 
+   /**
+    * The largest of the three numbers
+    * @return the largest number
+    */
+   public double max() { return Math.max(d1, Math.max(d2, d3)); }
+
+   /**
+    * The first number
+    * @return the first number
+    */
+   public double getD1() { return d1; }
+
+   /**
+    * The second number
+    * @return the second number
+    */
+   public double getD2() { return d2; }
+
+   /**
+    * The third number
+    * @return the third number
+    */
+   public double getD3() { return d3; }
+
    /**
     * Checks whether all the numbers are lower than three numbers in another triad
     * @param  other other triad
@@ -1,9 +1,15 @@
 package primitives;
+
+import java.io.Serializable;
+
 /**
  * The {@code Material} class represents the material properties of a geometry in a 3D scene.
  * It defines how the surface interacts with light, including diffuse and specular reflection and shininess.
  */
-public class Material {
+public class Material implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The diffuse reflection coefficient. It determines how much light is scattered
      * diffusely by the surface. A higher value means the surface is more matte.
@@ -1,9 +1,14 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * Represents a point in three-dimensional space.
  */
-public class Point {
+public class Point implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Represents the origin point (0, 0, 0).
      */
@@ -4,6 +4,7 @@ import geometries.Intersectable;
 import geometries.Intersectable.GeoPoint;
 import primitives.Util;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
 
@@ -14,7 +15,10 @@ import static primitives.Util.isZero;
 /**
  * Represents a ray in three-dimensional space.
  */
-public class Ray {
+public class Ray implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     private static final double DELTA = 0.1;
     /**
      * The starting point of the ray.
@@ -6,6 +6,9 @@ import static primitives.Util.isZero;
  * Represents a vector in three-dimensional space.
  */
 public class Vector extends Point {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs a new Vector with the specified coordinates.
      *
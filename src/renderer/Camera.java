@@ -5,10 +5,18 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.LinkedList;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.MissingResourceException;
-import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -16,9 +24,13 @@ import static primitives.Util.isZero;
 
 /**
  * The {@code Camera} class represents a camera in a 3D space with the ability to
- * generate rays through pixels for rendering.
+ * generate rays through pixels for rendering.<br/>
+ * A camera is serialized with its ray tracer and scene, for rendering on other processes
+ * ({@link RenderCoordinator}) - the image writer and the state of a rendering are not serialized.
  */
-public class Camera implements Cloneable {
+public class Camera implements Cloneable, Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
 
     private Vector vTo;
     private Vector vUp;
@@ -26,7 +38,7 @@ public class Camera implements Cloneable {
     private double distance = 0;
     private int width = 0;
     private int height = 0;
-    private ImageWriter imageWriter;
+    private transient ImageWriter imageWriter;
     private RayTracerBase rayTracer;
     private Point location;
     //aperture properties
@@ -34,19 +46,59 @@ public class Camera implements Cloneable {
     private double depthOfField;
     private double aperture;
     private boolean DofON=false;
+    private double dofThreshold = 0;
+    //depth of field sampling statistics of the last rendering
+    private final LongAdder dofPixels = new LongAdder();
+    private final LongAdder dofSamples = new LongAdder();
+    private final LongAdder dofConvergedPixels = new LongAdder();
     //anti-aliasing properties
     private int ANTI_ALIASING_NUMBER_OF_RAYS = 1;
     private boolean antiAliasing = false;
+    //the sample points of the anti-aliasing and the aperture rays
+    private Sampler sampler = new StratifiedSampler();
+    //adaptive super-sampling properties
+    private int adaptiveDepth = 0;
+    private double adaptiveThreshold = 8;
+    //progressive rendering properties
+    private int progressivePasses = 0;
+    private double timeBudget = 0;
+    private double noiseTarget = 0;
+    private int snapshotPasses = 0;
+    private double snapshotSeconds = 0;
+    //the sums of the squared sample colors of the pixels in the progressive rendering, 3 per pixel
+    private transient double[] squares;
+    private volatile int passesDone = 0;
+    //checkpoint properties
+    private transient Path checkpointFile = null;
+    private double checkpointInterval = 0;
+    private boolean resume = false;
+    private transient Checkpoint checkpoint = null;
 
     //Multi-threading properties
-    /** Pixel manager for supporting:
+    /** Tile manager for supporting:
      * <ul>
      * <li>multi-threading</li>
      * <li>debug print of progress percentage in Console window/tab</li>
      * <ul>
      */
-    private PixelManager pixelManager;
+    private transient volatile TileManager tileManager;
     private int threadsCount;
+    private int tileSize = TileManager.DEFAULT_TILE_SIZE;
+
+    /** The ways of running the rendering threads */
+    private enum Execution {
+        /** platform threads created for every rendering */
+        THREADS,
+        /** the common fork-join pool */
+        FORK_JOIN,
+        /** a virtual thread for every rendering task */
+        VIRTUAL_THREADS,
+        /** an executor of the caller */
+        EXECUTOR
+    }
+
+    private Execution execution = Execution.THREADS;
+    private transient ExecutorService executor = null;
     private double printInterval;
 
     /**
@@ -99,6 +151,51 @@ public class Camera implements Cloneable {
         return APERTURE_NUMBER_OF_POINTS;
     }
 
+    /**
+     * Depth of field sampling statistics of a rendering
+     *
+     * @param pixels          the amount of the pixels sampled through the aperture
+     * @param samples         the amount of the aperture rays
+     * @param convergedPixels the amount of the pixels whose sampling stopped early
+     */
+    public record DofStatistics(long pixels, long samples, long convergedPixels) {
+        /**
+         * Average amount of the aperture rays per pixel
+         *
+         * @return the average amount of rays, 0 if no pixel was sampled
+         */
+        public double averageSamples() {
+            return pixels == 0 ? 0 : samples / (double) pixels;
+        }
+    }
+
+    /**
+     * Returns the depth of field sampling statistics of the last rendering.
+     *
+     * @return the statistics.
+     */
+    public DofStatistics getDofStatistics() {
+        return new DofStatistics(dofPixels.sum(), dofSamples.sum(), dofConvergedPixels.sum());
+    }
+
+    /**
+     * Returns the size of the square tiles of the rendering.
+     *
+     * @return the tile size in pixels.
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Returns the amount of the passes of the last progressive rendering.
+     *
+     * @return the amount of the passes, 0 if the last rendering was not progressive.
+     */
+    public int getPassesDone() {
+        return passesDone;
+    }
+
     /**
      * Returns the {@link RayTracerBase} associated with the camera.
      *
@@ -264,6 +361,24 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the convergence threshold of the depth of field sampling. The aperture rays of a pixel are traced
+         * in the order of the sampler, and the sampling stops when the standard error of the mean color is not
+         * above the threshold - pixels in focus or of a uniform color need a few rays only. The first row's worth of rays
+         * (the number of points in the aperture) is always traced.
+         *
+         * @param threshold the largest standard error of the pixel color (of the 0..255 scale),
+         *                  0 for tracing all the aperture rays.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the threshold is negative.
+         */
+        public Builder setDofThreshold(double threshold) {
+            if (threshold < 0)
+                throw new IllegalArgumentException("ERROR: depth of field threshold can not be negative");
+            camera.dofThreshold = threshold;
+            return this;
+        }
+
         /**
          * Sets the number of points in the aperture of the camera.
          *
@@ -300,18 +415,218 @@ public class Camera implements Cloneable {
         }
 
 
+        /**
+         * Sets the generator of the sample points of the anti-aliasing rays and the aperture rays
+         * (jittered stratified sampling by default).
+         *
+         * @param sampler the sampler.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the sampler is null.
+         */
+        public Builder setSampler(Sampler sampler) {
+            if (sampler == null)
+                throw new IllegalArgumentException("ERROR: sampler can not be null");
+            camera.sampler = sampler;
+            return this;
+        }
+
+        /**
+         * Turns the anti-aliasing into adaptive super-sampling: the corners and the center of a pixel are traced
+         * first, and only the parts of the pixel whose samples differ are subdivided into quarters, up to
+         * the given depth. The anti-aliasing must be turned on by {@link #setAntiAliasing(boolean)}.
+         *
+         * @param maxDepth the maximal depth of the sampling - 1 for the corners and the center only,
+         *                 0 for the regular grid of rays.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the depth is negative.
+         */
+        public Builder setAdaptiveSuperSampling(int maxDepth) {
+            if (maxDepth < 0)
+                throw new IllegalArgumentException("ERROR: adaptive super-sampling depth can not be negative");
+            camera.adaptiveDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * Sets the largest difference of a color component between the samples of an area
+         * which the adaptive super-sampling does not subdivide.
+         *
+         * @param threshold the color difference threshold (of the 0..255 scale).
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the threshold is negative.
+         */
+        public Builder setAdaptiveThreshold(double threshold) {
+            if (threshold < 0)
+                throw new IllegalArgumentException("ERROR: adaptive super-sampling threshold can not be negative");
+            camera.adaptiveThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Turns on the progressive rendering: the image is rendered in passes of one sample per pixel, and the
+         * samples of every pass are accumulated into the image, so the image is refined from a noisy preview to
+         * the final anti-aliased image. Every sample is at a point of the pixel chosen by the sampler (and at
+         * a point of the aperture if the depth of field is on), the anti-aliasing grid and the adaptive options
+         * are not used.
+         *
+         * @param maxPasses the largest amount of the passes (the samples per pixel), 0 for the regular rendering.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the amount of the passes is negative.
+         */
+        public Builder setProgressive(int maxPasses) {
+            if (maxPasses < 0)
+                throw new IllegalArgumentException("ERROR: amount of passes can not be negative");
+            camera.progressivePasses = maxPasses;
+            return this;
+        }
+
+        /**
+         * Sets the time budget of the progressive rendering - no pass is started after the budget is spent.
+         *
+         * @param seconds the time budget in seconds, 0 for no budget.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the time budget is negative.
+         */
+        public Builder setTimeBudget(double seconds) {
+            if (seconds < 0)
+                throw new IllegalArgumentException("ERROR: time budget can not be negative");
+            camera.timeBudget = seconds;
+            return this;
+        }
+
+        /**
+         * Sets the noise target of the progressive rendering - the rendering stops when the standard error of
+         * the color of every pixel is not above the target.
+         *
+         * @param target the largest standard error of the pixel color (of the 0..255 scale), 0 for no target.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the target is negative.
+         */
+        public Builder setNoiseTarget(double target) {
+            if (target < 0)
+                throw new IllegalArgumentException("ERROR: noise target can not be negative");
+            camera.noiseTarget = target;
+            return this;
+        }
+
+        /**
+         * Sets how often the progressive rendering writes the image so far to its file - after the given amount
+         * of passes, or when the given time passed since the last snapshot, whichever comes first.
+         *
+         * @param passes  the amount of the passes between the snapshots, 0 for none.
+         * @param seconds the time between the snapshots in seconds, 0 for none.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if an interval is negative.
+         */
+        public Builder setSnapshotInterval(int passes, double seconds) {
+            if (passes < 0 || seconds < 0)
+                throw new IllegalArgumentException("ERROR: snapshot interval can not be negative");
+            camera.snapshotPasses = passes;
+            camera.snapshotSeconds = seconds;
+            return this;
+        }
+
+        /**
+         * Turns on the checkpoints of the rendering: the finished tiles and the accumulated pixels (the finished
+         * passes of a progressive rendering) are written periodically to a binary file, and the file is deleted
+         * when the image is complete. A regular rendering which is cancelled writes a last checkpoint.
+         *
+         * @param file     the checkpoint file.
+         * @param interval the interval between the checkpoints in seconds.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the file is null or the interval is negative.
+         */
+        public Builder setCheckpoint(Path file, double interval) {
+            if (file == null)
+                throw new IllegalArgumentException("ERROR: checkpoint file can not be null");
+            if (interval < 0)
+                throw new IllegalArgumentException("ERROR: checkpoint interval can not be negative");
+            camera.checkpointFile = file;
+            camera.checkpointInterval = interval;
+            return this;
+        }
+
+        /**
+         * Sets whether the rendering resumes from the checkpoint file (if it exists) - the finished tiles or
+         * passes are not rendered again. The camera, the scene and the image must be those of the stopped
+         * rendering.
+         *
+         * @param resume true for resuming from the checkpoint.
+         * @return the builder instance.
+         */
+        public Builder setResume(boolean resume) {
+            camera.resume = resume;
+            return this;
+        }
+
         /**
          * Sets the number of threads for multi-threading.
          *
          * @param n the number of threads to set.
          * @return the builder instance.
-         * @throws IllegalArgumentException if the number of threads is negative or zero.
+         * @throws IllegalArgumentException if the number of threads is negative.
          */
         public Builder setMultiThreading(int n) {
+            if (n < 0)
+                throw new IllegalArgumentException("ERROR: number of threads can not be negative");
             camera.threadsCount = n;
             return this;
         }
 
+        /**
+         * Renders on the common fork-join pool, with as many rendering tasks as the pool parallelism -
+         * several cameras may render at the same time without oversubscribing the cores.
+         *
+         * @return the builder instance.
+         */
+        public Builder setForkJoinPool() {
+            camera.execution = Execution.FORK_JOIN;
+            camera.executor = null;
+            return this;
+        }
+
+        /**
+         * Renders on virtual threads - a virtual thread for every rendering task (the amount of the tasks is
+         * set by {@link #setMultiThreading(int)}). Before Java 21 the common fork-join pool is used instead.
+         *
+         * @return the builder instance.
+         */
+        public Builder setVirtualThreads() {
+            camera.execution = Execution.VIRTUAL_THREADS;
+            camera.executor = null;
+            return this;
+        }
+
+        /**
+         * Renders on an executor of the caller (the amount of the rendering tasks is set by
+         * {@link #setMultiThreading(int)}). The executor is not shut down by the camera.
+         *
+         * @param executor the executor.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the executor is null.
+         */
+        public Builder setExecutor(ExecutorService executor) {
+            if (executor == null)
+                throw new IllegalArgumentException("ERROR: executor can not be null");
+            camera.execution = Execution.EXECUTOR;
+            camera.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the size of the square tiles which the threads render at a time.
+         *
+         * @param tileSize the tile size in pixels.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the tile size is negative or zero.
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize <= 0)
+                throw new IllegalArgumentException("ERROR: tile size can not be negative or 0");
+            camera.tileSize = tileSize;
+            return this;
+        }
+
         /**
          * Sets the print interval for multi-threading.
          *
@@ -448,78 +763,301 @@ public class Camera implements Cloneable {
         if(rayTracer==null)
             throw new MissingResourceException("Missing rendering data","Camera","rayTracer");
 
+        // the scene may have been edited since the last rendering
+        if (rayTracer.scene != null) rayTracer.scene.changed();
         final int nX = imageWriter.getNx();
         final int nY = imageWriter.getNy();
-        pixelManager = new PixelManager(nY, nX, printInterval);
-        // Loop through all the pixels in the view plane
-        if(threadsCount==0)
-        {
-            for (int i = 0; i < nY; i++)
-            {
-                for (int j = 0; j < nX; j++)
-                {
-                    // Cast a ray through the pixel
-                    castRay(nX, nY, j, i);
-                }
+        tileManager = new TileManager(nY, nX, tileSize, printInterval);
+        dofPixels.reset();
+        dofSamples.reset();
+        dofConvergedPixels.reset();
+        passesDone = 0;
+        checkpoint = checkpointFile == null ? null : new Checkpoint(checkpointFile, checkpointInterval);
+        if (progressivePasses > 0) {
+            renderProgressive(nX, nY);
+            return;
+        }
+        if (checkpoint != null && resume) checkpoint.restore(imageWriter, tileManager, null);
+        try {
+            renderPass(nX, nY, -1);
+        } catch (CancellationException e) {
+            if (checkpoint != null) checkpoint.save(imageWriter, tileManager, 0, null);
+            throw e;
+        }
+        if (tileManager.isCancelled()) {
+            // keep the finished tiles for resuming
+            if (checkpoint != null) checkpoint.save(imageWriter, tileManager, 0, null);
+            throw new CancellationException("The rendering was cancelled");
+        }
+
+        // Write the image to a file
+        imageWriter.writeToImage();
+        if (checkpoint != null) checkpoint.delete();
+    }
+
+    /**
+     * Renders the image in passes of one sample per pixel until the amount of the passes, the time budget or
+     * the noise target is reached, and writes snapshots of the image on the way.
+     *
+     * @param nX the number of pixels in the X direction.
+     * @param nY the number of pixels in the Y direction.
+     */
+    private void renderProgressive(int nX, int nY) {
+        squares = noiseTarget > 0 ? new double[nX * nY * 3] : null;
+        int first = checkpoint != null && resume ? Math.max(checkpoint.restore(imageWriter, null, squares), 0) : 0;
+        passesDone = first;
+        long start = System.nanoTime();
+        long lastSnapshot = start;
+        for (int pass = first; pass < progressivePasses; ++pass) {
+            if (pass > first) {
+                TileManager previous = tileManager;
+                tileManager = new TileManager(nY, nX, tileSize, 0);
+                // a cancellation may reach the previous manager until the new one replaces it
+                if (previous.isCancelled()) tileManager.cancel();
+            }
+            renderPass(nX, nY, pass);
+            if (tileManager.isCancelled())
+                throw new CancellationException("The rendering was cancelled");
+            passesDone = pass + 1;
+            // a checkpoint is written only between the passes, when every pixel has the same samples
+            if (checkpoint != null && checkpoint.claim()) checkpoint.save(imageWriter, null, passesDone, squares);
+
+            long now = System.nanoTime();
+            if (timeBudget > 0 && (now - start) / 1e9 >= timeBudget) break;
+            if (noiseTarget > 0 && pass > 0 && noiseConverged(nX, nY, pass + 1)) break;
+            if (passesDone == progressivePasses) break;
+            if (snapshotPasses > 0 && passesDone % snapshotPasses == 0
+                    || snapshotSeconds > 0 && (now - lastSnapshot) / 1e9 >= snapshotSeconds) {
+                imageWriter.writeToImage();
+                lastSnapshot = now;
             }
         }
+        squares = null;
+
+        // Write the image to a file
+        imageWriter.writeToImage();
+        if (checkpoint != null) checkpoint.delete();
+    }
+
+    /**
+     * Checks whether the color of every pixel of the progressive rendering has converged to the noise target
+     *
+     * @param nX      the number of pixels in the X direction.
+     * @param nY      the number of pixels in the Y direction.
+     * @param samples the amount of the samples of every pixel.
+     * @return true if the standard error of no color component of a pixel is above the noise target.
+     */
+    private boolean noiseConverged(int nX, int nY, int samples) {
+        double limit = noiseTarget * noiseTarget * samples * (samples - 1);
+        for (int i = 0; i < nY; ++i)
+            for (int j = 0; j < nX; ++j) {
+                Color mean = imageWriter.getPixel(j, i);
+                int p = (i * nX + j) * 3;
+                // the sum of the squared differences from the mean of every component, by the sums of the squares
+                if (squares[p] - samples * mean.getRed() * mean.getRed() > limit
+                        || squares[p + 1] - samples * mean.getGreen() * mean.getGreen() > limit
+                        || squares[p + 2] - samples * mean.getBlue() * mean.getBlue() > limit)
+                    return false;
+            }
+        return true;
+    }
+
+    /**
+     * Renders all the pixels once - serially or by several rendering tasks
+     *
+     * @param nX   the number of pixels in the X direction.
+     * @param nY   the number of pixels in the Y direction.
+     * @param pass the pass of the progressive rendering, -1 for the regular rendering.
+     */
+    private void renderPass(int nX, int nY, int pass) {
+        if(execution == Execution.THREADS && threadsCount==0)
+            renderTiles(nX, nY, pass);
         else
-        {
-            var threads = new LinkedList<Thread>(); // list of threads
-            while (threadsCount-- > 0) // add appropriate number of threads
-                threads.add(new Thread(() -> { // add a thread with its code
-                    PixelManager.Pixel pixel; // current pixel(row,col)
-                    // allocate pixel(row,col) in loop until there are no more pixels
-                    while ((pixel = pixelManager.nextPixel()) != null){
-
-                        // Cast a ray through the pixel
-                        castRay(nX, nY, pixel.col(), pixel.row());
-                        // System.out.println(pixel.col());
+            renderOnWorkers(nX, nY, pass);
+    }
+
+
+    /**
+     * Cancels the rendering in progress - the threads stop after their current tiles,
+     * and {@link #renderImage()} throws {@link CancellationException}.
+     */
+    public void cancel() {
+        TileManager manager = tileManager;
+        if (manager != null) manager.cancel();
+    }
+
+    /**
+     * Renders the tiles by several rendering tasks on the executor of the camera. If a task fails, the other
+     * tasks are stopped and the failure is thrown by the calling thread. If the calling thread is interrupted,
+     * the rendering is cancelled, the tasks are waited for, and {@link CancellationException} is thrown with the
+     * interrupt status of the thread kept.
+     *
+     * @param nX   the number of pixels in the X direction.
+     * @param nY   the number of pixels in the Y direction.
+     * @param pass the pass of the progressive rendering, -1 for the regular rendering.
+     */
+    private void renderOnWorkers(int nX, int nY, int pass) {
+        ExecutorService service = switch (execution) {
+            case THREADS -> Executors.newFixedThreadPool(threadsCount);
+            case VIRTUAL_THREADS -> newVirtualThreadExecutor();
+            case EXECUTOR -> executor;
+            case FORK_JOIN -> null;
+        };
+        boolean own = execution == Execution.THREADS || execution == Execution.VIRTUAL_THREADS && service != null;
+        if (service == null) service = ForkJoinPool.commonPool();
+        int workers = service instanceof ForkJoinPool pool && execution != Execution.EXECUTOR
+                ? pool.getParallelism()
+                : threadsCount > 0 ? threadsCount : Runtime.getRuntime().availableProcessors();
+
+        List<Future<?>> futures = new ArrayList<>(workers);
+        try {
+            for (int t = 0; t < workers; ++t)
+                futures.add(service.submit(() -> renderTiles(nX, nY, pass)));
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            tileManager.cancel();
+            // no task may paint the image after the rendering has returned
+            for (Future<?> future : futures)
+                while (true)
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException ignore) {
+                    } catch (ExecutionException ignore) {
+                        break;
                     }
-                }));
-            for (var thread : threads) thread.start();
-            try { for (var thread : threads) thread.join(); } catch (InterruptedException ignore) {}
+            Thread.currentThread().interrupt();
+            CancellationException cancellation = new CancellationException("The rendering was interrupted");
+            cancellation.initCause(e);
+            throw cancellation;
+        } catch (ExecutionException e) {
+            tileManager.cancel();
+            // let the other tasks finish their tiles before reporting the failure
+            for (Future<?> future : futures)
+                try {
+                    future.get();
+                } catch (InterruptedException | ExecutionException ignore) {
+                }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        } finally {
+            if (own) service.shutdownNow();
         }
+    }
 
-        // Write the image to a file
-        imageWriter.writeToImage();
+    /**
+     * Creates an executor which starts a virtual thread for every task
+     *
+     * @return the executor, or null before Java 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Renders tiles until there are no more tiles - the loop of every rendering thread.
+     *
+     * @param nX   the number of pixels in the X direction.
+     * @param nY   the number of pixels in the Y direction.
+     * @param pass the pass of the progressive rendering, -1 for the regular rendering.
+     */
+    private void renderTiles(int nX, int nY, int pass) {
+        TileManager.Tile tile;
+        // allocate a tile in loop until there are no more tiles
+        while ((tile = tileManager.nextTile()) != null) {
+            for (int i = tile.y0(); i < tile.y1(); i++)
+                for (int j = tile.x0(); j < tile.x1(); j++)
+                    // Cast a ray through the pixel
+                    if (pass < 0) castRay(nX, nY, j, i);
+                    else castSample(nX, nY, j, i, pass);
+            tileManager.tileDone(tile);
+            if (pass < 0 && checkpoint != null && checkpoint.claim())
+                checkpoint.save(imageWriter, tileManager, 0, null);
+        }
     }
 
+    /**
+     * Traces a sample of a pixel in a pass of the progressive rendering and accumulates it into the image.
+     * The point of the sample in the pixel (and in the aperture) is the sample of the pass from the sampler,
+     * so the samples of the first passes are already spread over the pixel.
+     *
+     * @param nX   the number of pixels in the X direction.
+     * @param nY   the number of pixels in the Y direction.
+     * @param j    the pixel index in the X direction.
+     * @param i    the pixel index in the Y direction.
+     * @param pass the pass.
+     */
+    private void castSample(int nX, int nY, int j, int i, int pass) {
+        long pixel = (long) i * nX + j;
+        double[] sample = new double[2];
+        sampler.sample(pixel, pass, progressivePasses, sample);
+        double pixelWidth = width / (double) nX;
+        double pixelHeight = height / (double) nY;
+        Point pIJ = viewPlanePoint(location.add(vTo.scale(distance)),
+                (j + sample[0] - nX / 2d) * pixelWidth, -(i + sample[1] - nY / 2d) * pixelHeight);
+        Ray ray = new Ray(location, pIJ.subtract(location));
+
+        if (DofON && aperture > 0) {
+            Point focusPoint = ray.GetPoint((depthOfField + distance) / vTo.dotProduct(ray.getDirection()));
+            // a point of the aperture disk - from dimensions of the sampler independent of the pixel sample
+            sampler.sample(pixel, pass, progressivePasses, Sampler.LENS, sample);
+            double radius = aperture * Math.sqrt(sample[0]);
+            double angle = 2 * Math.PI * sample[1];
+            Point origin = viewPlanePoint(location, radius * Math.cos(angle), radius * Math.sin(angle));
+            ray = new Ray(origin, focusPoint.subtract(origin));
+        }
+
+        Color color = rayTracer.traceRay(ray);
+        if (pass == 0) imageWriter.writePixel(j, i, color);
+        else imageWriter.addPixel(j, i, color);
+        if (squares != null) {
+            int p = (int) pixel * 3;
+            squares[p] += color.getRed() * color.getRed();
+            squares[p + 1] += color.getGreen() * color.getGreen();
+            squares[p + 2] += color.getBlue() * color.getBlue();
+        }
+    }
 
     /**
      * Renders the image using the ray tracing algorithm.
      */
     private void castRay(int nX, int nY, int j, int i) {
+        imageWriter.writePixel(j, i, calcPixelColor(nX, nY, j, i));
+    }
+
+    /**
+     * Calculates the color of a pixel by the rendering options of the camera.
+     *
+     * @param nX the number of pixels in the X direction.
+     * @param nY the number of pixels in the Y direction.
+     * @param j  the pixel index in the X direction.
+     * @param i  the pixel index in the Y direction.
+     * @return the color of the pixel.
+     */
+    Color calcPixelColor(int nX, int nY, int j, int i) {
         // Check if anti-aliasing is enabled
         if (antiAliasing) {
             // Calculate the average color of the pixel
-            Color color = calcAveragePixelColor(nX, nY, j, i);
-            // Write the color to the image
-            imageWriter.writePixel(j, i, color);
-            // Update the pixel manager
-            pixelManager.pixelDone();
-
+            return adaptiveDepth > 0 ? calcAdaptivePixelColor(nX, nY, j, i)
+                    : calcAveragePixelColor(nX, nY, j, i);
 
             // Check if depth of field (DOF) is enabled
         } else if (DofON) {
-            // Construct a grid of rays for depth of field (DOF) effects
+            // Calculate the average color of the aperture rays through the pixel
             Ray ray = constructRay(nX, nY, j, i);
-            List<Ray> MyRayList = constructRayGridDOF(ray);
-            // Calculate the average color of the pixel
-            Color myColor = Color.BLACK;
-            for (Ray myray : MyRayList) {
-                myColor = myColor.add(rayTracer.traceRay(myray));
-                imageWriter.writePixel(j,i,myColor.reduce(MyRayList.size()));
-            }
-            // Update the pixel manager
-            pixelManager.pixelDone();
-
+            return calcDofPixelColor(ray, (long) i * nX + j);
 
             //else, trace a single ray through the pixel
         } else {
             Ray ray = constructRay(nX, nY, j, i);
-            Color color = rayTracer.traceRay(ray);
-            imageWriter.writePixel(j, i, color);
+            return rayTracer.traceRay(ray);
         }
     }
 
@@ -549,82 +1087,193 @@ public class Camera implements Cloneable {
         if(!isZero(yOffset)) pC = pC.add(vUp.scale(yOffset));
 
 
-        // Generate a grid of rays for anti-aliasing
-        List<Ray> rays = generateRayGrid(pC, ANTI_ALIASING_NUMBER_OF_RAYS, pixelSize, false, null);
+        // Trace a grid of rays for anti-aliasing and compute the average color
+        SampleStatistics statistics = new SampleStatistics();
+        traceRayGrid(pC, ANTI_ALIASING_NUMBER_OF_RAYS, pixelSize, false, null, (long) i * nX + j, statistics, 0);
+        return statistics.getMean();
+    }
 
-        // Trace each ray and compute the average color
-        Color color = Color.BLACK;
-        for (Ray ray : rays) {
-            color = color.add(rayTracer.traceRay(ray));
-        }
-        return color.reduce(rays.size());
+
+    /**
+     * Calculates the color of a pixel with depth of field effects by the aperture rays of the pixel.
+     * If a convergence threshold is set, the sampling stops as soon as the mean color has converged -
+     * the order of the sampler spreads every prefix of the rays over the whole aperture.
+     *
+     * @param ray   The primary {@link Ray} through the pixel.
+     * @param pixel The index of the pixel.
+     * @return The average color of the traced aperture rays.
+     */
+    private Color calcDofPixelColor(Ray ray, long pixel) {
+        // Compute the focus point for depth of field
+        double t0 = depthOfField + distance;
+        double t = t0 / (vTo.dotProduct(ray.getDirection()));
+        Point focusPoint = ray.GetPoint(t);
+
+        // Calculate the size of each cell of the aperture grid
+        double pixelSize = alignZero((aperture * 2) / APERTURE_NUMBER_OF_POINTS);
+
+        SampleStatistics statistics = new SampleStatistics();
+        if (traceRayGrid(location, APERTURE_NUMBER_OF_POINTS, pixelSize, true, focusPoint, pixel, statistics,
+                dofThreshold))
+            dofConvergedPixels.increment();
+        dofPixels.increment();
+        dofSamples.add(statistics.getCount());
+        return statistics.getMean();
     }
 
+    /**
+     * Calculates the color of a pixel by adaptive super-sampling. The corners and the center of the pixel are
+     * traced first, and the pixel is subdivided recursively only where the samples differ.
+     *
+     * @param nX The number of horizontal pixels in the view plane.
+     * @param nY The number of vertical pixels in the view plane.
+     * @param j  The horizontal index of the pixel (column) being processed.
+     * @param i  The vertical index of the pixel (row) being processed.
+     * @return The {@link Color} of the pixel
+     */
+    private Color calcAdaptivePixelColor(int nX, int nY, int j, int i) {
+        double halfWidth = width / (2d * nX);
+        double halfHeight = height / (2d * nY);
+        // the center of the pixel on the view plane
+        Point pC = viewPlanePoint(location.add(vTo.scale(distance)),
+                (j - (nX - 1) / 2d) * 2 * halfWidth, -(i - (nY - 1) / 2d) * 2 * halfHeight);
+
+        return calcAdaptiveColor(pC, halfWidth, halfHeight,
+                traceViewPlanePoint(viewPlanePoint(pC, -halfWidth, halfHeight)),
+                traceViewPlanePoint(viewPlanePoint(pC, halfWidth, halfHeight)),
+                traceViewPlanePoint(viewPlanePoint(pC, -halfWidth, -halfHeight)),
+                traceViewPlanePoint(viewPlanePoint(pC, halfWidth, -halfHeight)),
+                adaptiveDepth);
+    }
 
+    /**
+     * Calculates the color of an area of the view plane by its traced corners. The center of the area is traced,
+     * and if it differs from a corner the area is divided into four quarters which share the new samples.
+     *
+     * @param center      the center of the area
+     * @param halfWidth   half of the width of the area
+     * @param halfHeight  half of the height of the area
+     * @param topLeft     the color of the top left corner
+     * @param topRight    the color of the top right corner
+     * @param bottomLeft  the color of the bottom left corner
+     * @param bottomRight the color of the bottom right corner
+     * @param depth       the remaining depth of the subdivision
+     * @return the average color of the area
+     */
+    private Color calcAdaptiveColor(Point center, double halfWidth, double halfHeight,
+                                    Color topLeft, Color topRight, Color bottomLeft, Color bottomRight, int depth) {
+        Color centerColor = traceViewPlanePoint(center);
+        if (depth == 1 || similar(centerColor, topLeft) && similar(centerColor, topRight)
+                && similar(centerColor, bottomLeft) && similar(centerColor, bottomRight))
+            return centerColor.add(topLeft, topRight, bottomLeft, bottomRight).reduce(5);
+
+        // trace the middles of the edges and sample the quarters
+        Color top = traceViewPlanePoint(viewPlanePoint(center, 0, halfHeight));
+        Color bottom = traceViewPlanePoint(viewPlanePoint(center, 0, -halfHeight));
+        Color left = traceViewPlanePoint(viewPlanePoint(center, -halfWidth, 0));
+        Color right = traceViewPlanePoint(viewPlanePoint(center, halfWidth, 0));
+        double quarterWidth = halfWidth / 2;
+        double quarterHeight = halfHeight / 2;
+        return calcAdaptiveColor(viewPlanePoint(center, -quarterWidth, quarterHeight), quarterWidth, quarterHeight,
+                topLeft, top, left, centerColor, depth - 1)
+                .add(calcAdaptiveColor(viewPlanePoint(center, quarterWidth, quarterHeight), quarterWidth,
+                                quarterHeight, top, topRight, centerColor, right, depth - 1),
+                        calcAdaptiveColor(viewPlanePoint(center, -quarterWidth, -quarterHeight), quarterWidth,
+                                quarterHeight, left, centerColor, bottomLeft, bottom, depth - 1),
+                        calcAdaptiveColor(viewPlanePoint(center, quarterWidth, -quarterHeight), quarterWidth,
+                                quarterHeight, centerColor, right, bottom, bottomRight, depth - 1))
+                .reduce(4);
+    }
 
     /**
-     * Constructs a grid of rays for depth of field (DOF) effects based on a given primary ray.
-     * This method computes a grid of rays by applying DOF to simulate the effect of a camera lens.
+     * Checks whether two samples are close enough for the adaptive super-sampling
      *
-     * @param ray          The primary {@link Ray} used to determine the focus point for depth of field effects.
-     * @return             A list of {@link Ray} objects representing the rays generated for depth of field simulation.
+     * @param c1 the first color
+     * @param c2 the second color
+     * @return true if no color component differs more than the threshold
      */
-    private List<Ray> constructRayGridDOF(Ray ray)
-    {
-        // Compute the focus point for depth of field
-        double t0=depthOfField+distance;
-        double t=t0/(vTo.dotProduct(ray.getDirection()));
-        Point FocusPoint=ray.GetPoint(t);
+    private boolean similar(Color c1, Color c2) {
+        return Math.abs(c1.getRed() - c2.getRed()) <= adaptiveThreshold
+                && Math.abs(c1.getGreen() - c2.getGreen()) <= adaptiveThreshold
+                && Math.abs(c1.getBlue() - c2.getBlue()) <= adaptiveThreshold;
+    }
 
-        // Calculate the size of each pixel for the grid
-        double PixelSize =alignZero((aperture*2)/APERTURE_NUMBER_OF_POINTS);
+    /**
+     * Moves a point on the view plane
+     *
+     * @param point the point
+     * @param x     the offset to the right
+     * @param y     the offset upwards
+     * @return the moved point
+     */
+    private Point viewPlanePoint(Point point, double x, double y) {
+        if (!isZero(x)) point = point.add(vRight.scale(x));
+        if (!isZero(y)) point = point.add(vUp.scale(y));
+        return point;
+    }
 
-        // Generate a grid of rays for DOF
-        return generateRayGrid(location, APERTURE_NUMBER_OF_POINTS, PixelSize, true, FocusPoint);
+    /**
+     * Traces a ray from the camera through a point on the view plane
+     *
+     * @param point the point on the view plane
+     * @return the color of the ray
+     */
+    private Color traceViewPlanePoint(Point point) {
+        return rayTracer.traceRay(new Ray(location, point.subtract(location)));
     }
 
     /**
-     * Generates a list of rays for a grid of pixels in a camera view.
-     * This method creates rays from a camera's center point to various points on a grid.
+     * Traces the rays of a grid of sample points in a camera view and accumulates their colors.
+     * Every sample point of the sampler is generated, traced and accumulated on the fly, so the memory
+     * does not depend on the amount of the samples.
      * It can apply either depth of field (DOF) effects or anti-aliasing, but not both simultaneously.
      *
-     * @param center       The center point of the camera's view plane.
-     * @param gridSize     The size of the grid (number of pixels along one dimension).
-     * @param pixelSize    The size of each pixel in the grid.
+     * @param center       The center point of the grid - on the view plane, or of the aperture.
+     * @param gridSize     The size of the grid (number of cells along one dimension).
+     * @param pixelSize    The size of each cell in the grid.
      * @param isDOF        A boolean indicating whether depth of field effects should be applied.
      *                     If false, anti-aliasing effects are applied instead.
      * @param focusPoint   The point where the camera is focusing, used if DOF is enabled. Ignored if DOF is false.
-     * @return             A list of {@link Ray} objects representing the rays generated for the grid.
-     */
-    private List<Ray> generateRayGrid(Point center, int gridSize, double pixelSize, boolean isDOF, Point focusPoint) {
-        List<Ray> rays = new LinkedList<>();
-        Random r = new Random();
-        for (int i = 0; i < gridSize; i++) {
-            for (int j = 0; j < gridSize; j++) {
-                // Compute the offset for the current pixel in the grid
-                double xJ = ((j + r.nextDouble() / (r.nextBoolean() ? 2 : -2)) - ((gridSize - 1) / 2d)) * pixelSize;
-                double yI = -((i + r.nextDouble() / (r.nextBoolean() ? 2 : -2)) - ((gridSize - 1) / 2d)) * pixelSize;
-
-                // Calculate the intersection point of the ray with the view plane
-                Point pIJ = center;
-                if (!isZero(xJ)) {
-                    pIJ = pIJ.add(vRight.scale(xJ));
-                }
-                if (!isZero(yI)) {
-                    pIJ = pIJ.add(vUp.scale(yI));
-                }
-                // Determine the direction of the ray based on DOF or anti-aliasing
-                Vector vIJ = isDOF ? focusPoint.subtract(pIJ) : pIJ.subtract(location);
-                Ray ray = new Ray(pIJ, vIJ);
-
-                // Add the ray to the list if it's within the DOF aperture or if DOF is not applied
-                if (!isDOF || pIJ.equals(location) ||
-                        pIJ.subtract(location).dotProduct(pIJ.subtract(location)) <= aperture * aperture) {
-                    rays.add(ray);
-                }
+     * @param pixel        The index of the pixel, which selects its sample points.
+     * @param statistics   The accumulator of the sample colors.
+     * @param threshold    The convergence threshold of the mean color, 0 for tracing all the samples.
+     *                     At least a row's worth of the samples is traced.
+     * @return             true if the sampling stopped early because the mean color converged.
+     */
+    private boolean traceRayGrid(Point center, int gridSize, double pixelSize, boolean isDOF, Point focusPoint,
+                                 long pixel, SampleStatistics statistics, double threshold) {
+        final int count = gridSize * gridSize;
+        final double size = gridSize * pixelSize;
+        final int minSamples = Math.max(2, gridSize);
+        double[] sample = new double[2];
+        for (int k = 0; k < count; k++) {
+            // Compute the offset of the sample point from the center of the grid
+            sampler.sample(pixel, k, count, sample);
+            double xJ = (sample[0] - 0.5) * size;
+            double yI = -(sample[1] - 0.5) * size;
+
+            // Calculate the point of the sample
+            Point pIJ = center;
+            if (!isZero(xJ)) {
+                pIJ = pIJ.add(vRight.scale(xJ));
             }
+            if (!isZero(yI)) {
+                pIJ = pIJ.add(vUp.scale(yI));
+            }
+            // Skip the sample if it's out of the DOF aperture
+            if (isDOF && !pIJ.equals(location) &&
+                    pIJ.subtract(location).dotProduct(pIJ.subtract(location)) > aperture * aperture) {
+                continue;
+            }
+
+            // Determine the direction of the ray based on DOF or anti-aliasing, and trace it
+            Vector vIJ = isDOF ? focusPoint.subtract(pIJ) : pIJ.subtract(location);
+            statistics.add(rayTracer.traceRay(new Ray(pIJ, vIJ)));
+            if (threshold > 0 && k < count - 1 && statistics.getCount() >= minSamples
+                    && statistics.converged(threshold))
+                return true;
         }
-        return rays;
+        return false;
     }
 
 
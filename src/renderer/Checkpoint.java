@@ -0,0 +1,150 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Checkpoint file of a rendering - the finished tiles and the accumulated pixel buffers of the image, so
+ * a rendering which was stopped by a crash or a preemption is resumed without the finished work.<br/>
+ * The file is binary: a header (magic, version, image size, tile size, finished progressive passes),
+ * the flags of the finished tiles as a bit set, the color sums and the sample counts of the image writer,
+ * and optionally the sums of the squared samples of a progressive rendering. The file is written and read
+ * through a heap buffer rather than a memory mapping, which would keep the file open until it is collected.
+ * A checkpoint is written into a temporary file which replaces the previous checkpoint only when complete,
+ * so a crash while writing leaves the previous checkpoint intact. */
+class Checkpoint {
+    /** The first bytes of a checkpoint file */
+    private static final int MAGIC = 0x52434B50; // "RCKP"
+    /** The version of the file layout */
+    private static final int VERSION = 1;
+    /** Size of the header in bytes */
+    private static final int HEADER = 7 * Integer.BYTES;
+
+    /** The checkpoint file */
+    private final Path file;
+    /** Interval between the checkpoints in nanoseconds */
+    private final long interval;
+    /** Time (of {@link System#nanoTime()}) of the next checkpoint */
+    private final AtomicLong next;
+
+    /** Constructs the checkpoint of a rendering - the first checkpoint is due after the interval
+     * @param file     the checkpoint file
+     * @param interval the interval between the checkpoints in seconds */
+    Checkpoint(Path file, double interval) {
+        this.file     = file;
+        this.interval = (long) (interval * 1e9);
+        next          = new AtomicLong(System.nanoTime() + this.interval);
+    }
+
+    /** Claims a due checkpoint - thread-safe, only one of the threads which find it due gets it
+     * @return true if the checkpoint is due and the calling thread should write it */
+    boolean claim() {
+        long due = next.get();
+        long now = System.nanoTime();
+        return now - due >= 0 && next.compareAndSet(due, now + interval);
+    }
+
+    /** Writes a checkpoint. In the regular rendering the pixels of the unfinished tiles may be partially written,
+     * they are rendered again on resume. The checkpoints are written one at a time
+     * @param writer  the image writer of the rendering
+     * @param tiles   the tile manager of the rendering, null for a progressive rendering between passes
+     * @param passes  the amount of the finished passes of a progressive rendering, 0 for the regular rendering
+     * @param squares the sums of the squared samples of a progressive rendering, null if they are not kept */
+    synchronized void save(ImageWriter writer, TileManager tiles, int passes, double[] squares) {
+        float[] sums = writer.getSums();
+        int[] counts = writer.getCounts();
+        int tileCount = tiles == null ? 0 : tiles.getTileCount();
+        long[] flags = new long[(tileCount + 63) / 64];
+        // the flags are read before the pixels, so the pixels of every flagged tile are complete
+        for (int t = 0; t < tileCount; ++t)
+            if (tiles.isFinished(t)) flags[t >>> 6] |= 1L << t;
+
+        long size = HEADER + (long) flags.length * Long.BYTES + (long) sums.length * Float.BYTES
+                + (long) counts.length * Integer.BYTES + (squares == null ? 0 : (long) squares.length * Double.BYTES);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (size > Integer.MAX_VALUE) throw new IOException("The checkpoint is too large: " + size + " bytes");
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(writer.getNx()).putInt(writer.getNy())
+                    .putInt(tiles == null ? 0 : tiles.getTileSize()).putInt(passes).putInt(squares == null ? 0 : 1);
+            buffer.asLongBuffer().put(flags);
+            buffer.position(buffer.position() + flags.length * Long.BYTES);
+            buffer.asFloatBuffer().put(sums);
+            buffer.position(buffer.position() + sums.length * Float.BYTES);
+            buffer.asIntBuffer().put(counts);
+            buffer.position(buffer.position() + counts.length * Integer.BYTES);
+            if (squares != null) buffer.asDoubleBuffer().put(squares);
+            buffer.rewind();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can not write the checkpoint " + file, e);
+        }
+    }
+
+    /** Restores a checkpoint into a new rendering, if there is a checkpoint file
+     * @param writer  the image writer of the rendering - the pixel buffers are replaced
+     * @param tiles   the tile manager of the rendering - the finished tiles are restored, null for a
+     *                progressive rendering
+     * @param squares the sums of the squared samples of a progressive rendering, null if they are not kept
+     * @return the amount of the finished passes of a progressive rendering (0 for the regular rendering),
+     *         -1 if there is no checkpoint file
+     * @throws IllegalStateException if the file is not a checkpoint of this rendering */
+    int restore(ImageWriter writer, TileManager tiles, double[] squares) {
+        if (!Files.exists(file)) return -1;
+        float[] sums = writer.getSums();
+        int[] counts = writer.getCounts();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IllegalStateException("ERROR: the checkpoint " + file + " is not of this rendering");
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0) throw new IOException("Unexpected end of the file " + file);
+            buffer.flip();
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IllegalStateException("ERROR: " + file + " is not a checkpoint");
+            int nX = buffer.getInt(), nY = buffer.getInt(), tileSize = buffer.getInt(), passes = buffer.getInt();
+            boolean hasSquares = buffer.getInt() != 0;
+            int tileCount = tiles == null || tileSize == 0 ? 0 : tiles.getTileCount();
+            int words = (tileCount + 63) / 64;
+            if (nX != writer.getNx() || nY != writer.getNy()
+                    || tiles != null && tileSize != 0 && tileSize != tiles.getTileSize()
+                    || (tiles == null) != (tileSize == 0) || squares != null && !hasSquares
+                    || buffer.remaining() != (long) words * Long.BYTES + (long) sums.length * Float.BYTES
+                    + (long) counts.length * Integer.BYTES + (hasSquares ? (long) sums.length * Double.BYTES : 0))
+                throw new IllegalStateException("ERROR: the checkpoint " + file + " is not of this rendering");
+
+            long[] flags = new long[words];
+            buffer.asLongBuffer().get(flags);
+            buffer.position(buffer.position() + words * Long.BYTES);
+            buffer.asFloatBuffer().get(sums);
+            buffer.position(buffer.position() + sums.length * Float.BYTES);
+            buffer.asIntBuffer().get(counts);
+            buffer.position(buffer.position() + counts.length * Integer.BYTES);
+            if (squares != null && hasSquares) buffer.asDoubleBuffer().get(squares);
+            for (int t = 0; t < tileCount; ++t)
+                if ((flags[t >>> 6] & 1L << t) != 0) tiles.restoreTile(t);
+            return passes;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can not read the checkpoint " + file, e);
+        }
+    }
+
+    /** Deletes the checkpoint file of a complete rendering */
+    void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can not delete the checkpoint " + file, e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package renderer;
+
+/**
+ * Halton sequence sampler - the radical inverses of the sample index in bases 2 and 3 for the pixel,
+ * and in bases 5 and 7 for the aperture. Every pixel shifts the sequence by a random offset
+ * (Cranley-Patterson rotation), so neighbouring pixels do not repeat the same pattern.
+ */
+public class HaltonSampler implements Sampler {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /** The bases of the pairs of dimensions */
+    private static final int[] BASES = { 2, 3, 5, 7 };
+
+    @Override
+    public void sample(long pixel, int index, int count, int dimension, double[] point) {
+        long hash = SampleHash.hash(pixel, dimension);
+        point[0] = rotate(radicalInverse(index, BASES[2 * dimension]), SampleHash.unit(hash));
+        point[1] = rotate(radicalInverse(index, BASES[2 * dimension + 1]), SampleHash.unit(SampleHash.mix(hash)));
+    }
+
+    /**
+     * Radical inverse of a number - its digits in the base mirrored around the radix point
+     *
+     * @param n    the number
+     * @param base the base
+     * @return the radical inverse in [0, 1)
+     */
+    static double radicalInverse(int n, int base) {
+        double inverse = 0;
+        double digit = 1d / base;
+        for (double factor = digit; n > 0; n /= base, factor *= digit)
+            inverse += (n % base) * factor;
+        return inverse;
+    }
+
+    /**
+     * Shifts a coordinate by an offset modulo 1
+     *
+     * @param value  the coordinate in [0, 1)
+     * @param offset the offset in [0, 1)
+     * @return the shifted coordinate in [0, 1)
+     */
+    private static double rotate(double value, double offset) {
+        double shifted = value + offset;
+        return shifted >= 1 ? shifted - 1 : shifted;
+    }
+}
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
 import javax.imageio.ImageIO;
 
@@ -13,9 +14,20 @@ import primitives.Color;
 /** Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution<br/>
+ * The pixel colors are kept in full dynamic range in a primitive buffer, which the rendering threads write
+ * without any locking (every thread writes its own pixels). They are tone mapped and quantized to 8 bits
+ * only when the image is written.
  * @author Dan */
 public class ImageWriter {
+   /** The ways of mapping the colors of the pixels into the 0..255 range of the image file */
+   public enum ToneMapping {
+      /** every color component above 255 is set to 255 */
+      CLAMP,
+      /** the Reinhard operator 255 * c / (255 + c) - bright colors are compressed rather than cut */
+      REINHARD
+   }
+
    /** Horizontal resolution of the image - number of pixels in row */
    private int                 nX;
    /** Vertical resolution of the image - number of pixels in column */
@@ -25,8 +37,15 @@ public class ImageWriter {
     * directory */
    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
-   /** Image generation buffer (the matrix of the pixels) */
-   private BufferedImage       image;
+   /** Image generation buffer - the sums of the colors of the pixels, 3 values (red, green, blue) per pixel
+    * row by row */
+   private final float[]       pixels;
+   /** Amount of the colors accumulated in every pixel */
+   private final int[]         counts;
+   /** The tone mapping of the image file */
+   private ToneMapping         toneMapping = ToneMapping.CLAMP;
+   /** The exposure - the colors are scaled by it before the tone mapping */
+   private double              exposure    = 1;
    /** image file name, not including the file extension '.png' */
    private String              imageName;
    /** logger for reporting I/O failures */
@@ -42,7 +61,8 @@ public class ImageWriter {
       this.nX        = nX;
       this.nY        = nY;
 
-      image          = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+      pixels         = new float[nX * nY * 3];
+      counts         = new int[nX * nY];
    }
 
    // ***************** Getters/Setters ********************** //
@@ -54,12 +74,32 @@ public class ImageWriter {
     * @return the amount of horizontal pixels */
    public int getNx() { return nX; }
 
+   /** Sets the tone mapping of the image file
+    * @param  toneMapping the tone mapping
+    * @return             the image writer */
+   public ImageWriter setToneMapping(ToneMapping toneMapping) {
+      if (toneMapping == null) throw new IllegalArgumentException("ERROR: tone mapping can not be null");
+      this.toneMapping = toneMapping;
+      return this;
+   }
+
+   /** Sets the exposure of the image file - the colors are scaled by it before the tone mapping
+    * @param  exposure the exposure
+    * @return          the image writer */
+   public ImageWriter setExposure(double exposure) {
+      if (exposure <= 0) throw new IllegalArgumentException("ERROR: exposure must be positive");
+      this.exposure = exposure;
+      return this;
+   }
+
    // ***************** Operations ******************** //
 
    /** Function writeToImage produces unoptimized png file of the image according
     * to
     * pixel color matrix in the directory of the project */
    public void writeToImage() {
+      BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+      image.setRGB(0, 0, nX, nY, quantize(), 0, nX);
       try {
          File file = new File(FOLDER_PATH + '/' + imageName + ".png");
          ImageIO.write(image, "png", file);
@@ -69,14 +109,83 @@ public class ImageWriter {
       }
    }
 
+   /** Tone maps and quantizes all the pixels - the rows are processed in parallel
+    * @return the 8 bit RGB values of the pixels row by row */
+   int[] quantize() {
+      int[] rgb = new int[nX * nY];
+      IntStream.range(0, nY).parallel().forEach(y -> {
+         for (int p = y * nX; p < (y + 1) * nX; ++p) {
+            double scale = counts[p] <= 1 ? exposure : exposure / counts[p];
+            rgb[p] = map(pixels[p * 3] * scale) << 16 | map(pixels[p * 3 + 1] * scale) << 8
+                  | map(pixels[p * 3 + 2] * scale);
+         }
+      });
+      return rgb;
+   }
+
+   /** Tone maps and quantizes a color component
+    * @param  value the color component
+    * @return       the 8 bit value */
+   private int map(double value) {
+      if (toneMapping == ToneMapping.REINHARD) value = 255 * value / (255 + value);
+      int quantized = (int) value;
+      return quantized > 255 ? 255 : quantized;
+   }
+
    /** The function writePixel writes a color of a specific pixel into pixel color
     * matrix
     * @param xIndex X axis index of the pixel
     * @param yIndex Y axis index of the pixel
     * @param color  final color of the pixel */
    public void writePixel(int xIndex, int yIndex, Color color) {
-      image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+      int p = yIndex * nX + xIndex;
+      pixels[p * 3]     = (float) color.getRed();
+      pixels[p * 3 + 1] = (float) color.getGreen();
+      pixels[p * 3 + 2] = (float) color.getBlue();
+      counts[p]         = 1;
    }
 
-}
+   /** Adds a color to a specific pixel - the pixel gets the average of all the colors added to it
+    * (a color written by {@link #writePixel(int, int, Color)} counts as the first one)
+    * @param xIndex X axis index of the pixel
+    * @param yIndex Y axis index of the pixel
+    * @param color  a sample color of the pixel */
+   public void addPixel(int xIndex, int yIndex, Color color) {
+      int p = yIndex * nX + xIndex;
+      pixels[p * 3]     += (float) color.getRed();
+      pixels[p * 3 + 1] += (float) color.getGreen();
+      pixels[p * 3 + 2] += (float) color.getBlue();
+      ++counts[p];
+   }
+
+   /** Gets the color of a specific pixel in full dynamic range, before the tone mapping
+    * @param  xIndex X axis index of the pixel
+    * @param  yIndex Y axis index of the pixel
+    * @return        the average of the colors of the pixel, black if nothing was written */
+   public Color getPixel(int xIndex, int yIndex) {
+      int p = yIndex * nX + xIndex;
+      if (counts[p] == 0) return Color.BLACK;
+      return new Color(pixels[p * 3], pixels[p * 3 + 1], pixels[p * 3 + 2]).reduce(counts[p]);
+   }
+
+   /** Amount of the colors accumulated in a specific pixel
+    * @param  xIndex X axis index of the pixel
+    * @param  yIndex Y axis index of the pixel
+    * @return        amount of the colors */
+   public int getPixelCount(int xIndex, int yIndex) {
+      return counts[yIndex * nX + xIndex];
+   }
 
+   /** The buffer of the sums of the colors of the pixels (for the checkpoints of the rendering)
+    * @return the buffer itself, 3 values per pixel row by row */
+   float[] getSums() {
+      return pixels;
+   }
+
+   /** The buffer of the amounts of the colors accumulated in the pixels (for the checkpoints of the rendering)
+    * @return the buffer itself, a value per pixel row by row */
+   int[] getCounts() {
+      return counts;
+   }
+
+}
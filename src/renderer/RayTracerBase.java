@@ -4,7 +4,11 @@ import primitives.Color;
 import primitives.Ray;
 import scene.Scene;
 
-public abstract class RayTracerBase {
+import java.io.Serializable;
+
+public abstract class RayTracerBase implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The scene to render
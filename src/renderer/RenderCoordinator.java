@@ -0,0 +1,231 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import primitives.Color;
+
+/** Coordinator of a rendering by several processes - the tiles of the image are rendered by worker processes
+ * ({@link RenderWorker}) which connect to the coordinator by TCP, and the coordinator assembles the returned
+ * tiles into the image writer of the camera.<br/>
+ * Every worker gets the serialized camera with its ray tracer and scene, and then tiles to render - a worker
+ * keeps as many tiles in flight as its rendering threads. The tiles of a worker which disconnects before
+ * returning them are handed out again to the other workers, so workers may join and leave at any time.<br/>
+ * The protocol (over object streams): the worker sends the amount of its threads, the coordinator sends
+ * the image size and the camera (serialized once for all the workers, as a block of bytes), then
+ * the coordinator sends tiles as 4 ints (x0, y0, x1, y1) or -1 at the end, and the worker returns every tile
+ * as its 4 ints followed by 3 floats (red, green, blue) for every pixel of the tile, row by row.<br/>
+ * The rendering fails if no worker is connected for a timeout, and is cancelled by closing the coordinator -
+ * the connections of the workers are closed before {@link #render()} returns. */
+public class RenderCoordinator implements AutoCloseable {
+    /** The end of the tiles */
+    static final int END = -1;
+    /** Time of waiting for a worker or for a tile to be handed out again, in milliseconds */
+    private static final int POLL_MILLIS = 100;
+
+    /** The camera of the rendering */
+    private final Camera camera;
+    /** The socket on which the workers connect */
+    private final ServerSocket server;
+    /** The tiles of the workers which disconnected, to be handed out again */
+    private final LinkedBlockingQueue<TileManager.Tile> retry = new LinkedBlockingQueue<>();
+    /** The tiles of the rendering */
+    private volatile TileManager tiles;
+    /** Time of waiting without a connected worker before the rendering fails, in nanoseconds, 0 for no limit */
+    private long timeout = 60_000_000_000L;
+
+    /** Constructs a coordinator listening on the local host
+     * @param  camera      the camera of the rendering, with its ray tracer and image writer
+     * @param  port        the TCP port, 0 for any free port
+     * @throws IOException if the port can not be opened */
+    public RenderCoordinator(Camera camera, int port) throws IOException {
+        this.camera = camera;
+        server      = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(POLL_MILLIS);
+    }
+
+    /** The TCP port of the coordinator
+     * @return the port */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Sets the time of waiting without a connected worker - before the first worker connects, or after the last
+     * worker disconnected - before the rendering fails. The default is 60 seconds
+     * @param  seconds                  the time in seconds, 0 for waiting without a limit
+     * @return                          the coordinator
+     * @throws IllegalArgumentException if the time is negative */
+    public RenderCoordinator setTimeout(double seconds) {
+        if (seconds < 0)
+            throw new IllegalArgumentException("ERROR: timeout can not be negative");
+        timeout = (long) (seconds * 1e9);
+        return this;
+    }
+
+    /** Renders the image into the image writer of the camera by the workers which connect to the coordinator.
+     * Blocks until all the tiles were returned by the workers - the caller writes the image to its file
+     * @throws IllegalStateException if no worker is connected for the timeout, or the workers can not be accepted
+     * @throws CancellationException if the coordinator is closed during the rendering */
+    public void render() {
+        ImageWriter imageWriter = camera.getImageWriter();
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        TileManager manager = new TileManager(nY, nX, camera.getTileSize(), 0);
+        tiles = manager;
+        long total = (long) nX * nY;
+        byte[] job = serialize(camera);
+
+        List<Socket> sockets = new ArrayList<>();
+        List<Thread> handlers = new ArrayList<>();
+        boolean done = false;
+        try {
+            long idle = System.nanoTime();
+            while (manager.getPixelsDone() < total) {
+                long now = System.nanoTime();
+                if (handlers.stream().anyMatch(Thread::isAlive)) idle = now;
+                else if (timeout > 0 && now - idle >= timeout)
+                    throw new IllegalStateException("No worker connected to the coordinator for "
+                            + timeout / 1e9 + " seconds");
+                try {
+                    Socket socket = server.accept();
+                    Thread handler = new Thread(() -> serve(socket, imageWriter, job), "render coordinator");
+                    sockets.add(socket);
+                    handlers.add(handler);
+                    handler.start();
+                } catch (SocketTimeoutException ignore) {
+                    // check whether the image is complete
+                }
+            }
+            for (Thread handler : handlers) handler.join();
+            done = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The rendering was interrupted", e);
+        } catch (IOException e) {
+            if (server.isClosed())
+                throw (CancellationException) new CancellationException("The coordinator was closed").initCause(e);
+            throw new IllegalStateException("I/O error - the coordinator can not accept workers", e);
+        } finally {
+            if (!done) stop(sockets, handlers);
+        }
+    }
+
+    /** Stops the handlers of the workers of a failed rendering - their connections are closed, so the workers
+     * stop, and the handlers are waited for
+     * @param sockets  the connections of the workers
+     * @param handlers the threads which serve the workers */
+    private static void stop(List<Socket> sockets, List<Thread> handlers) {
+        for (Socket socket : sockets)
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+                // the worker is gone anyway
+            }
+        boolean interrupted = false;
+        for (Thread handler : handlers)
+            while (handler.isAlive())
+                try {
+                    handler.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /** Serializes the camera with its ray tracer and scene
+     * @param  camera the camera
+     * @return        the serialized camera */
+    private static byte[] serialize(Camera camera) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(camera);
+        } catch (IOException e) {
+            throw new IllegalStateException("The camera, its ray tracer or its scene can not be serialized", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Hands out the next tile - a tile of a disconnected worker first
+     * @return the tile, or null if there is no tile to be handed out now */
+    private TileManager.Tile nextTile() {
+        TileManager.Tile tile = retry.poll();
+        return tile != null ? tile : tiles.nextTile();
+    }
+
+    /** Serves a worker until all the tiles are rendered. If the worker fails, its tiles are handed out again
+     * @param socket      the connection of the worker
+     * @param imageWriter the image writer of the rendering
+     * @param job         the serialized camera */
+    private void serve(Socket socket, ImageWriter imageWriter, byte[] job) {
+        List<TileManager.Tile> outstanding = new ArrayList<>();
+        long total = (long) imageWriter.getNx() * imageWriter.getNy();
+        try (socket) {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            int window = Math.max(1, in.readInt());
+            out.writeInt(imageWriter.getNx());
+            out.writeInt(imageWriter.getNy());
+            out.writeInt(job.length);
+            out.write(job);
+
+            while (true) {
+                TileManager.Tile tile;
+                while (outstanding.size() < window && (tile = nextTile()) != null) {
+                    out.writeInt(tile.x0());
+                    out.writeInt(tile.y0());
+                    out.writeInt(tile.x1());
+                    out.writeInt(tile.y1());
+                    outstanding.add(tile);
+                }
+                out.flush();
+
+                if (outstanding.isEmpty()) {
+                    if (tiles.getPixelsDone() >= total) {
+                        out.writeInt(END);
+                        out.flush();
+                        return;
+                    }
+                    // another worker may still fail and leave its tiles
+                    tile = retry.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (tile != null) retry.add(tile);
+                    continue;
+                }
+
+                tile = new TileManager.Tile(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                if (!outstanding.contains(tile))
+                    throw new IOException("The worker returned a tile which was not handed out: " + tile);
+                for (int i = tile.y0(); i < tile.y1(); i++)
+                    for (int j = tile.x0(); j < tile.x1(); j++)
+                        imageWriter.writePixel(j, i, new Color(in.readFloat(), in.readFloat(), in.readFloat()));
+                // a tile is returned only when all its pixels arrived
+                outstanding.remove(tile);
+                tiles.tileDone(tile);
+            }
+        } catch (IOException | InterruptedException e) {
+            // the tiles of the worker are rendered by the other workers
+            retry.addAll(outstanding);
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Closes the socket of the coordinator
+     * @throws IOException if the socket fails to close */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
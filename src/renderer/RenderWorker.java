@@ -0,0 +1,146 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import primitives.Color;
+
+/** Worker process of a rendering by several processes - connects to a {@link RenderCoordinator}, gets the
+ * camera with its ray tracer and scene, and renders the tiles handed out by the coordinator on several
+ * threads, until the coordinator sends the end of the tiles.<br/>
+ * Run as a program: {@code java renderer.RenderWorker <host> <port> [threads]} */
+public class RenderWorker {
+    /** The end of the tiles, for the rendering threads */
+    private static final TileManager.Tile END = new TileManager.Tile(0, 0, 0, 0);
+
+    /** The host of the coordinator */
+    private final String host;
+    /** The TCP port of the coordinator */
+    private final int port;
+    /** Amount of the rendering threads */
+    private final int threads;
+
+    /** Constructs a worker
+     * @param host    the host of the coordinator
+     * @param port    the TCP port of the coordinator
+     * @param threads amount of the rendering threads, 0 for a thread per processor
+     * @throws IllegalArgumentException if the amount of the threads is negative */
+    public RenderWorker(String host, int port, int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("ERROR: number of threads can not be negative");
+        this.host    = host;
+        this.port    = port;
+        this.threads = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /** Renders tiles for the coordinator until it sends the end of the tiles
+     * @throws IOException if the connection fails or the coordinator sends a malformed camera */
+    public void run() throws IOException {
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        try (Socket socket = new Socket(host, port)) {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(threads);
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            int nX = in.readInt(), nY = in.readInt();
+            byte[] job = new byte[in.readInt()];
+            in.readFully(job);
+            Camera camera = deserialize(job);
+
+            LinkedBlockingQueue<TileManager.Tile> queue = new LinkedBlockingQueue<>();
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; ++t)
+                futures.add(service.submit(() -> {
+                    try {
+                        renderTiles(camera, nX, nY, queue, out);
+                    } catch (IOException | RuntimeException e) {
+                        // the reading of the tiles ends, and the coordinator hands out the tiles of the worker again
+                        socket.shutdownInput();
+                        throw e;
+                    }
+                    return null;
+                }));
+
+            int x0;
+            while ((x0 = in.readInt()) != RenderCoordinator.END)
+                queue.add(new TileManager.Tile(x0, in.readInt(), in.readInt(), in.readInt()));
+            for (int t = 0; t < threads; ++t) queue.add(END);
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    /** Deserializes the camera with its ray tracer and scene
+     * @param  job         the serialized camera
+     * @return             the camera
+     * @throws IOException if the camera is malformed or of unknown classes */
+    private static Camera deserialize(byte[] job) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(job))) {
+            return (Camera) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("The coordinator sent a malformed camera", e);
+        }
+    }
+
+    /** Renders tiles until the end of the tiles - the loop of every rendering thread
+     * @param  camera               the camera
+     * @param  nX                   the number of pixels in the X direction
+     * @param  nY                   the number of pixels in the Y direction
+     * @param  queue                the tiles to be rendered
+     * @param  out                  the stream to the coordinator, shared by the threads
+     * @throws IOException          if the connection fails
+     * @throws InterruptedException if the thread is interrupted */
+    private static void renderTiles(Camera camera, int nX, int nY, LinkedBlockingQueue<TileManager.Tile> queue,
+                                    ObjectOutputStream out) throws IOException, InterruptedException {
+        TileManager.Tile tile;
+        while ((tile = queue.take()) != END) {
+            float[] colors = new float[tile.pixels() * 3];
+            int p = 0;
+            for (int i = tile.y0(); i < tile.y1(); i++)
+                for (int j = tile.x0(); j < tile.x1(); j++) {
+                    Color color = camera.calcPixelColor(nX, nY, j, i);
+                    colors[p++] = (float) color.getRed();
+                    colors[p++] = (float) color.getGreen();
+                    colors[p++] = (float) color.getBlue();
+                }
+            synchronized (out) {
+                out.writeInt(tile.x0());
+                out.writeInt(tile.y0());
+                out.writeInt(tile.x1());
+                out.writeInt(tile.y1());
+                for (float color : colors) out.writeFloat(color);
+                out.flush();
+            }
+        }
+    }
+
+    /** Runs a worker
+     * @param args the host and the TCP port of the coordinator, and optionally the amount of the threads
+     * @throws IOException if the connection fails */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: java renderer.RenderWorker <host> <port> [threads]");
+            System.exit(2);
+        }
+        new RenderWorker(args[0], Integer.parseInt(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 0).run();
+    }
+}
@@ -0,0 +1,43 @@
+package renderer;
+
+/**
+ * Stateless pseudo-random numbers for the samplers - a number is a hash of its key, so there is
+ * no generator to create or to share between the threads
+ */
+final class SampleHash {
+    /** Don't let anyone instantiate this class. */
+    private SampleHash() {}
+
+    /**
+     * Mixes the bits of a number (the finalizer of SplitMix64)
+     *
+     * @param z the number
+     * @return the mixed bits
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Hash of a pixel and a sample
+     *
+     * @param pixel the index of the pixel
+     * @param index the index of the sample, or of a dimension
+     * @return the hash
+     */
+    static long hash(long pixel, long index) {
+        return mix(mix(pixel) + index * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * Converts a hash into a number in [0, 1)
+     *
+     * @param hash the hash
+     * @return the number
+     */
+    static double unit(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,65 @@
+package renderer;
+
+import primitives.Color;
+
+/** Running mean and variance of the color samples of a pixel, by Welford's algorithm - the samples are
+ * accumulated one by one without being kept, and the mean is available at any time. */
+class SampleStatistics {
+    /** Amount of the samples */
+    private int count = 0;
+    /** Mean of the red components */
+    private double meanRed = 0;
+    /** Mean of the green components */
+    private double meanGreen = 0;
+    /** Mean of the blue components */
+    private double meanBlue = 0;
+    /** Sum of the squared differences of the red components from their mean */
+    private double m2Red = 0;
+    /** Sum of the squared differences of the green components from their mean */
+    private double m2Green = 0;
+    /** Sum of the squared differences of the blue components from their mean */
+    private double m2Blue = 0;
+
+    /** Adds a sample
+     * @param color the color of the sample */
+    void add(Color color) {
+        ++count;
+        double d = color.getRed() - meanRed;
+        meanRed += d / count;
+        m2Red += d * (color.getRed() - meanRed);
+        d = color.getGreen() - meanGreen;
+        meanGreen += d / count;
+        m2Green += d * (color.getGreen() - meanGreen);
+        d = color.getBlue() - meanBlue;
+        meanBlue += d / count;
+        m2Blue += d * (color.getBlue() - meanBlue);
+    }
+
+    /** Amount of the samples
+     * @return amount of the samples */
+    int getCount() {
+        return count;
+    }
+
+    /** The mean color of the samples
+     * @return the mean color, black if there are no samples */
+    Color getMean() {
+        // rounding errors of the mean must not produce a negative component
+        return count == 0 ? Color.BLACK
+                : new Color(Math.max(meanRed, 0), Math.max(meanGreen, 0), Math.max(meanBlue, 0));
+    }
+
+    /** The largest sample variance of the color components
+     * @return the variance, 0 for less than 2 samples */
+    double getVariance() {
+        return count < 2 ? 0 : Math.max(m2Red, Math.max(m2Green, m2Blue)) / (count - 1);
+    }
+
+    /** Checks whether the mean has converged - the standard error of the mean of every color component is not
+     * above the threshold
+     * @param threshold the largest standard error of the mean (of the 0..255 scale)
+     * @return true if the mean has converged, false for less than 2 samples */
+    boolean converged(double threshold) {
+        return count >= 2 && getVariance() / count <= threshold * threshold;
+    }
+}
@@ -0,0 +1,41 @@
+package renderer;
+
+import java.io.Serializable;
+
+/**
+ * Generator of sample points in the unit square, for spreading the rays of a pixel over the pixel
+ * (anti-aliasing) or over the aperture (depth of field).<br/>
+ * The samples depend only on the pixel and the sample index, so an image is rendered the same way
+ * by any amount of threads. Every prefix of the samples of a pixel covers the whole square roughly evenly,
+ * so the sampling of a pixel may stop early.
+ */
+public interface Sampler extends Serializable {
+    /** The pair of dimensions of the position in the pixel */
+    int PIXEL = 0;
+    /** The pair of dimensions of the position on the aperture, independent of the position in the pixel */
+    int LENS = 1;
+
+    /**
+     * Generates a sample point of a pair of dimensions - the samples of different pairs with the same index
+     * are not correlated, so the samples of a pixel may be paired with the samples of the aperture by their index
+     *
+     * @param pixel     the index of the pixel
+     * @param index     the index of the sample in the pixel, from 0 to count - 1
+     * @param count     the amount of the samples in the pixel
+     * @param dimension the pair of dimensions - {@link #PIXEL} or {@link #LENS}
+     * @param point     array of 2 for the coordinates of the sample, each in [0, 1)
+     */
+    void sample(long pixel, int index, int count, int dimension, double[] point);
+
+    /**
+     * Generates a sample point of the position in the pixel ({@link #PIXEL})
+     *
+     * @param pixel the index of the pixel
+     * @param index the index of the sample in the pixel, from 0 to count - 1
+     * @param count the amount of the samples in the pixel
+     * @param point array of 2 for the coordinates of the sample, each in [0, 1)
+     */
+    default void sample(long pixel, int index, int count, double[] point) {
+        sample(pixel, index, count, PIXEL, point);
+    }
+}
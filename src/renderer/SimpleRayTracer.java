@@ -3,17 +3,31 @@ package renderer;
 import geometries.Geometry;
 import geometries.Triangle;
 import lighting.LightSource;
+import lighting.LightTree;
 import primitives.*;
 import scene.Scene;
 import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Hit;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
 
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 public class SimpleRayTracer extends RayTracerBase {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     /**
      * A small delta value used for numerical stability or threshold comparisons.
      */
@@ -30,6 +44,122 @@ public class SimpleRayTracer extends RayTracerBase {
     private static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 INITIAL_K = Double3.ONE;
 
+    /**
+     * A secondary ray of the ray tree waiting to be traced
+     *
+     * @param ray   the ray
+     * @param k     the attenuation of the color of the ray on its way to the camera
+     * @param kMiss the attenuation of the background color if the ray misses the scene
+     * @param level the level of recursion of the ray
+     */
+    private record Segment(Ray ray, Double3 k, Double3 kMiss, int level) {
+    }
+
+    /**
+     * Order of the secondary rays when their amount is limited - the strongest ray first
+     */
+    private static final Comparator<Segment> BY_THROUGHPUT =
+            Comparator.comparingDouble((Segment segment) -> segment.k().max()).reversed();
+
+    /**
+     * The maximal amount of secondary rays for a traced ray, 0 for no limit
+     */
+    private int maxSecondaryRays = 0;
+
+    /**
+     * The working memory of the shading of a thread - the last occluders of the shadow rays
+     * and the lights chosen for a point
+     */
+    private static class ShadowCache {
+        /**
+         * The last geometry which blocked a shadow ray towards every light source (by its index), or null
+         */
+        Geometry[] occluders = new Geometry[0];
+        /**
+         * The version of the scene of the occluders - they are dropped when the scene changes
+         */
+        int version;
+        /**
+         * Hit record for finding the occluder of a shadow ray
+         */
+        final Hit hit = new Hit(0);
+        /**
+         * Indices of the lights chosen for a point
+         */
+        int[] lights = new int[0];
+        /**
+         * Weights of the lights chosen for a point
+         */
+        double[] weights = new double[0];
+        /**
+         * Random numbers for choosing the lights of a point
+         */
+        final ShadingRandom random = new ShadingRandom();
+    }
+
+    /**
+     * Random numbers of a shaded point - hashes of a key of the point and the ray which reached it,
+     * so a rendering chooses the same lights for the same point whatever thread shades it
+     */
+    private static class ShadingRandom implements RandomGenerator {
+        /** The key of the point */
+        private long key;
+        /** The index of the next number */
+        private long index;
+
+        /**
+         * Starts the numbers of a shaded point
+         *
+         * @param point     the point
+         * @param direction the direction of the ray which reached the point
+         * @return the generator
+         */
+        ShadingRandom reset(Point point, Vector direction) {
+            long k = SampleHash.hash(Double.doubleToLongBits(point.getX()), Double.doubleToLongBits(point.getY()));
+            k = SampleHash.hash(k, Double.doubleToLongBits(point.getZ()));
+            k = SampleHash.hash(k, Double.doubleToLongBits(direction.getX()));
+            k = SampleHash.hash(k, Double.doubleToLongBits(direction.getY()));
+            key = SampleHash.hash(k, Double.doubleToLongBits(direction.getZ()));
+            index = 0;
+            return this;
+        }
+
+        @Override
+        public long nextLong() {
+            return SampleHash.hash(key, index++);
+        }
+    }
+
+    /**
+     * The shadow ray caches of the rendering threads (not serialized - a deserialized tracer starts empty caches)
+     */
+    private transient ThreadLocal<ShadowCache> shadowCache = ThreadLocal.withInitial(ShadowCache::new);
+    /**
+     * Whether the last occluder of every light source is tested before traversing the scene
+     */
+    private boolean occluderCache = true;
+    /**
+     * Amount of the shadow rays which were blocked by the last occluder of their light source
+     */
+    private final LongAdder occluderCacheHits = new LongAdder();
+    /**
+     * Amount of the shadow rays which needed a traversal of the scene
+     */
+    private final LongAdder occluderCacheMisses = new LongAdder();
+
+    /**
+     * Whether the lights which cannot contribute noticeably to a point are skipped, by the light hierarchy
+     */
+    private boolean lightCulling = false;
+    /**
+     * The smallest contribution of a light to the color which is not negligible
+     */
+    private double lightThreshold = MIN_CALC_COLOR_K;
+    /**
+     * Amount of the lights chosen at random for every point by their importance, 0 for all the lights
+     */
+    private int lightSamples = 0;
+
     /**
      * Constructor for the SimpleRayTracer
      *
@@ -39,6 +169,111 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Restores a serialized ray tracer - the shadow ray caches are created anew
+     *
+     * @param in the stream of the serialized ray tracer
+     * @throws IOException            if the stream fails
+     * @throws ClassNotFoundException if a class of the scene is unknown
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        shadowCache = ThreadLocal.withInitial(ShadowCache::new);
+    }
+
+    /**
+     * Limits the amount of the secondary (reflected and refracted) rays for every traced ray.
+     * The rays which contribute the most to the color are traced first, and the rest of the ray tree
+     * is dropped when the limit is reached.
+     *
+     * @param maxRays the maximal amount of secondary rays, 0 for no limit
+     * @return the ray tracer
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public SimpleRayTracer setMaxSecondaryRays(int maxRays) {
+        if (maxRays < 0)
+            throw new IllegalArgumentException("ERROR: amount of secondary rays can not be negative");
+        maxSecondaryRays = maxRays;
+        return this;
+    }
+
+    /**
+     * Turns the shadow occluder cache on or off (it is on by default). Every thread keeps the last geometry
+     * which blocked a shadow ray towards every light source, and tests it first for the next shadow ray
+     * towards that light source - a neighbouring point is usually blocked by the same geometry.
+     *
+     * @param occluderCache true for testing the last occluder first
+     * @return the ray tracer
+     */
+    public SimpleRayTracer setOccluderCache(boolean occluderCache) {
+        this.occluderCache = occluderCache;
+        return this;
+    }
+
+    /**
+     * Turns the light culling on or off (it is off by default). The lights are kept in a hierarchy
+     * ({@link LightTree}) and the lights which cannot contribute to the color of a point more than the threshold
+     * are skipped with their shadow rays - a whole group of far or weak lights at once.
+     *
+     * @param lightCulling true for skipping the negligible lights
+     * @return the ray tracer
+     */
+    public SimpleRayTracer setLightCulling(boolean lightCulling) {
+        this.lightCulling = lightCulling;
+        return this;
+    }
+
+    /**
+     * Sets the smallest contribution of a light to the color (of the 0..255 scale) which is not skipped
+     * by the light culling
+     *
+     * @param threshold the smallest contribution which is not negligible
+     * @return the ray tracer
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public SimpleRayTracer setLightThreshold(double threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("ERROR: light threshold can not be negative");
+        lightThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the amount of the positioned lights (point lights and spot lights) which are chosen at random for
+     * every point, by their importance - the cost of a point does not grow with the amount of the lights, for
+     * a noisy estimate of their sum. The choice depends only on the point and the ray which reached it, so
+     * a rendering is reproducible. The light culling is turned on as well.
+     *
+     * @param samples the amount of the chosen lights, 0 for all the lights
+     * @return the ray tracer
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public SimpleRayTracer setLightSamples(int samples) {
+        if (samples < 0)
+            throw new IllegalArgumentException("ERROR: amount of light samples can not be negative");
+        lightSamples = samples;
+        if (samples > 0) lightCulling = true;
+        return this;
+    }
+
+    /**
+     * Amount of the shadow rays which were blocked by the cached occluder of their light source
+     *
+     * @return amount of the cache hits
+     */
+    public long getOccluderCacheHits() {
+        return occluderCacheHits.sum();
+    }
+
+    /**
+     * Amount of the shadow rays which needed a traversal of the scene
+     *
+     * @return amount of the cache misses
+     */
+    public long getOccluderCacheMisses() {
+        return occluderCacheMisses.sum();
+    }
+
     /**
      * Trace a ray in the scene
      *
@@ -114,66 +349,154 @@ public class SimpleRayTracer extends RayTracerBase {
         if (nv == 0) return color;
 
         //add the diffusive and specular effects for each light source in the scene
+        if (lightCulling) return color.add(calcCulledLightEffects(gp, n, v, nv, mat, k));
+        int light = -1;
         for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
-            double nl = alignZero(n.dotProduct(l));
-            if (alignZero(nl * nv) > 0) { //
-                //sign(nl) == sign(nv)
-                Double3 ktr = transparency(gp, lightSource, l, n);
-                if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(mat, nl < 0 ? -nl : nl)), iL.scale((calcSpecular(mat, n, l, nl, v))));
-                }
-            }
+            ++light;
+            color = color.add(calcLightEffects(gp, lightSource, light, n, v, nv, mat, k));
         }
         return color;
     }
 
+    /**
+     * Calculate the local effects of the lights which may contribute to the color of a point - the lights
+     * are culled or sampled by the light hierarchy of the scene.
+     *
+     * @param gp  the geo point where the effects are calculated
+     * @param n   the normal vector at the point
+     * @param v   the direction of the ray
+     * @param nv  the dot product between the normal and the ray direction
+     * @param mat the material of the geometry
+     * @param k   the transparency factor
+     * @return the color of the lights at the point
+     */
+    private Color calcCulledLightEffects(GeoPoint gp, Vector n, Vector v, double nv, Material mat, Double3 k) {
+        // a light contributes at most its intensity, scaled by the material and the attenuation of the ray
+        double reflectance = mat.kD.max() + mat.kS.max();
+        double scale = k.max() * reflectance;
+        if (scale <= 0) return Color.BLACK;
+        double threshold = lightThreshold / scale;
+
+        LightTree tree = scene.getLightTree();
+        ShadowCache cache = shadowCache.get();
+        if (cache.lights.length < tree.size() + lightSamples) {
+            cache.lights = new int[tree.size() + lightSamples];
+            cache.weights = new double[tree.size() + lightSamples];
+        }
+        int count;
+        if (lightSamples == 0) {
+            count = tree.cull(gp.point, threshold, cache.lights);
+            Arrays.fill(cache.weights, 0, count, 1);
+        } else
+            count = tree.sample(gp.point, threshold, lightSamples, cache.random.reset(gp.point, v),
+                    cache.lights, cache.weights);
+
+        Color color = Color.BLACK;
+        for (int i = 0; i < count; ++i) {
+            int light = cache.lights[i];
+            double weight = cache.weights[i];
+            Color effect = calcLightEffects(gp, tree.get(light), light, n, v, nv, mat, k);
+            color = color.add(weight == 1 ? effect : effect.scale(weight));
+        }
+        return color;
+    }
+
+    /**
+     * Calculate the local effects (diffusive and specular reflection) of a light source at a given point.
+     *
+     * @param gp          the geo point where the effects are calculated
+     * @param lightSource the light source
+     * @param light       the index of the light source in the scene
+     * @param n           the normal vector at the point
+     * @param v           the direction of the ray
+     * @param nv          the dot product between the normal and the ray direction
+     * @param mat         the material of the geometry
+     * @param k           the transparency factor
+     * @return the color of the light at the point
+     */
+    private Color calcLightEffects(GeoPoint gp, LightSource lightSource, int light, Vector n, Vector v, double nv,
+                                   Material mat, Double3 k) {
+        // no shadow ray towards a light which does not reach the point
+        if (!lightSource.illuminates(gp.point)) return Color.BLACK;
+        Vector l = lightSource.getL(gp.point);
+        double nl = alignZero(n.dotProduct(l));
+        if (alignZero(nl * nv) > 0) { //
+            //sign(nl) == sign(nv)
+            Double3 ktr = transparency(gp, lightSource, light, l, n);
+            if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
+                Color iL = lightSource.getIntensity(gp.point).scale(ktr);
+                return iL.scale(calcDiffusive(mat, nl < 0 ? -nl : nl)).add(iL.scale((calcSpecular(mat, n, l, nl, v))));
+            }
+        }
+        return Color.BLACK;
+    }
+
 
     /**
      * Calculate the color intensity at the closest intersection point.
+     * The ray tree of the reflections and refractions is evaluated iteratively: the secondary rays wait
+     * in a work list with their attenuation, so the stack depth does not depend on the tree. Without a limit
+     * of the secondary rays the list is a stack (at most two rays per level); with a limit it is ordered
+     * by the attenuation, and it never holds more than twice the limit.
      *
      * @param gp  the closest geo point of intersection
      * @param ray the ray that intersects the point
      * @return the color intensity at the closest intersection point
      */
     private Color calcColor(GeoPoint gp, Ray ray) {
-        return calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K).add(scene.ambientLight.getIntensity());
-
+        Queue<Segment> segments = maxSecondaryRays == 0
+                ? Collections.asLifoQueue(new ArrayDeque<>())
+                : new PriorityQueue<>(BY_THROUGHPUT);
+        Color color = calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K, segments);
+        int secondaryRays = 0;
+        Segment segment;
+        while ((maxSecondaryRays == 0 || secondaryRays < maxSecondaryRays) && (segment = segments.poll()) != null) {
+            ++secondaryRays;
+            GeoPoint next = findClosestIntersection(segment.ray());
+            color = color.add(next == null
+                    ? scene.background.scale(segment.kMiss())
+                    : calcColor(next, segment.ray(), segment.level(), segment.k(), segments));
+        }
+        return color.add(scene.ambientLight.getIntensity());
     }
 
     /**
-     * Calculate the color intensity at the closest intersection point.
+     * Calculate the attenuated color intensity of the local effects at an intersection point, and add
+     * the secondary rays of the point to the work list.
      *
-     * @param gp    the closest geo point of intersection
-     * @param ray   the ray that intersects the point
-     * @param level the level of recursion
-     * @param k     the transparency factor
-     * @return the color intensity at the closest intersection point
+     * @param gp       the geo point of intersection
+     * @param ray      the ray that intersects the point
+     * @param level    the level of recursion
+     * @param k        the attenuation of the color on its way to the camera
+     * @param segments the work list of the secondary rays
+     * @return the attenuated color intensity of the local effects
      */
-    private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(gp, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(gp, ray, level, k));
+    private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k, Queue<Segment> segments) {
+        Color color = calcLocalEffects(gp, ray, k).scale(k);
+        if (level > 1) {
+            Vector v = ray.getDirection();
+            Vector n = gp.geometry.getNormal(gp.point);
+            Material material = gp.geometry.getMaterial();
+            addSegment(segments, constructRefractedRay(gp.point, n, v), level, k, material.kT);
+            addSegment(segments, constructReflectedRay(gp.point, n, v), level, k, material.kR);
+        }
+        return color;
     }
 
-
-
-
     /**
-     * Calculate the global effects (reflections and refractions) at a given point.
+     * Add a secondary ray to the work list, unless its contribution is negligible.
+     * A ray which misses the scene contributes the background with the attenuation of its origin.
      *
-     * @param gp    the geo point where the effects are calculated
-     * @param ray   the ray that intersects the point
-     * @param level the level of recursion
-     * @param k     the transparency factor
-     * @return the color at the point considering global effects
+     * @param segments the work list of the secondary rays
+     * @param ray      the secondary ray, or null if there is no such ray
+     * @param level    the level of recursion of the origin of the ray
+     * @param k        the attenuation of the color of the origin of the ray
+     * @param kx       the reflection/refraction factor
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Vector v = ray.getDirection();
-        Vector n = gp.geometry.getNormal(gp.point);
-        Material material = gp.geometry.getMaterial();
-        return calcGlobalEffects(constructRefractedRay(gp.point, n, v), level,k, material.kT)
-                .add(calcGlobalEffects(constructReflectedRay(gp.point, n, v), level,k, material.kR));
+    private static void addSegment(Queue<Segment> segments, Ray ray, int level, Double3 k, Double3 kx) {
+        Double3 kkx = k.product(kx);
+        if (ray != null && !kkx.lowerThan(MIN_CALC_COLOR_K))
+            segments.add(new Segment(ray, kkx, k, level - 1));
     }
 
 
@@ -207,23 +530,6 @@ public class SimpleRayTracer extends RayTracerBase {
     }
 
 
-    /**
-     * Calculate the global effects (reflections and refractions) at a given point.
-     *
-     * @param ray   the ray that intersects the point
-     * @param level the level of recursion
-     * @param k     the transparency factor
-     * @param kx    the reflection/refraction factor
-     * @return the color at the point considering global effects
-     */
-    private Color calcGlobalEffects(Ray ray, int level, Double3 k, Double3 kx) {
-        Double3 kkx = k.product(kx);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
-        GeoPoint gp = findClosestIntersection(ray);
-        return gp == null ? scene.background : calcColor(gp, ray, level - 1, kkx).scale(kx);
-
-    }
-
     /**
      * Find the closest intersection point of a ray with the scene.
      *
@@ -231,77 +537,75 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the closest intersection point
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersection ;
-        if(!(scene.BVHON))
-            intersection=scene.geometries.findGeoIntersections(ray);
-        else
-            intersection=scene.geometries.findIntersectBoundingRegion(ray,Double.POSITIVE_INFINITY);
-        if (intersection == null||intersection.size()==0)
-            return null;
-        return ray.findClosestGeoPoint(intersection);
-
-
+        if(scene.FLATBVHON)
+            return scene.getFlatBvh().findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true);
+        return scene.geometries.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, scene.BVHON);
     }
 
 
     /**
      * Check if the point is shaded
      *
-     * @param gp the point to check
-     * @param l  the light vector
-     * @param n  the normal vector
+     * @param gp    the point to check
+     * @param ls    the light source
+     * @param light the index of the light source in the scene
+     * @param l     the light vector
+     * @param n     the normal vector
      * @return true if the point is shaded, false otherwise
      */
-    private boolean unshaded(GeoPoint gp, LightSource ls, Vector l, Vector n) {
-        Vector lightDirection = l.scale(-1);
-        Ray lightRay = new Ray(gp.point, n, lightDirection);
-        Material mat = gp.geometry.getMaterial();
-
-
-        var intersections = scene.geometries.findGeoIntersections(lightRay, ls.getDistance(gp.point));
-
-
-
-        if (intersections == null)
-            return true;
-        if (gp.geometry instanceof Triangle)
-            intersections.remove(gp);
-
-
-        return intersections.isEmpty();
-
+    private boolean unshaded(GeoPoint gp, LightSource ls, int light, Vector l, Vector n) {
+        return transparency(gp, ls, light, l, n).equals(Double3.ONE);
     }
 
 
     /**
      * Calculate the transparency factor of a point.
      *
-     * @param gp the point to calculate the transparency factor
-     * @param ls the light source
-     * @param l  the light vector
-     * @param n  the normal vector
+     * The last occluder of the light source is tested first: if it still blocks the light by itself,
+     * the scene is not traversed. The occluders are dropped whenever the scene changes
+     * ({@link Scene#changed()}), so a geometry which was removed from the scene casts no shadow.
+     *
+     * @param gp    the point to calculate the transparency factor
+     * @param ls    the light source
+     * @param light the index of the light source in the scene
+     * @param l     the light vector
+     * @param n     the normal vector
      * @return the transparency factor of the point
      */
-    private Double3 transparency(GeoPoint gp, LightSource ls, Vector l, Vector n) {
+    private Double3 transparency(GeoPoint gp, LightSource ls, int light, Vector l, Vector n) {
 
         Vector lightDirection = l.scale(-1); // from point to light source
         Ray lightRay = new Ray(gp.point, n, lightDirection); //build ray with delta
 
         double lightDistance = ls.getDistance(gp.point);
-        List<GeoPoint> intersections;
-        if(!(scene.BVHON))
-            intersections=scene.geometries.findGeoIntersections(lightRay, lightDistance);
-        else
-            intersections=scene.geometries.findIntersectBoundingRegion(lightRay,lightDistance);
-
-        if (intersections == null||intersections.size()==0)
-            return Double3.ONE; //no intersections
-        Double3 ktr = Double3.ONE;
-        for (GeoPoint geopoint : intersections) {
-            ktr = ktr.product(geopoint.geometry.getMaterial().kT); //the more transparency the less shadow
-             if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
+        Hit occluder = null;
+        ShadowCache cache = null;
+        if (occluderCache) {
+            cache = shadowCache.get();
+            int version = scene.getVersion();
+            if (cache.version != version) {
+                Arrays.fill(cache.occluders, null);
+                cache.version = version;
+            }
+            if (cache.occluders.length <= light) cache.occluders = new Geometry[scene.lights.size()];
+            Geometry last = cache.occluders[light];
+            if (last != null && last.findTransparency(lightRay, lightDistance, true, MIN_CALC_COLOR_K, null)
+                    .equals(Double3.ZERO)) {
+                occluderCacheHits.increment();
+                return Double3.ZERO;
+            }
+            occluderCacheMisses.increment();
+            occluder = cache.hit;
+            occluder.geometry = null;
         }
-        return ktr;
+        Double3 ktr;
+        if(scene.FLATBVHON)
+            ktr=scene.getFlatBvh().findTransparency(lightRay, lightDistance, true, MIN_CALC_COLOR_K, occluder);
+        else
+            ktr=scene.geometries.findTransparency(lightRay, lightDistance, scene.BVHON, MIN_CALC_COLOR_K,
+                    occluder);
+        if (cache != null && occluder.geometry != null) cache.occluders[light] = occluder.geometry;
+        return ktr.lowerThan(MIN_CALC_COLOR_K) ? Double3.ZERO : ktr;
     }
 }
 
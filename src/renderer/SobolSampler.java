@@ -0,0 +1,93 @@
+package renderer;
+
+/**
+ * Sobol sequence sampler with Owen scrambling - the first two dimensions of the Sobol sequence for the pixel
+ * (a (0,2)-sequence: every 2^k first samples fill every elementary interval of area 2^-k exactly once),
+ * and the next two dimensions for the aperture, with the digits of every pixel scrambled by a hash
+ * (Laine-Karras), which keeps that stratification while decorrelating the pixels.
+ */
+public class SobolSampler implements Sampler {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Direction numbers of the dimensions after the first one, by their primitive polynomials
+     * x + 1, x^2 + x + 1 and x^3 + x + 1 (Joe and Kuo)
+     */
+    private static final int[][] DIRECTIONS = {
+            directions(1, 0, 1),
+            directions(2, 1, 1, 3),
+            directions(3, 1, 1, 3, 1)
+    };
+
+    /**
+     * Builds the direction numbers of a dimension
+     *
+     * @param degree     the degree of the primitive polynomial
+     * @param polynomial the inner coefficients of the polynomial as bits, the highest first
+     * @param initial    the initial direction numbers, one for every degree
+     * @return the direction numbers as 32 bit binary fractions
+     */
+    private static int[] directions(int degree, int polynomial, int... initial) {
+        int[] directions = new int[32];
+        for (int i = 0; i < degree; ++i)
+            directions[i] = initial[i] << (31 - i);
+        for (int i = degree; i < 32; ++i) {
+            directions[i] = directions[i - degree] ^ (directions[i - degree] >>> degree);
+            for (int k = 1; k < degree; ++k)
+                if ((polynomial >>> (degree - 1 - k) & 1) != 0) directions[i] ^= directions[i - k];
+        }
+        return directions;
+    }
+
+    @Override
+    public void sample(long pixel, int index, int count, int dimension, double[] point) {
+        long hash = SampleHash.hash(pixel, dimension);
+        int first = dimension == PIXEL ? Integer.reverse(index) : dimension(index, 2 * dimension);
+        point[0] = toUnit(scramble(first, (int) hash));
+        point[1] = toUnit(scramble(dimension(index, 2 * dimension + 1), (int) (hash >>> 32)));
+    }
+
+    /**
+     * A dimension of the Sobol sequence after the first one
+     *
+     * @param index     the index of the sample
+     * @param dimension the dimension, from 1
+     * @return the coordinate as a 32 bit binary fraction
+     */
+    private static int dimension(int index, int dimension) {
+        int[] directions = DIRECTIONS[dimension - 1];
+        int result = 0;
+        for (int bit = 0; index != 0; index >>>= 1, ++bit)
+            if ((index & 1) != 0) result ^= directions[bit];
+        return result;
+    }
+
+    /**
+     * Owen scrambling of a binary fraction by the Laine-Karras hash - every digit is flipped or not
+     * by the digits above it
+     *
+     * @param x    the binary fraction
+     * @param seed the seed of the scrambling
+     * @return the scrambled fraction
+     */
+    private static int scramble(int x, int seed) {
+        x = Integer.reverse(x);
+        x += seed;
+        x ^= x * 0x6c50b47c;
+        x ^= x * 0xb82f1e52;
+        x ^= x * 0xc7afe638;
+        x ^= x * 0x8d22f6e6;
+        return Integer.reverse(x);
+    }
+
+    /**
+     * Converts a 32 bit binary fraction into a number in [0, 1)
+     *
+     * @param x the binary fraction
+     * @return the number
+     */
+    private static double toUnit(int x) {
+        return (x >>> 8) * 0x1.0p-24;
+    }
+}
@@ -0,0 +1,103 @@
+package renderer;
+
+/**
+ * Jittered stratified sampler - the unit square is divided into exactly as many cells as samples, and every
+ * sample lies in a cell of its own at a random position. The cells form rows of equal height; when the amount
+ * of the samples is not a square, some rows have one cell more than the others and their cells are narrower,
+ * so no part of the square is left without a sample.<br/>
+ * The cells are visited in a scrambled order (a stride of about the golden ratio of the cells), so the first
+ * samples are spread over the whole square rather than over its first rows. The aperture visits its cells
+ * in a random order of every pixel, so the sample of the pixel says nothing about the sample of the aperture.
+ */
+public class StratifiedSampler implements Sampler {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void sample(long pixel, int index, int count, int dimension, double[] point) {
+        // the keys of the permutations are negative, apart from the keys of the jitters
+        if (dimension != PIXEL) index = permute(index, count, (int) SampleHash.hash(pixel, -dimension));
+        int rows = (int) Math.sqrt(count);
+        int columns = count / rows;
+        // the first rows have a cell more
+        int wide = count % rows;
+        int cell = (int) ((long) index * stride(count) % count);
+        int row, column;
+        if (cell < wide * (columns + 1)) {
+            row = cell / (columns + 1);
+            column = cell % (columns + 1);
+            ++columns;
+        } else {
+            cell -= wide * (columns + 1);
+            row = wide + cell / columns;
+            column = cell % columns;
+        }
+        long hash = SampleHash.hash(pixel, index + ((long) dimension << 32));
+        point[0] = (column + SampleHash.unit(hash)) / columns;
+        point[1] = (row + SampleHash.unit(SampleHash.mix(hash))) / rows;
+    }
+
+    /**
+     * Finds the stride of the visiting order - the closest number above the golden ratio of the cells
+     * which has no common divisor with the amount of the cells
+     *
+     * @param count the amount of the cells
+     * @return the stride
+     */
+    private static int stride(int count) {
+        int stride = (int) (count * 0.6180339887498949);
+        while (gcd(stride, count) != 1) ++stride;
+        return stride;
+    }
+
+    /**
+     * Random permutation of the numbers below a bound - a hash of the number, repeated until it falls
+     * below the bound (Kensler, Correlated Multi-Jittered Sampling)
+     *
+     * @param index the number
+     * @param count the bound
+     * @param seed  the seed which selects the permutation
+     * @return the permuted number
+     */
+    private static int permute(int index, int count, int seed) {
+        if (count == 1) return 0;
+        int mask = -1 >>> Integer.numberOfLeadingZeros(count - 1);
+        do {
+            index ^= seed;
+            index *= 0xe170893d;
+            index ^= seed >>> 16;
+            index ^= (index & mask) >>> 4;
+            index ^= seed >>> 8;
+            index *= 0x0929eb3f;
+            index ^= seed >>> 23;
+            index ^= (index & mask) >>> 1;
+            index *= 1 | seed >>> 27;
+            index *= 0x6935fa69;
+            index ^= (index & mask) >>> 11;
+            index *= 0x74dcb303;
+            index ^= (index & mask) >>> 2;
+            index *= 0x9e501cc3;
+            index ^= (index & mask) >>> 2;
+            index *= 0xc860a3df;
+            index &= mask;
+            index ^= index >>> 5;
+        } while (Integer.compareUnsigned(index, count) >= 0);
+        return Integer.remainderUnsigned(index + seed, count);
+    }
+
+    /**
+     * Greatest common divisor
+     *
+     * @param a the first number
+     * @param b the second number
+     * @return the greatest common divisor
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,156 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** TileManager is a helper class. It is used for multi-threading in the
+ * renderer and for following up its progress.<br/>
+ * The image is divided into square tiles which are handed out to the threads
+ * by a lock-free counter, so a thread renders a whole neighbourhood of pixels
+ * at a time and the threads never wait for each other.<br/>
+ * The finished tiles are recorded, so a checkpoint of the rendering knows which
+ * tiles are complete, and a resumed rendering skips them. */
+class TileManager {
+    /** Immutable class for a tile - the pixel columns [x0, x1) and the pixel rows [y0, y1)
+     * @param x0 the first column
+     * @param y0 the first row
+     * @param x1 the column after the last one
+     * @param y1 the row after the last one */
+    record Tile(int x0, int y0, int x1, int y1) {
+        /** Amount of pixels in the tile
+         * @return amount of pixels */
+        int pixels() {
+            return (x1 - x0) * (y1 - y0);
+        }
+    }
+
+    /** Default tile size in pixels */
+    static final int DEFAULT_TILE_SIZE = 16;
+
+    /** Maximum rows of pixels */
+    private final int maxRows;
+    /** Maximum columns of pixels */
+    private final int maxCols;
+    /** Tile size in pixels */
+    private final int tileSize;
+    /** Amount of tiles in a row of tiles */
+    private final int tilesX;
+    /** Total amount of tiles */
+    private final int totalTiles;
+    /** Total amount of pixels in the generated image */
+    private final long totalPixels;
+
+    /** Flags of the finished tiles - 1 for a finished tile */
+    private final AtomicIntegerArray finished;
+    /** Index of the next tile to be handed out */
+    private final AtomicInteger nextTile = new AtomicInteger();
+    /** Amount of pixels that have been processed */
+    private final AtomicLong pixels = new AtomicLong();
+    /** Last printed progress update (in per mille) */
+    private final AtomicInteger lastPrinted = new AtomicInteger();
+    /** Flag of a cancelled rendering - no more tiles are handed out */
+    private volatile boolean cancelled = false;
+
+    /** Flag of debug printing of progress percentage */
+    private final boolean print;
+    /** Progress percentage printing interval (in per mille) */
+    private final int printInterval;
+    /** Printing format */
+    private static final String PRINT_FORMAT = "%5.1f%%\r";
+
+    /** Initialize tile manager data for multi-threading
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param tileSize the tile size in pixels
+     * @param interval print time interval in seconds, 0 if printing is not
+     *                 required */
+    TileManager(int maxRows, int maxCols, int tileSize, double interval) {
+        this.maxRows  = maxRows;
+        this.maxCols  = maxCols;
+        this.tileSize = tileSize;
+        tilesX        = (maxCols + tileSize - 1) / tileSize;
+        totalTiles    = tilesX * ((maxRows + tileSize - 1) / tileSize);
+        totalPixels   = (long) maxRows * maxCols;
+        finished      = new AtomicIntegerArray(totalTiles);
+        printInterval = (int) (interval * 10);
+        if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
+    }
+
+    /** Hands out the next tile to be rendered - thread-safe without locking
+     * @return the next tile, or null if there are no more tiles or the rendering was cancelled */
+    Tile nextTile() {
+        if (cancelled) return null;
+        int index;
+        do {
+            index = nextTile.getAndIncrement();
+            if (index >= totalTiles) return null;
+        } while (finished.get(index) != 0);
+        return getTile(index);
+    }
+
+    /** Gets a tile by its index
+     * @param index the index of the tile, row of tiles by row of tiles
+     * @return the tile */
+    Tile getTile(int index) {
+        int x0 = (index % tilesX) * tileSize;
+        int y0 = (index / tilesX) * tileSize;
+        return new Tile(x0, y0, Math.min(x0 + tileSize, maxCols), Math.min(y0 + tileSize, maxRows));
+    }
+
+    /** Total amount of tiles
+     * @return amount of tiles */
+    int getTileCount() {
+        return totalTiles;
+    }
+
+    /** Tile size in pixels
+     * @return the tile size */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /** Checks whether a tile is finished. A finished tile is recorded only after all its pixels were written,
+     * so the pixels of a tile which is seen finished are seen complete
+     * @param index the index of the tile
+     * @return true if the tile is finished */
+    boolean isFinished(int index) {
+        return finished.get(index) != 0;
+    }
+
+    /** Records a tile finished by an earlier rendering - it is not handed out
+     * @param index the index of the tile */
+    void restoreTile(int index) {
+        if (finished.getAndSet(index, 1) == 0) pixels.addAndGet(getTile(index).pixels());
+    }
+
+    /** Finish tile processing by updating and printing of progress percentage
+     * @param tile the rendered tile */
+    void tileDone(Tile tile) {
+        finished.set((tile.y0() / tileSize) * tilesX + tile.x0() / tileSize, 1);
+        long done = pixels.addAndGet(tile.pixels());
+        if (!print) return;
+        int percentage = (int) (1000L * done / totalPixels);
+        int last = lastPrinted.get();
+        // only the thread which moves the last printed value prints it
+        if (percentage - last >= printInterval && lastPrinted.compareAndSet(last, percentage))
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
+    }
+
+    /** Amount of pixels that have been processed
+     * @return amount of pixels */
+    long getPixelsDone() {
+        return pixels.get();
+    }
+
+    /** Cancels the rendering - the threads stop after their current tiles */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /** Checks whether the rendering was cancelled
+     * @return true if the rendering was cancelled */
+    boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,772 @@
+package scene;
+
+import geometries.Mesh;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads triangle meshes from Wavefront OBJ files (with their MTL material libraries) and from PLY files
+ * (ASCII or binary). The files are memory-mapped and tokenized byte by byte - the coordinates go straight
+ * into flat arrays without any intermediate objects.
+ * <p>
+ * An OBJ file gives a mesh for every material it uses; all of them share one vertex buffer.
+ * Polygonal faces are split into triangle fans.
+ */
+public final class MeshLoader {
+    /** PLY scalar types */
+    private static final int INT8 = 0, UINT8 = 1, INT16 = 2, UINT16 = 3, INT32 = 4, UINT32 = 5, FLOAT32 = 6,
+            FLOAT64 = 7;
+
+    /**
+     * No instances - all the methods are static
+     */
+    private MeshLoader() {
+    }
+
+    /**
+     * Loads the meshes of a file and adds them to the geometries of a scene
+     *
+     * @param path  the OBJ or PLY file
+     * @param scene the scene
+     * @return the loaded meshes
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static List<Mesh> load(Path path, Scene scene) throws IOException {
+        List<Mesh> meshes = load(path);
+        scene.geometries.add(meshes.toArray(new Mesh[0]));
+        return meshes;
+    }
+
+    /**
+     * Loads the meshes of a file by its extension
+     *
+     * @param path the OBJ or PLY file
+     * @return the loaded meshes
+     * @throws IOException if the file cannot be read, is malformed or has an unknown extension
+     */
+    public static List<Mesh> load(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".obj")) return loadObj(path);
+        if (name.endsWith(".ply")) return List.of(loadPly(path));
+        throw new IOException("Unknown mesh file type: " + path);
+    }
+
+    // ***************** OBJ ********************** //
+
+    /**
+     * Loads the meshes of a Wavefront OBJ file - a mesh for every material
+     *
+     * @param path the OBJ file
+     * @return the loaded meshes
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static List<Mesh> loadObj(Path path) throws IOException {
+        Tokens tokens = new Tokens(map(path), path);
+        DoubleArray vertices = new DoubleArray();
+        DoubleArray normals = new DoubleArray();
+        DoubleArray vertexNormals = null;
+        Map<String, Material> materials = new HashMap<>();
+        Map<String, Color> emissions = new HashMap<>();
+        Map<String, IntArray> groups = new LinkedHashMap<>();
+        IntArray faces = new IntArray();
+        groups.put("", faces);
+        IntArray polygon = new IntArray();
+        IntArray polygonNormals = new IntArray();
+
+        do {
+            if (!tokens.next()) continue;
+            if (tokens.is("v")) {
+                vertices.add(tokens.nextNumber());
+                vertices.add(tokens.nextNumber());
+                vertices.add(tokens.nextNumber());
+            } else if (tokens.is("vn")) {
+                normals.add(tokens.nextNumber());
+                normals.add(tokens.nextNumber());
+                normals.add(tokens.nextNumber());
+            } else if (tokens.is("f")) {
+                int vertexCount = vertices.size / 3, normalCount = normals.size / 3;
+                polygon.size = polygonNormals.size = 0;
+                while (tokens.next()) {
+                    polygon.add(objIndex(tokens, tokens.integer(), vertexCount));
+                    int normal = -1;
+                    if (tokens.skip('/')) {
+                        if (!tokens.skip('/')) {
+                            tokens.integer(); // texture coordinates are not used
+                            tokens.skip('/');
+                        }
+                        if (!tokens.atTokenEnd()) normal = objIndex(tokens, tokens.integer(), normalCount);
+                    }
+                    polygonNormals.add(normal);
+                }
+                if (polygon.size < 3) throw tokens.error("A face must have at least 3 vertices");
+                for (int i = 1; i < polygon.size - 1; ++i) {
+                    faces.add(polygon.data[0]);
+                    faces.add(polygon.data[i]);
+                    faces.add(polygon.data[i + 1]);
+                }
+                // the normals of the faces are accumulated by their vertices
+                for (int i = 0; i < polygon.size; ++i) {
+                    int normal = polygonNormals.data[i];
+                    if (normal < 0) continue;
+                    if (vertexNormals == null) vertexNormals = new DoubleArray();
+                    vertexNormals.ensureSize(vertexCount * 3);
+                    for (int axis = 0; axis < 3; ++axis)
+                        vertexNormals.data[polygon.data[i] * 3 + axis] += normals.data[normal * 3 + axis];
+                }
+            } else if (tokens.is("usemtl")) {
+                String material = tokens.next() ? tokens.rest() : "";
+                faces = groups.computeIfAbsent(material, k -> new IntArray());
+            } else if (tokens.is("mtllib")) {
+                if (tokens.next())
+                    loadMtl(path.resolveSibling(tokens.rest()), materials, emissions);
+            }
+            // other statements (texture coordinates, groups, smoothing) are not used
+        } while (tokens.nextLine());
+
+        double[] vertexArray = vertices.toArray();
+        double[] normalArray = null;
+        if (vertexNormals != null) {
+            vertexNormals.ensureSize(vertexArray.length);
+            normalArray = vertexNormals.toArray();
+        }
+        List<Mesh> meshes = new ArrayList<>();
+        for (Map.Entry<String, IntArray> group : groups.entrySet()) {
+            if (group.getValue().size == 0) continue;
+            Mesh mesh = new Mesh(vertexArray, group.getValue().toArray(), normalArray);
+            Material material = materials.get(group.getKey());
+            if (material != null) mesh.setMaterial(material);
+            Color emission = emissions.get(group.getKey());
+            if (emission != null) mesh.setEmission(emission);
+            meshes.add(mesh);
+        }
+        return meshes;
+    }
+
+    /**
+     * Converts an OBJ index (1-based, or negative relative to the end) into an array index
+     *
+     * @param tokens the tokenizer (for the error report)
+     * @param index  the OBJ index
+     * @param count  the amount of the elements so far
+     * @return the array index
+     * @throws IOException if the index refers to a missing element
+     */
+    private static int objIndex(Tokens tokens, int index, int count) throws IOException {
+        int result = index < 0 ? count + index : index - 1;
+        if (result < 0 || result >= count) throw tokens.error("Index out of range: " + index);
+        return result;
+    }
+
+    /**
+     * Loads the materials of an MTL file. The colors are mapped onto the material coefficients:
+     * Kd to kD, Ks to kS, Ns to the shininess, the dissolve d (or the transparency Tr) to kT,
+     * and Ke to the emission (scaled to the 0-255 range of the colors)
+     *
+     * @param path      the MTL file
+     * @param materials the materials by their names
+     * @param emissions the emissions by the material names
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    private static void loadMtl(Path path, Map<String, Material> materials, Map<String, Color> emissions)
+            throws IOException {
+        Tokens tokens = new Tokens(map(path), path);
+        String name = null;
+        Material material = null;
+        do {
+            if (!tokens.next()) continue;
+            if (tokens.is("newmtl")) {
+                name = tokens.next() ? tokens.rest() : "";
+                material = new Material();
+                materials.put(name, material);
+            } else if (material == null) {
+                continue;
+            } else if (tokens.is("Kd")) {
+                material.setKd(tokens.triple());
+            } else if (tokens.is("Ks")) {
+                material.setKs(tokens.triple());
+            } else if (tokens.is("Ns")) {
+                material.setShininess((int) Math.round(tokens.nextNumber()));
+            } else if (tokens.is("d")) {
+                material.setKt(1 - tokens.nextNumber());
+            } else if (tokens.is("Tr")) {
+                material.setKt(tokens.nextNumber());
+            } else if (tokens.is("Ke")) {
+                Double3 ke = tokens.triple();
+                if (!ke.equals(Double3.ZERO))
+                    emissions.put(name, new Color(255, 255, 255).scale(ke));
+            }
+        } while (tokens.nextLine());
+    }
+
+    // ***************** PLY ********************** //
+
+    /**
+     * A property of a PLY element
+     *
+     * @param name      the property name
+     * @param type      the scalar type (of the list items for a list)
+     * @param countType the type of the list length, or -1 for a scalar
+     */
+    private record Property(String name, int type, int countType) {
+    }
+
+    /**
+     * An element of a PLY file
+     *
+     * @param name       the element name
+     * @param count      amount of the element instances
+     * @param properties the properties of every instance
+     */
+    private record Element(String name, int count, List<Property> properties) {
+    }
+
+    /**
+     * Loads the mesh of a PLY file (ASCII or binary). Vertex normals (nx, ny, nz) are used if there are any,
+     * and all other properties and elements are skipped.
+     *
+     * @param path the PLY file
+     * @return the loaded mesh
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static Mesh loadPly(Path path) throws IOException {
+        ByteBuffer buffer = map(path);
+        Tokens tokens = new Tokens(buffer, path);
+        if (!tokens.next() || !tokens.is("ply")) throw tokens.error("Not a PLY file");
+
+        String format = null;
+        List<Element> elements = new ArrayList<>();
+        while (true) {
+            if (!tokens.nextLine()) throw tokens.error("Missing end_header");
+            if (!tokens.next()) continue;
+            if (tokens.is("end_header")) break;
+            if (tokens.is("format")) {
+                tokens.next();
+                format = tokens.text();
+            } else if (tokens.is("element")) {
+                tokens.next();
+                String name = tokens.text();
+                tokens.next();
+                elements.add(new Element(name, tokens.integer(), new ArrayList<>()));
+            } else if (tokens.is("property")) {
+                if (elements.isEmpty()) throw tokens.error("A property out of an element");
+                tokens.next();
+                Property property;
+                if (tokens.is("list")) {
+                    tokens.next();
+                    int countType = plyType(tokens);
+                    tokens.next();
+                    int type = plyType(tokens);
+                    tokens.next();
+                    property = new Property(tokens.text(), type, countType);
+                } else {
+                    int type = plyType(tokens);
+                    tokens.next();
+                    property = new Property(tokens.text(), type, -1);
+                }
+                elements.get(elements.size() - 1).properties().add(property);
+            }
+            // comments and obj_info are skipped
+        }
+        tokens.nextLine();
+
+        boolean ascii = "ascii".equals(format);
+        if (!ascii && !"binary_little_endian".equals(format) && !"binary_big_endian".equals(format))
+            throw tokens.error("Unknown PLY format: " + format);
+        buffer.order("binary_big_endian".equals(format) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        buffer.position(tokens.position);
+
+        double[] vertices = null;
+        double[] normals = null;
+        IntArray faces = new IntArray();
+        for (Element element : elements) {
+            List<Property> properties = element.properties();
+            int size = properties.size();
+            if (element.name().equals("vertex")) {
+                // the array slot of every property - 0..2 for the coordinates, 3..5 for the normal
+                int[] slots = new int[size];
+                boolean hasNormals = false;
+                for (int p = 0; p < size; ++p) {
+                    slots[p] = List.of("x", "y", "z", "nx", "ny", "nz").indexOf(properties.get(p).name());
+                    hasNormals |= slots[p] >= 3;
+                }
+                vertices = new double[element.count() * 3];
+                if (hasNormals) normals = new double[element.count() * 3];
+                for (int v = 0; v < element.count(); ++v)
+                    for (int p = 0; p < size; ++p) {
+                        Property property = properties.get(p);
+                        if (property.countType() >= 0) {
+                            skipList(buffer, tokens, ascii, property);
+                            continue;
+                        }
+                        double value = read(buffer, tokens, ascii, property.type());
+                        if (slots[p] >= 3) normals[v * 3 + slots[p] - 3] = value;
+                        else if (slots[p] >= 0) vertices[v * 3 + slots[p]] = value;
+                    }
+            } else if (element.name().equals("face")) {
+                IntArray polygon = new IntArray();
+                for (int f = 0; f < element.count(); ++f)
+                    for (Property property : properties) {
+                        boolean indices = property.countType() >= 0 && (property.name().equals("vertex_indices")
+                                || property.name().equals("vertex_index"));
+                        if (!indices) {
+                            if (property.countType() >= 0) skipList(buffer, tokens, ascii, property);
+                            else read(buffer, tokens, ascii, property.type());
+                            continue;
+                        }
+                        int count = (int) read(buffer, tokens, ascii, property.countType());
+                        if (count < 3) throw tokens.error("A face must have at least 3 vertices");
+                        polygon.size = 0;
+                        for (int i = 0; i < count; ++i)
+                            polygon.add((int) read(buffer, tokens, ascii, property.type()));
+                        for (int i = 1; i < count - 1; ++i) {
+                            faces.add(polygon.data[0]);
+                            faces.add(polygon.data[i]);
+                            faces.add(polygon.data[i + 1]);
+                        }
+                    }
+            } else {
+                for (int i = 0; i < element.count(); ++i)
+                    for (Property property : properties)
+                        if (property.countType() >= 0) skipList(buffer, tokens, ascii, property);
+                        else read(buffer, tokens, ascii, property.type());
+            }
+        }
+        if (vertices == null) throw tokens.error("Missing vertex element");
+        try {
+            return new Mesh(vertices, faces.toArray(), normals);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses a PLY scalar type name
+     *
+     * @param tokens the tokenizer at the type name
+     * @return the type
+     * @throws IOException if the type is unknown
+     */
+    private static int plyType(Tokens tokens) throws IOException {
+        return switch (tokens.text()) {
+            case "char", "int8" -> INT8;
+            case "uchar", "uint8" -> UINT8;
+            case "short", "int16" -> INT16;
+            case "ushort", "uint16" -> UINT16;
+            case "int", "int32" -> INT32;
+            case "uint", "uint32" -> UINT32;
+            case "float", "float32" -> FLOAT32;
+            case "double", "float64" -> FLOAT64;
+            default -> throw tokens.error("Unknown PLY type: " + tokens.text());
+        };
+    }
+
+    /**
+     * Reads a PLY scalar value
+     *
+     * @param buffer the file buffer (for binary files)
+     * @param tokens the tokenizer (for ASCII files)
+     * @param ascii  whether the file is ASCII
+     * @param type   the scalar type
+     * @return the value
+     * @throws IOException if the file ends too early
+     */
+    private static double read(ByteBuffer buffer, Tokens tokens, boolean ascii, int type) throws IOException {
+        if (ascii) {
+            if (!tokens.nextAcrossLines()) throw tokens.error("Unexpected end of file");
+            return tokens.number();
+        }
+        int bytes = type <= UINT8 ? 1 : type <= UINT16 ? 2 : type == FLOAT64 ? 8 : 4;
+        if (buffer.remaining() < bytes) throw tokens.error("Unexpected end of file");
+        return switch (type) {
+            case INT8 -> buffer.get();
+            case UINT8 -> buffer.get() & 0xFF;
+            case INT16 -> buffer.getShort();
+            case UINT16 -> buffer.getShort() & 0xFFFF;
+            case INT32 -> buffer.getInt();
+            case UINT32 -> buffer.getInt() & 0xFFFFFFFFL;
+            case FLOAT32 -> buffer.getFloat();
+            default -> buffer.getDouble();
+        };
+    }
+
+    /**
+     * Skips a PLY list value
+     *
+     * @param buffer   the file buffer (for binary files)
+     * @param tokens   the tokenizer (for ASCII files)
+     * @param ascii    whether the file is ASCII
+     * @param property the list property
+     * @throws IOException if the file ends too early
+     */
+    private static void skipList(ByteBuffer buffer, Tokens tokens, boolean ascii, Property property)
+            throws IOException {
+        int count = (int) read(buffer, tokens, ascii, property.countType());
+        for (int i = 0; i < count; ++i)
+            read(buffer, tokens, ascii, property.type());
+    }
+
+    // ***************** Reading ********************** //
+
+    /**
+     * Maps a file into memory
+     *
+     * @param path the file
+     * @return the read-only buffer of the file
+     * @throws IOException if the file cannot be read or is larger than 2GB
+     */
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("The file is too large to be mapped: " + path);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Tokenizer of a text buffer, line by line. A token is a run of non-blank bytes, and a comment
+     * (from '#') ends the line.
+     */
+    private static final class Tokens {
+        /** Exact powers of ten for parsing numbers */
+        private static final double[] POWERS = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+        /** The text */
+        private final ByteBuffer buffer;
+        /** The file of the text (for the error reports) */
+        private final Path path;
+        /** The position after the current token */
+        private int position;
+        /** The current line number */
+        private int line = 1;
+        /** The bounds of the current token */
+        private int start, end;
+        /** The parsing position inside the current token */
+        private int cursor;
+
+        /**
+         * Constructs a tokenizer at the beginning of a text
+         *
+         * @param buffer the text
+         * @param path   the file of the text
+         */
+        Tokens(ByteBuffer buffer, Path path) {
+            this.buffer = buffer;
+            this.path = path;
+            this.position = buffer.position();
+        }
+
+        /**
+         * Moves to the next token of the current line
+         *
+         * @return false if the line has no more tokens
+         */
+        boolean next() {
+            int limit = buffer.limit();
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == '\n' || b == '#') return false;
+                if (b > ' ') break;
+                ++position;
+            }
+            if (position >= limit) return false;
+            start = cursor = position;
+            while (position < limit && buffer.get(position) > ' ') ++position;
+            end = position;
+            return true;
+        }
+
+        /**
+         * Moves to the next token, on the current line or on the following ones
+         *
+         * @return false at the end of the text
+         */
+        boolean nextAcrossLines() {
+            while (!next())
+                if (!nextLine()) return false;
+            return true;
+        }
+
+        /**
+         * Moves to the beginning of the next line
+         *
+         * @return false at the end of the text
+         */
+        boolean nextLine() {
+            int limit = buffer.limit();
+            while (position < limit && buffer.get(position) != '\n') ++position;
+            if (position >= limit) return false;
+            ++position;
+            ++line;
+            return true;
+        }
+
+        /**
+         * Checks whether the current token is a word
+         *
+         * @param word the word
+         * @return true if the token is the word
+         */
+        boolean is(String word) {
+            if (end - start != word.length()) return false;
+            for (int i = 0; i < word.length(); ++i)
+                if (buffer.get(start + i) != word.charAt(i)) return false;
+            return true;
+        }
+
+        /**
+         * Gets the current token
+         *
+         * @return the current token text
+         */
+        String text() {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Gets the rest of the line from the current token (names may contain blanks)
+         *
+         * @return the rest of the line, without trailing blanks
+         */
+        String rest() {
+            int limit = buffer.limit();
+            int last = end;
+            while (position < limit && buffer.get(position) != '\n' && buffer.get(position) != '#') {
+                if (buffer.get(position) > ' ') last = position + 1;
+                ++position;
+            }
+            end = last;
+            return text();
+        }
+
+        /**
+         * Checks whether the parsing reached the end of the current token
+         *
+         * @return true at the end of the token
+         */
+        boolean atTokenEnd() {
+            return cursor >= end;
+        }
+
+        /**
+         * Skips a character at the parsing position inside the current token
+         *
+         * @param c the character
+         * @return true if the character was there
+         */
+        boolean skip(char c) {
+            if (cursor < end && buffer.get(cursor) == c) {
+                ++cursor;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Parses an integer at the parsing position inside the current token
+         *
+         * @return the integer
+         * @throws IOException if there is no integer
+         */
+        int integer() throws IOException {
+            boolean negative = skip('-');
+            if (!negative) skip('+');
+            int from = cursor;
+            long value = 0;
+            while (cursor < end) {
+                int digit = buffer.get(cursor) - '0';
+                if (digit < 0 || digit > 9) break;
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE) throw error("Integer out of range");
+                ++cursor;
+            }
+            if (cursor == from) throw error("Integer expected");
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Moves to the next token of the line and parses it as a number
+         *
+         * @return the number
+         * @throws IOException if there is no number
+         */
+        double nextNumber() throws IOException {
+            if (!next()) throw error("Number expected");
+            return number();
+        }
+
+        /**
+         * Parses the current token as a number
+         *
+         * @return the number
+         * @throws IOException if the token is not a number
+         */
+        double number() throws IOException {
+            int from = cursor;
+            boolean negative = skip('-');
+            if (!negative) skip('+');
+            long mantissa = 0;
+            int digits = 0, exponent = 0;
+            boolean any = false;
+            while (cursor < end) {
+                int digit = buffer.get(cursor) - '0';
+                if (digit < 0 || digit > 9) break;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + digit;
+                    if (mantissa != 0) ++digits;
+                } else ++exponent;
+                any = true;
+                ++cursor;
+            }
+            if (skip('.'))
+                while (cursor < end) {
+                    int digit = buffer.get(cursor) - '0';
+                    if (digit < 0 || digit > 9) break;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + digit;
+                        if (mantissa != 0) ++digits;
+                        --exponent;
+                    }
+                    any = true;
+                    ++cursor;
+                }
+            if (any && (skip('e') || skip('E'))) {
+                boolean negativeExponent = skip('-');
+                if (!negativeExponent) skip('+');
+                int from2 = cursor, e = 0;
+                while (cursor < end) {
+                    int digit = buffer.get(cursor) - '0';
+                    if (digit < 0 || digit > 9) break;
+                    if (e < 10000) e = e * 10 + digit;
+                    ++cursor;
+                }
+                if (cursor == from2) any = false;
+                exponent += negativeExponent ? -e : e;
+            }
+            if (!any || cursor != end) {
+                // rare forms (nan, inf, hexadecimal) are left to the library
+                cursor = from;
+                String text = text();
+                cursor = end;
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException ex) {
+                    throw error("Number expected: " + text);
+                }
+            }
+            cursor = end;
+            double value = exponent == 0 ? mantissa
+                    : exponent > 0 && exponent <= 22 ? mantissa * POWERS[exponent]
+                    : exponent < 0 && exponent >= -22 ? mantissa / POWERS[-exponent]
+                    : mantissa * Math.pow(10, exponent);
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses the next three numbers of the line
+         *
+         * @return the numbers
+         * @throws IOException if there are no numbers
+         */
+        Double3 triple() throws IOException {
+            double r = nextNumber(), g = nextNumber(), b = nextNumber();
+            return new Double3(r, g, b);
+        }
+
+        /**
+         * Builds an exception for a malformed text at the current line
+         *
+         * @param message the problem
+         * @return the exception
+         */
+        IOException error(String message) {
+            return new IOException(path + ":" + line + ": " + message);
+        }
+    }
+
+    /**
+     * Growable array of doubles
+     */
+    private static final class DoubleArray {
+        /** The values */
+        double[] data = new double[1024];
+        /** Amount of the values */
+        int size;
+
+        /**
+         * Adds a value
+         *
+         * @param value the value
+         */
+        void add(double value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        /**
+         * Grows the array with zeros up to a size
+         *
+         * @param newSize the size
+         */
+        void ensureSize(int newSize) {
+            if (newSize > data.length) data = Arrays.copyOf(data, Math.max(newSize, data.length * 2));
+            size = Math.max(size, newSize);
+        }
+
+        /**
+         * Copies the values into an array of their size
+         *
+         * @return the values
+         */
+        double[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * Growable array of integers
+     */
+    private static final class IntArray {
+        /** The values */
+        int[] data = new int[16];
+        /** Amount of the values */
+        int size;
+
+        /**
+         * Adds a value
+         *
+         * @param value the value
+         */
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        /**
+         * Copies the values into an array of their size
+         *
+         * @return the values
+         */
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package scene;
+import geometries.FlatBvh;
 import geometries.Geometries;
 import lighting.AmbientLight;
 import lighting.LightSource;
+import lighting.LightTree;
 import lighting.PointLight;
 import primitives.Color;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 /**
  * The {@code Scene} class represents a 3D scene containing geometries, lights, and other settings.
  */
-public class Scene {
+public class Scene implements Serializable {
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public Color background = Color.BLACK;
     public AmbientLight ambientLight = AmbientLight.NONE;
     public Geometries geometries = new Geometries();
     public List<LightSource> lights = new LinkedList<>();
     public boolean BVHON=false;
+    public boolean FLATBVHON=false;
+    /** the compiled acceleration structure of the geometries, built on the first request (not serialized) */
+    private transient volatile FlatBvh flatBvh = null;
+    /** the hierarchy of the light sources, built on the first request (not serialized) */
+    private transient volatile LightTree lightTree = null;
+    /** version of the contents of the scene - changed whenever the geometries or the lights may have changed */
+    private transient volatile int version = 0;
 
     /**
      * Constructs a {@code Scene} with the specified name.
@@ -50,13 +63,16 @@ public class Scene {
     }
 
     /**
-     * Sets the geometries in the scene.
+     * Sets the geometries in the scene. The compiled hierarchy of the former geometries is dropped.
      *
      * @param geometries The geometries to set.
      * @return This {@code Scene} object for chaining setters.
      */
     public Scene setGeometries(Geometries geometries) {
         this.geometries = geometries;
+        // the compiled hierarchy of the old geometries
+        flatBvh = null;
+        changed();
         return this;
     }
 
@@ -79,9 +95,30 @@ public class Scene {
             }
             lights.add(light);
         }
+        // the hierarchy of the former lights
+        lightTree = null;
+        changed();
         return this;
     }
 
+    /**
+     * Records that the geometries or the lights of the scene may have changed - e.g. geometries were added to
+     * or removed from {@link #geometries} directly - so the renderers drop what they cached of the scene.
+     * It is called by the setters of the scene and at the start of every rendering of a camera.
+     */
+    public synchronized void changed() {
+        version++;
+    }
+
+    /**
+     * Gets the version of the contents of the scene, which is changed by {@link #changed()}
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
     public Scene setBVHON(boolean bvhon) {
         this.BVHON = bvhon;
         return this;
@@ -90,4 +127,67 @@ public class Scene {
         return this.BVHON;
     }
 
+    /**
+     * Sets whether the geometries are traced through the compiled, array-backed hierarchy
+     * ({@link FlatBvh}) instead of the nested {@link Geometries} composites.
+     *
+     * @param flatBvhOn true for tracing through the compiled hierarchy
+     * @return This {@code Scene} object for chaining setters.
+     */
+    public Scene setFLATBVHON(boolean flatBvhOn) {
+        this.FLATBVHON = flatBvhOn;
+        return this;
+    }
+
+    public boolean getFLATBVHON() {
+        return this.FLATBVHON;
+    }
+
+    /**
+     * Gets the compiled hierarchy of the scene geometries. It is compiled on the first call, and again after
+     * {@link #setGeometries(Geometries)} - geometries added to {@link #geometries} directly after the first call
+     * are not in the hierarchy.
+     *
+     * @return the compiled hierarchy
+     */
+    public FlatBvh getFlatBvh() {
+        FlatBvh result = flatBvh;
+        if (result == null) {
+            synchronized (this) {
+                result = flatBvh;
+                if (result == null)
+                    flatBvh = result = FlatBvh.compile(geometries);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets a compiled hierarchy of the scene geometries which was built before, e.g. read from a snapshot,
+     * so it is not compiled again on the first request.
+     *
+     * @param flatBvh the compiled hierarchy of the geometries of the scene
+     */
+    void setFlatBvh(FlatBvh flatBvh) {
+        this.flatBvh = flatBvh;
+    }
+
+    /**
+     * Gets the hierarchy of the light sources. It is built on the first call, and again after
+     * {@link #setLights(List)} or when the amount of the light sources changed.
+     *
+     * @return the hierarchy of the light sources
+     */
+    public LightTree getLightTree() {
+        LightTree result = lightTree;
+        if (result == null || result.size() != lights.size()) {
+            synchronized (this) {
+                result = lightTree;
+                if (result == null || result.size() != lights.size())
+                    lightTree = result = new LightTree(lights);
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,436 @@
+package scene;
+
+import geometries.Container;
+import geometries.Cylinder;
+import geometries.Geometry;
+import geometries.Mesh;
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import geometries.Tube;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads scenes from XML scene description files. The file is read by a streaming (StAX) parser - every element
+ * is turned into its geometry, light or material as soon as it is read and the geometries are added to the scene
+ * one by one, so the document is never held in memory and a file of millions of primitives takes memory for
+ * the primitives only.
+ * <p>
+ * The root element is {@code <scene name="..." background="r g b" bvh="false" flatbvh="false">}. Its children
+ * (optionally grouped in {@code <materials>}, {@code <lights>} and {@code <geometries>} elements):
+ * <ul>
+ *     <li>{@code <ambient color="r g b" k="k"/>}</li>
+ *     <li>{@code <camera location="x y z" to="x y z" up="x y z" distance="d" size="width height"
+ *     resolution="nX nY" image="name" antialiasing="rays" aperture="a" focus="f" threads="n" tile="size"/>}
+ *     - the last six attributes are optional</li>
+ *     <li>{@code <material id="name" kd="k" ks="k" kt="k" kr="k" shininess="n"/>} - a coefficient is a number
+ *     or a triad of numbers; a material is referenced by its id, after its definition</li>
+ *     <li>{@code <directional color="r g b" direction="x y z"/>},
+ *     {@code <point color="r g b" position="x y z" kc="1" kl="0" kq="0"/>},
+ *     {@code <spot color="r g b" position="x y z" direction="x y z" kc="1" kl="0" kq="0"/>}</li>
+ *     <li>{@code <sphere center="x y z" radius="r"/>}, {@code <plane point="x y z" normal="x y z"/>},
+ *     {@code <triangle vertices="x y z x y z x y z"/>}, {@code <polygon vertices="x y z x y z ..."/>},
+ *     {@code <tube head="x y z" direction="x y z" radius="r"/>},
+ *     {@code <cylinder head="x y z" direction="x y z" radius="r" height="h"/>},
+ *     {@code <mesh file="model.obj"/>} (OBJ or PLY, relative to the scene file, see {@link MeshLoader}) and
+ *     {@code <mesh vertices="x y z ..." faces="i j k ..." normals="x y z ..."/>} - every geometry takes the
+ *     optional attributes {@code emission="r g b"} and {@code material="id"}</li>
+ * </ul>
+ * The numbers are separated by white space or commas.
+ */
+public final class SceneLoader {
+    /**
+     * No instances - all the methods are static
+     */
+    private SceneLoader() {
+    }
+
+    /**
+     * Loads a scene, without its camera
+     *
+     * @param path the scene file
+     * @return the scene
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static Scene load(Path path) throws IOException {
+        return load(path, null);
+    }
+
+    /**
+     * Loads a scene and sets up a camera by the camera element of the file - its location, direction and
+     * view plane, an image writer, and a ray tracer of the loaded scene
+     *
+     * @param path   the scene file
+     * @param camera the builder of the camera, or null to skip the camera element
+     * @return the scene
+     * @throws IOException if the file cannot be read or is malformed, or if there is no camera element
+     *                     for the given builder
+     */
+    public static Scene load(Path path, Camera.Builder camera) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                return new Parser(path, reader, camera).parse();
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The state of the parsing of a scene file
+     */
+    private static final class Parser {
+        /** The scene file */
+        private final Path path;
+        /** The streaming reader of the file */
+        private final XMLStreamReader reader;
+        /** The builder of the camera, null if the camera element is skipped */
+        private final Camera.Builder camera;
+        /** The materials defined so far, by their ids */
+        private final Map<String, Material> materials = new HashMap<>();
+        /** The scene, created by the root element */
+        private Scene scene = null;
+        /** Whether the camera element was read */
+        private boolean hasCamera = false;
+
+        /**
+         * Constructs the parser of a file
+         *
+         * @param path   the scene file
+         * @param reader the streaming reader of the file
+         * @param camera the builder of the camera, or null
+         */
+        Parser(Path path, XMLStreamReader reader, Camera.Builder camera) {
+            this.path = path;
+            this.reader = reader;
+            this.camera = camera;
+        }
+
+        /**
+         * Reads the elements of the file one by one
+         *
+         * @return the scene
+         * @throws IOException        if the file is malformed
+         * @throws XMLStreamException if the file is not a well-formed XML document
+         */
+        Scene parse() throws IOException, XMLStreamException {
+            while (reader.hasNext())
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    try {
+                        element(reader.getLocalName());
+                    } catch (IllegalArgumentException e) {
+                        throw error(e.getMessage());
+                    }
+                }
+            if (scene == null) throw new IOException(path + ": missing scene element");
+            if (camera != null) {
+                if (!hasCamera) throw new IOException(path + ": missing camera element");
+                camera.setRayTracer(new SimpleRayTracer(scene));
+            }
+            return scene;
+        }
+
+        /**
+         * Reads an element
+         *
+         * @param name the name of the element
+         * @throws IOException if the element is malformed
+         */
+        private void element(String name) throws IOException {
+            if (scene == null) {
+                if (!name.equals("scene")) throw error("The root element must be a scene, not " + name);
+                scene = new Scene(reader.getAttributeValue(null, "name"))
+                        .setBackground(color("background", Color.BLACK))
+                        .setBVHON(Boolean.parseBoolean(reader.getAttributeValue(null, "bvh")))
+                        .setFLATBVHON(Boolean.parseBoolean(reader.getAttributeValue(null, "flatbvh")));
+                return;
+            }
+            switch (name) {
+                case "materials", "lights", "geometries" -> {
+                    // groups of elements only
+                }
+                case "ambient" -> scene.setAmbientLight(new AmbientLight(color("color", null),
+                        coefficient("k", Double3.ONE)));
+                case "camera" -> camera();
+                case "material" -> {
+                    String id = attribute("id");
+                    if (materials.containsKey(id)) throw error("Duplicate material " + id);
+                    materials.put(id, new Material().setKd(coefficient("kd", Double3.ZERO))
+                            .setKs(coefficient("ks", Double3.ZERO)).setKt(coefficient("kt", Double3.ZERO))
+                            .setKr(coefficient("kr", Double3.ZERO)).setShininess((int) number("shininess", 0)));
+                }
+                case "directional" -> scene.lights.add(new DirectionalLight(color("color", null), vector("direction")));
+                case "point" -> scene.lights.add(attenuation(new PointLight(color("color", null), point("position"))));
+                case "spot" -> scene.lights.add(attenuation(new SpotLight(color("color", null), point("position"),
+                        vector("direction"))));
+                case "sphere" -> add(new Sphere(point("center"), number("radius")));
+                case "plane" -> add(new Plane(point("point"), vector("normal")));
+                case "triangle" -> {
+                    Point[] vertices = vertices();
+                    if (vertices.length != 3) throw error("A triangle must have 3 vertices");
+                    add(new Triangle(vertices[0], vertices[1], vertices[2]));
+                }
+                case "polygon" -> add(new Polygon(vertices()));
+                case "tube" -> add(new Tube(new Ray(point("head"), vector("direction")), number("radius")));
+                case "cylinder" -> add(new Cylinder(number("height"), new Ray(point("head"), vector("direction")),
+                        number("radius")));
+                case "mesh" -> mesh();
+                default -> throw error("Unknown element " + name);
+            }
+        }
+
+        /**
+         * Sets up the camera by the camera element, unless the camera is skipped
+         *
+         * @throws IOException if the element is malformed or repeated
+         */
+        private void camera() throws IOException {
+            if (hasCamera) throw error("Duplicate camera element");
+            hasCamera = true;
+            if (camera == null) return;
+            double[] size = numbers("size", 2);
+            double[] resolution = numbers("resolution", 2);
+            String image = reader.getAttributeValue(null, "image");
+            camera.setLocation(point("location"))
+                    .setDirection(vector("to"), vector("up"))
+                    .setVpDistance(number("distance"))
+                    .setVpSize((int) size[0], (int) size[1])
+                    .setImageWriter(new ImageWriter(image != null ? image : scene.name,
+                            (int) resolution[0], (int) resolution[1]));
+            if (reader.getAttributeValue(null, "antialiasing") != null)
+                camera.setAntiAliasing(true).setAntiAliasingNumberOfRays((int) number("antialiasing"));
+            if (reader.getAttributeValue(null, "aperture") != null)
+                camera.setDofON(true).setAperture(number("aperture")).setDepthOfField(number("focus"));
+            if (reader.getAttributeValue(null, "threads") != null)
+                camera.setMultiThreading((int) number("threads"));
+            if (reader.getAttributeValue(null, "tile") != null)
+                camera.setTileSize((int) number("tile"));
+        }
+
+        /**
+         * Reads a mesh element - a mesh file, or the buffers of a mesh
+         *
+         * @throws IOException if the element or the mesh file is malformed
+         */
+        private void mesh() throws IOException {
+            String file = reader.getAttributeValue(null, "file");
+            if (file == null) {
+                String normals = reader.getAttributeValue(null, "normals");
+                double[] faces = numbers("faces", -3);
+                int[] indices = new int[faces.length];
+                for (int i = 0; i < faces.length; ++i) indices[i] = (int) faces[i];
+                add(new Mesh(numbers("vertices", -3), indices, normals == null ? null : numbers("normals", -3)));
+                return;
+            }
+            // the materials of the mesh file are kept unless the element gives other ones
+            for (Mesh mesh : MeshLoader.load(path.resolveSibling(file))) add(mesh);
+        }
+
+        /**
+         * Adds a geometry to the scene, with the emission and the material of the element
+         *
+         * @param geometry the geometry
+         * @throws IOException if the emission or the material is malformed
+         */
+        private void add(Geometry geometry) throws IOException {
+            if (reader.getAttributeValue(null, "emission") != null) geometry.setEmission(color("emission", null));
+            String id = reader.getAttributeValue(null, "material");
+            if (id != null) {
+                Material material = materials.get(id);
+                if (material == null) throw error("Undefined material " + id);
+                geometry.setMaterial(material);
+            }
+            scene.geometries.add((Container) geometry);
+        }
+
+        /**
+         * Sets the attenuation factors of the element to a light
+         *
+         * @param light the light
+         * @return the light
+         * @throws IOException if a factor is malformed
+         */
+        private PointLight attenuation(PointLight light) throws IOException {
+            return light.setKc(number("kc", 1)).setKl(number("kl", 0)).setKq(number("kq", 0));
+        }
+
+        /**
+         * Reads the vertices attribute of a polygon
+         *
+         * @return the vertices
+         * @throws IOException if the attribute is missing or malformed
+         */
+        private Point[] vertices() throws IOException {
+            double[] values = numbers("vertices", -3);
+            Point[] vertices = new Point[values.length / 3];
+            for (int i = 0; i < vertices.length; ++i)
+                vertices[i] = new Point(values[i * 3], values[i * 3 + 1], values[i * 3 + 2]);
+            return vertices;
+        }
+
+        /**
+         * Reads a required attribute
+         *
+         * @param name the attribute
+         * @return the value
+         * @throws IOException if the attribute is missing
+         */
+        private String attribute(String name) throws IOException {
+            String value = reader.getAttributeValue(null, name);
+            if (value == null) throw error("Missing attribute " + name);
+            return value;
+        }
+
+        /**
+         * Reads a required number
+         *
+         * @param name the attribute
+         * @return the number
+         * @throws IOException if the attribute is missing or malformed
+         */
+        private double number(String name) throws IOException {
+            return numbers(name, 1)[0];
+        }
+
+        /**
+         * Reads an optional number
+         *
+         * @param name         the attribute
+         * @param defaultValue the value of a missing attribute
+         * @return the number
+         * @throws IOException if the attribute is malformed
+         */
+        private double number(String name, double defaultValue) throws IOException {
+            return reader.getAttributeValue(null, name) == null ? defaultValue : number(name);
+        }
+
+        /**
+         * Reads a required point
+         *
+         * @param name the attribute
+         * @return the point
+         * @throws IOException if the attribute is missing or malformed
+         */
+        private Point point(String name) throws IOException {
+            double[] values = numbers(name, 3);
+            return new Point(values[0], values[1], values[2]);
+        }
+
+        /**
+         * Reads a required vector
+         *
+         * @param name the attribute
+         * @return the vector
+         * @throws IOException if the attribute is missing or malformed, or if the vector is zero
+         */
+        private Vector vector(String name) throws IOException {
+            double[] values = numbers(name, 3);
+            return new Vector(values[0], values[1], values[2]);
+        }
+
+        /**
+         * Reads a color
+         *
+         * @param name         the attribute
+         * @param defaultValue the color of a missing attribute, null if the attribute is required
+         * @return the color
+         * @throws IOException if the attribute is malformed, or missing and required
+         */
+        private Color color(String name, Color defaultValue) throws IOException {
+            if (defaultValue != null && reader.getAttributeValue(null, name) == null) return defaultValue;
+            double[] values = numbers(name, 3);
+            return new Color(values[0], values[1], values[2]);
+        }
+
+        /**
+         * Reads an optional coefficient - a number for the 3 colors, or a number for every color
+         *
+         * @param name         the attribute
+         * @param defaultValue the coefficient of a missing attribute
+         * @return the coefficient
+         * @throws IOException if the attribute is malformed
+         */
+        private Double3 coefficient(String name, Double3 defaultValue) throws IOException {
+            if (reader.getAttributeValue(null, name) == null) return defaultValue;
+            double[] values = numbers(name, 0);
+            if (values.length == 1) return new Double3(values[0]);
+            if (values.length == 3) return new Double3(values[0], values[1], values[2]);
+            throw error("Attribute " + name + " must have 1 or 3 numbers");
+        }
+
+        /**
+         * Reads the numbers of a required attribute, separated by white space or commas
+         *
+         * @param name  the attribute
+         * @param count the amount of the numbers, its negation for a multiple of the amount, 0 for any amount
+         * @return the numbers
+         * @throws IOException if the attribute is missing, malformed or of a wrong amount of numbers
+         */
+        private double[] numbers(String name, int count) throws IOException {
+            String text = attribute(name);
+            double[] values = new double[Math.max(16, Math.abs(count))];
+            int size = 0;
+            int length = text.length();
+            for (int i = 0; i < length; ) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || c == ',') {
+                    ++i;
+                    continue;
+                }
+                int start = i;
+                while (i < length && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != ',') ++i;
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                try {
+                    values[size++] = Double.parseDouble(text.substring(start, i));
+                } catch (NumberFormatException e) {
+                    throw error("Number expected in attribute " + name + ": " + text.substring(start, i));
+                }
+            }
+            if (count > 0 ? size != count : count < 0 ? size == 0 || size % -count != 0 : size == 0)
+                throw error("Wrong amount of numbers in attribute " + name + ": " + size);
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+        /**
+         * Builds an exception for a malformed element at the current line
+         *
+         * @param message the problem
+         * @return the exception
+         */
+        private IOException error(String message) {
+            return new IOException(path + ":" + reader.getLocation().getLineNumber() + ": " + message);
+        }
+    }
+}
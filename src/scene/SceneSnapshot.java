@@ -0,0 +1,173 @@
+package scene;
+
+import geometries.Container;
+import geometries.FlatBvh;
+import geometries.Geometries;
+import geometries.GeometryCodec;
+import geometries.Intersectable;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.Color;
+import primitives.Point;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Saves a scene to a binary snapshot file and loads it back, with the compiled hierarchy of its geometries
+ * ({@link FlatBvh}) - loading a snapshot neither parses a scene description nor builds a hierarchy, so a large
+ * scene is ready for rendering right after the file is mapped.
+ * <p>
+ * The file: a header (magic, version), the name, the background and the ambient light of the scene, the light
+ * sources, and the hierarchy with its geometries as written by {@link GeometryCodec}. The values are big-endian.
+ * A loaded scene traces its geometries through the loaded hierarchy.
+ */
+public final class SceneSnapshot {
+    /** The first bytes of a snapshot file */
+    private static final int MAGIC = 0x52534E50; // "RSNP"
+    /** The version of the file layout */
+    private static final int VERSION = 1;
+    /** Light tags */
+    private static final byte SERIALIZED = 0, DIRECTIONAL = 1, POINT = 2, SPOT = 3;
+
+    /**
+     * No instances - all the methods are static
+     */
+    private SceneSnapshot() {
+    }
+
+    /**
+     * Saves a scene to a snapshot file. The hierarchy of the scene is compiled if it was not compiled yet
+     *
+     * @param scene the scene
+     * @param path  the snapshot file
+     * @throws IOException if the file cannot be written or a geometry or a light cannot be serialized
+     */
+    public static void save(Scene scene, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            byte[] name = (scene.name == null ? "" : scene.name).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            GeometryCodec.writeColor(scene.background, out);
+            GeometryCodec.writeColor(scene.ambientLight.getIntensity(), out);
+            out.writeBoolean(scene.BVHON);
+
+            out.writeInt(scene.lights.size());
+            for (LightSource light : scene.lights) writeLight(light, out);
+
+            new GeometryCodec().writeHierarchy(scene.getFlatBvh(), out);
+        }
+    }
+
+    /**
+     * Loads a scene from a snapshot file
+     *
+     * @param path the snapshot file
+     * @return the scene, tracing its geometries through the loaded hierarchy
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static Scene load(Path path) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("The file is too large to be mapped: " + path);
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC)
+                throw new IOException(path + ": not a scene snapshot");
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException(path + ": unknown snapshot version " + version);
+            byte[] name = new byte[GeometryCodec.readCount(in)];
+            in.get(name);
+            Scene scene = new Scene(new String(name, StandardCharsets.UTF_8))
+                    .setBackground(GeometryCodec.readColor(in))
+                    .setAmbientLight(new AmbientLight(GeometryCodec.readColor(in), 1))
+                    .setBVHON(in.get() != 0);
+
+            int lights = GeometryCodec.readCount(in);
+            for (int i = 0; i < lights; ++i) scene.lights.add(readLight(in));
+
+            FlatBvh bvh = new GeometryCodec().readHierarchy(in);
+            if (in.hasRemaining()) throw new IOException(path + ": unexpected data after the scene");
+            List<Intersectable> geometries = bvh.getGeometries();
+            Container[] containers = new Container[geometries.size()];
+            for (int i = 0; i < containers.length; ++i) containers[i] = (Container) geometries.get(i);
+            scene.setGeometries(new Geometries(containers)).setFLATBVHON(true);
+            scene.setFlatBvh(bvh);
+            return scene;
+        } catch (BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+            throw new IOException(path + ": malformed scene snapshot", e);
+        }
+    }
+
+    /**
+     * Writes a light source
+     *
+     * @param light the light source
+     * @param out   the output
+     * @throws IOException if the output fails or the light cannot be serialized
+     */
+    private static void writeLight(LightSource light, DataOutputStream out) throws IOException {
+        Class<?> type = light.getClass();
+        if (type == DirectionalLight.class) {
+            DirectionalLight directional = (DirectionalLight) light;
+            out.writeByte(DIRECTIONAL);
+            GeometryCodec.writeColor(directional.getIntensity(), out);
+            GeometryCodec.writePoint(directional.getDirection(), out);
+        } else if (type == PointLight.class || type == SpotLight.class) {
+            PointLight point = (PointLight) light;
+            out.writeByte(type == PointLight.class ? POINT : SPOT);
+            GeometryCodec.writeColor(point.getIntensity(), out);
+            GeometryCodec.writePoint(point.getPosition(), out);
+            out.writeDouble(point.getkC());
+            out.writeDouble(point.getkL());
+            out.writeDouble(point.getkQ());
+            if (type == SpotLight.class) GeometryCodec.writePoint(((SpotLight) light).getDirection(), out);
+        } else if (light instanceof Serializable serializable) {
+            out.writeByte(SERIALIZED);
+            GeometryCodec.writeSerialized(serializable, out);
+        } else
+            throw new NotSerializableException(type.getName());
+    }
+
+    /**
+     * Reads a light source
+     *
+     * @param in the input
+     * @return the light source
+     * @throws IOException if the input is malformed
+     */
+    private static LightSource readLight(ByteBuffer in) throws IOException {
+        byte tag = in.get();
+        return switch (tag) {
+            case SERIALIZED -> (LightSource) GeometryCodec.readSerialized(in);
+            case DIRECTIONAL -> new DirectionalLight(GeometryCodec.readColor(in), GeometryCodec.readVector(in));
+            case POINT, SPOT -> {
+                Color intensity = GeometryCodec.readColor(in);
+                Point position = GeometryCodec.readPoint(in);
+                double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+                PointLight light = tag == POINT ? new PointLight(intensity, position)
+                        : new SpotLight(intensity, position, GeometryCodec.readVector(in));
+                yield light.setKc(kC).setKl(kL).setKq(kQ);
+            }
+            default -> throw new IOException("Unknown light " + tag);
+        };
+    }
+}
@@ -0,0 +1,203 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the compiled hierarchy
+ * This class contains tests for the `FlatBvh` class.
+ */
+class FlatBvhTests {
+    /**
+     * Builds a composite of random spheres and triangles, and a tube which has no finite bounding box
+     *
+     * @param random the random generator
+     * @return the composite
+     */
+    private Geometries randomGeometries(Random random) {
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 300; ++i) {
+            double x = random.nextDouble() * 100, y = random.nextDouble() * 100, z = random.nextDouble() * 100;
+            geometries.add(new Sphere(new Point(x, y, z), random.nextDouble() * 3 + 0.5),
+                    new Triangle(new Point(x, y, z), new Point(x + 4, y, z + 1), new Point(x, y + 4, z - 1)));
+        }
+        geometries.add(new Tube(new Ray(new Point(50, 50, 50), new Vector(1, 0, 0)), 2));
+        return geometries;
+    }
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link geometries.FlatBvh#compile(Geometries)}.
+     * <br>TC01: The compiled hierarchy holds all the bounded geometries in a binary tree
+     */
+    @Test
+    void testCompile() {
+        Geometries geometries = randomGeometries(new Random(2));
+        FlatBvh bvh = FlatBvh.compile(geometries);
+        assertEquals(600, bvh.getStats().primitives(), "ERROR: wrong amount of primitives in the hierarchy");
+        assertEquals(2 * bvh.getStats().leaves() - 1, bvh.getNodeCount(), "ERROR: the hierarchy is not binary");
+    }
+
+    /**
+     * Test method for {@link geometries.FlatBvh#findGeoIntersections(primitives.Ray, double)}.
+     * <br>TC02: The compiled hierarchy finds the same intersections as the composite
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(3);
+        Geometries geometries = randomGeometries(random);
+        FlatBvh bvh = FlatBvh.compile(geometries);
+        for (int i = 0; i < 300; ++i) {
+            Ray ray = new Ray(new Point(50, 50, -50),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            double maxDistance = i % 2 == 0 ? Double.POSITIVE_INFINITY : 120;
+            List<Intersectable.GeoPoint> expected = geometries.findGeoIntersections(ray, maxDistance);
+            List<Intersectable.GeoPoint> result = bvh.findGeoIntersections(ray, maxDistance);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "ERROR: the hierarchy finds different intersections");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double, boolean)}.
+     * <br>TC03: The closest intersection of the compiled hierarchy and of the composite tree is the closest
+     * one of all the intersections
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Random random = new Random(4);
+        Geometries geometries = randomGeometries(random);
+        FlatBvh bvh = FlatBvh.compile(geometries);
+        Geometries tree = randomGeometries(new Random(4));
+        tree.BuildBvhTree();
+        for (int i = 0; i < 300; ++i) {
+            Ray ray = new Ray(new Point(50, 50, -50),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            List<Intersectable.GeoPoint> all = geometries.findGeoIntersections(ray);
+            Intersectable.GeoPoint expected = all == null ? null : ray.findClosestGeoPoint(all);
+            Intersectable.GeoPoint result = bvh.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true);
+            Intersectable.GeoPoint treeResult = tree.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true);
+            if (expected == null) {
+                assertNull(result, "ERROR: the hierarchy finds a non-existing intersection");
+                assertNull(treeResult, "ERROR: the tree finds a non-existing intersection");
+            } else {
+                assertEquals(expected.point, result.point, "ERROR: the hierarchy finds a wrong closest intersection");
+                assertEquals(expected.point, treeResult.point, "ERROR: the tree finds a wrong closest intersection");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(primitives.Ray, double, boolean)}.
+     * <br>TC05: The transparency along a ray through the compiled hierarchy and through the composite tree
+     * is the product of the transparency coefficients of all the intersections
+     */
+    @Test
+    void testFindTransparency() {
+        Random random = new Random(5);
+        Geometries geometries = randomGeometries(random);
+        FlatBvh bvh = FlatBvh.compile(geometries);
+        Geometries tree = new Geometries(
+                new Sphere(new Point(0, 0, 10), 1).setMaterial(new Material().setKt(0.5)),
+                new Sphere(new Point(0, 0, 20), 1).setMaterial(new Material().setKt(0.5)),
+                new Triangle(new Point(-1, -1, 30), new Point(1, -1, 30), new Point(0, 2, 30)),
+                new Plane(new Point(0, 0, 40), new Vector(0, 0, 1)).setMaterial(new Material().setKt(0.8)));
+        tree.BuildBvhTree();
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        // each sphere is crossed twice
+        assertEquals(new Double3(0.0625), tree.findTransparency(ray, 25, true),
+                "ERROR: wrong transparency through transparent geometries");
+        assertEquals(Double3.ZERO, tree.findTransparency(ray, 50, true),
+                "ERROR: an opaque geometry does not block the ray");
+        assertEquals(Double3.ONE, tree.findTransparency(ray, 5, true),
+                "ERROR: a geometry beyond the distance blocks the ray");
+
+        for (int i = 0; i < 300; ++i) {
+            ray = new Ray(new Point(50, 50, -50),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            double maxDistance = i % 2 == 0 ? Double.POSITIVE_INFINITY : 120;
+            boolean blocked = geometries.findGeoIntersections(ray, maxDistance) != null;
+            assertEquals(blocked ? Double3.ZERO : Double3.ONE, bvh.findTransparency(ray, maxDistance, true),
+                    "ERROR: the hierarchy finds a wrong transparency");
+            assertEquals(blocked ? Double3.ZERO : Double3.ONE, geometries.findTransparency(ray, maxDistance, true),
+                    "ERROR: the composite finds a wrong transparency");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.Intersectable#findTransparency(primitives.Ray, double, boolean, double, Intersectable.Hit)}.
+     * <br>TC07: The traversal stops once the transparency falls below the cutoff, and a geometry which lets
+     * light through is not recorded as the occluder
+     */
+    @Test
+    void testFindTransparencyCutoff() {
+        Geometries tree = new Geometries(
+                new Sphere(new Point(0, 0, 10), 1).setMaterial(new Material().setKt(0.1)),
+                new Sphere(new Point(0, 0, 20), 1).setMaterial(new Material().setKt(0.1)));
+        tree.BuildBvhTree();
+        FlatBvh bvh = FlatBvh.compile(tree);
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        // each sphere is crossed twice
+        assertEquals(new Double3(0.0001), tree.findTransparency(ray, 50, true),
+                "ERROR: the composite does not find the exact transparency without a cutoff");
+        Intersectable.Hit occluder = new Intersectable.Hit(50);
+        assertEquals(Double3.ZERO, tree.findTransparency(ray, 50, true, 0.001, occluder),
+                "ERROR: the composite does not stop below the cutoff");
+        assertNull(occluder.geometry, "ERROR: the composite records a transparent occluder");
+        assertEquals(Double3.ZERO, bvh.findTransparency(ray, 50, true, 0.001, occluder),
+                "ERROR: the hierarchy does not stop below the cutoff");
+        assertNull(occluder.geometry, "ERROR: the hierarchy records a transparent occluder");
+        assertEquals(new Double3(0.01), bvh.findTransparency(ray, 15, true, 0.001, occluder),
+                "ERROR: the hierarchy stops above the cutoff");
+    }
+
+    // ============================= Boundary Value Tests =================================
+
+    /**
+     * Test method for {@link geometries.FlatBvh#findGeoIntersections(primitives.Ray)}.
+     * <br>TC04: Empty composite
+     */
+    @Test
+    void testEmpty() {
+        FlatBvh bvh = FlatBvh.compile(new Geometries());
+        assertEquals(0, bvh.getNodeCount(), "ERROR: empty composite has nodes");
+        assertNull(bvh.findGeoIntersections(new Ray(Point.ZERO, new Vector(0, 0, 1))),
+                "ERROR: empty hierarchy has intersections");
+    }
+
+    /**
+     * Test method for {@link geometries.FlatBvh#validLinks(int[], int)}.
+     * <br>TC06: The links of a compiled hierarchy are valid, and an inner node which refers to itself or to its
+     * first child, a leaf beyond the geometries and an odd amount of links are not
+     */
+    @Test
+    void testValidLinks() {
+        FlatBvh bvh = FlatBvh.compile(randomGeometries(new Random(2)));
+        int primitives = bvh.getStats().primitives();
+        assertTrue(FlatBvh.validLinks(bvh.links, primitives), "ERROR: the compiled links are not valid");
+        assertTrue(FlatBvh.validLinks(new int[0], 0), "ERROR: the links of an empty hierarchy are not valid");
+
+        for (int second : new int[] { 0, 1 }) {
+            int[] links = bvh.links.clone();
+            links[0] = second;
+            assertFalse(FlatBvh.validLinks(links, primitives), "ERROR: an inner node which refers to node " + second);
+        }
+        int leaf = 0;
+        while (bvh.links[leaf * 2 + 1] == 0) ++leaf;
+        int[] links = bvh.links.clone();
+        links[leaf * 2] = primitives;
+        assertFalse(FlatBvh.validLinks(links, primitives), "ERROR: a leaf beyond the geometries");
+        assertFalse(FlatBvh.validLinks(new int[] { 0, 1, 0 }, 1), "ERROR: an odd amount of links");
+    }
+}
@@ -5,6 +5,9 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 /**
  * Testing Geometries
@@ -95,4 +98,85 @@ class GeometriesTests {
         assertEquals(4,result.size(),"ERROR:Ray not intersect the geometries");
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Geometries#BuildBvhTree()}.
+     * <br>TC06: The tree finds the same intersections as the flat list and reports its structure
+     */
+    @Test
+    void testBuildBvhTree() {
+        Random random = new Random(1);
+        Geometries flat = new Geometries();
+        Geometries tree = new Geometries();
+        for (int i = 0; i < 500; ++i) {
+            Sphere s = new Sphere(new Point(random.nextDouble() * 100, random.nextDouble() * 100,
+                    random.nextDouble() * 100), random.nextDouble() * 3 + 0.5);
+            flat.add(s);
+            tree.add(s);
+        }
+        BvhStats stats = tree.BuildBvhTree();
+        assertEquals(500, stats.primitives(), "ERROR: wrong amount of primitives in the tree");
+        assertEquals(2 * stats.leaves() - 1, stats.nodes(), "ERROR: the tree is not binary");
+        assertTrue(stats.sahCost() > 0 && stats.sahCost() < 500, "ERROR: wrong SAH cost of the tree");
+
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(50, 50, -50),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            List<Intersectable.GeoPoint> expected = flat.findGeoIntersections(ray);
+            List<Intersectable.GeoPoint> result = tree.findIntersectBoundingRegion(ray, Double.POSITIVE_INFINITY);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "ERROR: the tree finds different intersections");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(primitives.Ray, Intersectable.Hit, boolean)}.
+     * <br>TC07: The hit record holds the closest of all the intersections found by the lists,
+     * for every kind of geometry, also when the record is reused
+     */
+    @Test
+    void testIntersect() {
+        Random random = new Random(7);
+        Geometries flat = new Geometries(
+                new Sphere(new Point(0, 0, 20), 5),
+                new Plane(new Point(0, 0, 60), new Vector(0.1, 0.2, 1)),
+                new Polygon(new Point(-10, -10, 30), new Point(10, -10, 30), new Point(10, 10, 35), new Point(-10, 10, 35)),
+                new Triangle(new Point(-8, -3, 10), new Point(8, -3, 12), new Point(0, 9, 11)),
+                new Tube(new Ray(new Point(0, 0, 45), new Vector(1, 0, 0)), 3));
+        Intersectable.Hit hit = new Intersectable.Hit(Double.POSITIVE_INFINITY);
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, -10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            List<Intersectable.GeoPoint> all = flat.findGeoIntersections(ray);
+            Intersectable.GeoPoint expected = all == null ? null : ray.findClosestGeoPoint(all);
+            boolean found = flat.intersect(ray, hit.reset(Double.POSITIVE_INFINITY), false);
+            assertEquals(expected != null, found, "ERROR: the hit record disagrees with the list");
+            if (found) {
+                assertSame(expected.geometry, hit.geometry, "ERROR: wrong geometry in the hit record");
+                assertEquals(expected.point, hit.toGeoPoint(ray).point, "ERROR: wrong point in the hit record");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#add(Container...)}.
+     * <br>TC08: Adding the shapes one by one gives the bounding box of the whole collection,
+     * unbounded planes do not extend it
+     */
+    @Test
+    void testAdd() {
+        Random random = new Random(3);
+        Geometries incremental = new Geometries();
+        Container[] all = new Container[101];
+        for (int i = 0; i < 100; ++i) {
+            all[i] = new Sphere(new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100,
+                    random.nextDouble() * 10), random.nextDouble() * 3 + 0.5);
+            incremental.add(all[i]);
+            if (i == 0) incremental.add(all[100] = new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        }
+        Geometries whole = new Geometries(all);
+        assertEquals(whole.boundingBox, incremental.boundingBox, "ERROR: wrong bounding box after adding the shapes");
+        incremental.setBoundingBox();
+        assertEquals(whole.boundingBox, incremental.boundingBox, "ERROR: wrong bounding box after recomputing it");
+    }
+
+}
@@ -0,0 +1,263 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing Meshes
+ * This class contains tests for the `Mesh` class.
+ */
+class MeshTests {
+    /**
+     * A bumpy grid of 20x20 quads over the xy plane, 2 faces per quad
+     */
+    private static final int GRID = 20;
+
+    /**
+     * Builds the vertex coordinates of the grid
+     *
+     * @return the vertex coordinates
+     */
+    private static double[] gridVertices() {
+        double[] vertices = new double[(GRID + 1) * (GRID + 1) * 3];
+        for (int i = 0; i <= GRID; ++i)
+            for (int j = 0; j <= GRID; ++j) {
+                int v = (i * (GRID + 1) + j) * 3;
+                vertices[v] = i;
+                vertices[v + 1] = j;
+                vertices[v + 2] = Math.sin(i) + Math.cos(j);
+            }
+        return vertices;
+    }
+
+    /**
+     * Builds the vertex indices of the grid faces
+     *
+     * @return the vertex indices
+     */
+    private static int[] gridFaces() {
+        int[] faces = new int[GRID * GRID * 6];
+        int f = 0;
+        for (int i = 0; i < GRID; ++i)
+            for (int j = 0; j < GRID; ++j) {
+                int a = i * (GRID + 1) + j, b = a + GRID + 1;
+                faces[f++] = a;
+                faces[f++] = b;
+                faces[f++] = b + 1;
+                faces[f++] = a;
+                faces[f++] = b + 1;
+                faces[f++] = a + 1;
+            }
+        return faces;
+    }
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link geometries.Mesh#Mesh(double[], int[], double[])}.
+     * <br>TC01: Correct mesh
+     * <br>TC02: Vertex coordinates which are not triples
+     * <br>TC03: A face which refers to a missing vertex
+     * <br>TC04: Wrong amount of normals
+     */
+    @Test
+    void testConstructor() {
+        double[] vertices = { 0, 0, 0, 1, 0, 0, 0, 1, 0 };
+        // TC01: Correct mesh
+        Mesh mesh = new Mesh(vertices, new int[] { 0, 1, 2 });
+        assertEquals(1, mesh.getFaceCount(), "ERROR: wrong amount of faces");
+        assertEquals(3, mesh.getVertexCount(), "ERROR: wrong amount of vertices");
+        // TC02: Vertex coordinates which are not triples
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[] { 0, 0 }, new int[0]),
+                "ERROR: vertex coordinates must come in triples");
+        // TC03: A face which refers to a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(vertices, new int[] { 0, 1, 3 }),
+                "ERROR: a face refers to a missing vertex");
+        // TC04: Wrong amount of normals
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(vertices, new int[] { 0, 1, 2 }, new double[3]),
+                "ERROR: wrong amount of normals");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double, boolean)}.
+     * <br>TC05: The mesh finds the same intersections as separate triangles
+     */
+    @Test
+    void testFindIntersections() {
+        double[] vertices = gridVertices();
+        int[] faces = gridFaces();
+        Mesh mesh = new Mesh(vertices, faces);
+        Geometries triangles = new Geometries();
+        for (int f = 0; f < faces.length; f += 3)
+            triangles.add(new Triangle(vertex(vertices, faces[f]), vertex(vertices, faces[f + 1]),
+                    vertex(vertices, faces[f + 2])));
+
+        Random random = new Random(8);
+        for (int i = 0; i < 300; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * GRID, random.nextDouble() * GRID, 10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            List<Intersectable.GeoPoint> expected = triangles.findGeoIntersections(ray);
+            List<Intersectable.GeoPoint> result = mesh.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "ERROR: the mesh finds different intersections");
+            Intersectable.GeoPoint closest = mesh.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true);
+            if (expected == null)
+                assertNull(closest, "ERROR: the mesh finds a non-existing intersection");
+            else {
+                Intersectable.GeoPoint expectedClosest = ray.findClosestGeoPoint(expected);
+                assertEquals(expectedClosest.point, closest.point, "ERROR: the mesh finds a wrong closest intersection");
+                assertEquals(expectedClosest.geometry.getNormal(expectedClosest.point),
+                        closest.geometry.getNormal(closest.point), "ERROR: wrong normal of the face");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh.Face#getMaterial()}.
+     * <br>TC06: The intersected face takes the material of the mesh and interpolates the vertex normals
+     */
+    @Test
+    void testFace() {
+        double[] vertices = { 0, 0, 0, 1, 0, 0, 0, 1, 0 };
+        double[] normals = { 0, 0, 1, 1, 0, 1, 0, 1, 1 };
+        Material material = new Material().setKd(0.5);
+        Mesh mesh = new Mesh(vertices, new int[] { 0, 1, 2 }, normals);
+        mesh.setMaterial(material);
+        Intersectable.GeoPoint gp = mesh.findClosestGeoIntersection(
+                new Ray(new Point(0.25, 0.25, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, true);
+        assertNotNull(gp, "ERROR: Ray intersects the mesh");
+        assertSame(material, gp.geometry.getMaterial(), "ERROR: the face does not take the material of the mesh");
+        assertEquals(new Vector(0.25, 0.25, 1).normalize(), gp.geometry.getNormal(gp.point),
+                "ERROR: wrong interpolated normal");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#getNormal(primitives.Point)}.
+     * <br>TC10: The normal of the mesh at a point is the normal of the face nearest to the point
+     */
+    @Test
+    void testGetNormal() {
+        // a face on the xy plane and a face on the yz plane far from it
+        double[] vertices = { 0, 0, 0, 1, 0, 0, 0, 1, 0, 10, 0, 0, 10, 1, 0, 10, 0, 1 };
+        Mesh mesh = new Mesh(vertices, new int[] { 0, 1, 2, 3, 4, 5 });
+        Vector normal = mesh.getNormal(new Point(0.25, 0.25, 0.5));
+        assertEquals(1, Math.abs(normal.dotProduct(new Vector(0, 0, 1))), 0.00001,
+                "ERROR: wrong normal above the first face");
+        normal = mesh.getNormal(new Point(9, 0.5, 0.25));
+        assertEquals(1, Math.abs(normal.dotProduct(new Vector(1, 0, 0))), 0.00001,
+                "ERROR: wrong normal beside the second face");
+        normal = mesh.getNormal(new Point(-3, -3, 1));
+        assertEquals(1, Math.abs(normal.dotProduct(new Vector(0, 0, 1))), 0.00001,
+                "ERROR: wrong normal beyond the corner of the first face");
+
+        // the vertex normals are interpolated at the nearest point of the face
+        double[] normals = { 0, 0, 1, 1, 0, 1, 0, 1, 1 };
+        Mesh smooth = new Mesh(new double[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new int[] { 0, 1, 2 }, normals);
+        assertEquals(new Vector(0.25, 0.25, 1).normalize(), smooth.getNormal(new Point(0.25, 0.25, 2)),
+                "ERROR: wrong interpolated normal");
+        assertEquals(new Vector(1, 0, 1).normalize(), smooth.getNormal(new Point(3, -1, 0)),
+                "ERROR: wrong normal beyond the second vertex");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometry#setMaterial(primitives.Material)}.
+     * <br>TC11: Setting the material and the emission of an intersected face does not change its mesh
+     */
+    @Test
+    void testFaceSetters() {
+        Mesh mesh = new Mesh(new double[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new int[] { 0, 1, 2 });
+        Material material = mesh.getMaterial();
+        Intersectable.GeoPoint gp = mesh.findClosestGeoIntersection(
+                new Ray(new Point(0.25, 0.25, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, true);
+        assertNotNull(gp, "ERROR: Ray intersects the mesh");
+        Material faceMaterial = new Material().setKd(0.5);
+        assertSame(faceMaterial, gp.geometry.setMaterial(faceMaterial).getMaterial(),
+                "ERROR: the material is not set on the face");
+        Color emission = new Color(10, 20, 30);
+        assertSame(emission, gp.geometry.setEmission(emission).getEmission(),
+                "ERROR: the emission is not set on the face");
+        assertSame(material, mesh.getMaterial(), "ERROR: the material of the face changes the mesh");
+        assertSame(Color.BLACK, mesh.getEmission(), "ERROR: the emission of the face changes the mesh");
+    }
+
+    // ============================= Boundary Value Tests =================================
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(primitives.Ray, double, boolean)}.
+     * <br>TC07: An opaque mesh blocks a ray only up to the distance
+     */
+    @Test
+    void testFindTransparency() {
+        Mesh mesh = new Mesh(gridVertices(), gridFaces());
+        Ray ray = new Ray(new Point(10.5, 10.3, 10), new Vector(0, 0, -1));
+        assertEquals(Double3.ZERO, mesh.findTransparency(ray, 20, true),
+                "ERROR: an opaque mesh does not block the ray");
+        assertEquals(Double3.ONE, mesh.findTransparency(ray, 5, true),
+                "ERROR: a mesh beyond the distance blocks the ray");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(primitives.Ray, Intersectable.Hit, boolean)}.
+     * <br>TC08: A mesh of tiny faces is intersected by a ray hitting a face head-on
+     */
+    @Test
+    void testIntersectTiny() {
+        double size = 1e-7;
+        Mesh mesh = new Mesh(new double[] { 0, 0, 0, size, 0, 0, 0, size, 0 }, new int[] { 0, 1, 2 });
+        Intersectable.Hit hit = new Intersectable.Hit(Double.POSITIVE_INFINITY);
+        assertTrue(mesh.intersect(new Ray(new Point(size / 4, size / 4, 1), new Vector(0, 0, -1)), hit, false),
+                "ERROR: Ray hitting a tiny face head-on does not intersect the mesh");
+        assertEquals(1, hit.t, 1e-10, "ERROR: wrong distance to the intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#Mesh(double[], double[], int[], double[], int[], int, BvhStats)}.
+     * <br>TC09: The prebuilt hierarchy of a mesh is accepted, and nodes which refer to missing nodes or faces,
+     * or to a second child which is not after the first one, are rejected
+     */
+    @Test
+    void testSnapshotConstructor() {
+        Mesh mesh = new Mesh(gridVertices(), gridFaces());
+        Mesh copy = new Mesh(mesh.vertices, null, mesh.faces, mesh.bounds, mesh.links, mesh.depth, mesh.stats);
+        assertEquals(mesh.getFaceCount(), copy.getFaceCount(), "ERROR: the prebuilt hierarchy is rejected");
+
+        // the root is an inner node, its second child is after its first child
+        assertEquals(0, mesh.links[1], "ERROR: the root of the grid is not an inner node");
+        int[][] bad = { { 0 }, { 1 }, { mesh.links.length / 2 } };
+        for (int[] second : bad) {
+            int[] links = mesh.links.clone();
+            links[0] = second[0];
+            assertThrows(IllegalArgumentException.class,
+                    () -> new Mesh(mesh.vertices, null, mesh.faces, mesh.bounds, links, mesh.depth, mesh.stats),
+                    "ERROR: an inner node which refers to node " + second[0]);
+        }
+        int leaf = 0;
+        while (mesh.links[leaf * 2 + 1] == 0) ++leaf;
+        int[] links = mesh.links.clone();
+        links[leaf * 2] = mesh.getFaceCount() - links[leaf * 2 + 1] + 1;
+        assertThrows(IllegalArgumentException.class,
+                () -> new Mesh(mesh.vertices, null, mesh.faces, mesh.bounds, links, mesh.depth, mesh.stats),
+                "ERROR: a leaf which refers to missing faces");
+    }
+
+    /**
+     * Gets a vertex of a coordinates array
+     *
+     * @param vertices the vertex coordinates
+     * @param index    the vertex index
+     * @return the vertex
+     */
+    private static Point vertex(double[] vertices, int index) {
+        return new Point(vertices[index * 3], vertices[index * 3 + 1], vertices[index * 3 + 2]);
+    }
+}
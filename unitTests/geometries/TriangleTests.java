@@ -162,4 +162,36 @@ public class TriangleTests {
 
     }
 
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(primitives.Ray, Intersectable.Hit, boolean)}.
+     * <br>TC07: The hit record holds the barycentric coordinates of the intersection
+     */
+    @Test
+    void testIntersect() {
+        Intersectable.Hit hit = new Intersectable.Hit(Double.POSITIVE_INFINITY);
+        assertTrue(triangle1.intersect(new Ray(new Point(1, 0.25, 0.5), new Vector(-1, 0, 0)), hit, false),
+                "ERROR: Ray intersects the triangle");
+        assertEquals(1, hit.t, 1e-10, "ERROR: wrong distance to the intersection");
+        assertEquals(0.25, hit.u, 1e-10, "ERROR: wrong barycentric coordinate of the second vertex");
+        assertEquals(0.5, hit.v, 1e-10, "ERROR: wrong barycentric coordinate of the third vertex");
+        assertFalse(triangle1.intersect(new Ray(new Point(1, 0.5, 0.5), new Vector(-1, 0, 0)), hit.reset(10), false),
+                "ERROR: Ray through the edge intersects the triangle");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(primitives.Ray, Intersectable.Hit, boolean)}.
+     * <br>TC08: A tiny triangle is intersected by a ray hitting it at a slant, and not by a ray parallel to it
+     */
+    @Test
+    void testIntersectTiny() {
+        double size = 1e-6;
+        Triangle tiny = new Triangle(new Point(0, 0, 0), new Point(size, 0, 0), new Point(0, size, 0));
+        Intersectable.Hit hit = new Intersectable.Hit(Double.POSITIVE_INFINITY);
+        assertTrue(tiny.intersect(new Ray(new Point(size / 4 - 1, size / 4, 0.1), new Vector(1, 0, -0.1)), hit, false),
+                "ERROR: Ray hitting a tiny triangle does not intersect it");
+        assertEquals(Math.sqrt(1.01), hit.t, 1e-9, "ERROR: wrong distance to the intersection");
+        assertFalse(tiny.intersect(new Ray(new Point(-1, size / 4, 0), new Vector(1, 0, 0)), hit.reset(10), false),
+                "ERROR: Ray parallel to a tiny triangle intersects it");
+    }
 }
@@ -0,0 +1,93 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the light hierarchy
+ * This class contains tests for the `LightTree` class.
+ */
+class LightTreeTests {
+    /**
+     * A row of 20 point lights along the x axis, 100 apart, and a directional light at the end
+     *
+     * @return the light sources
+     */
+    private static List<LightSource> lights() {
+        List<LightSource> lights = new ArrayList<>();
+        for (int i = 0; i < 20; ++i)
+            lights.add(new PointLight(new Color(100, 50, 10), new Point(i * 100, 0, 0)).setKq(1));
+        lights.add(new DirectionalLight(new Color(10, 10, 10), new Vector(0, 0, -1)));
+        return lights;
+    }
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link lighting.LightTree#cull(primitives.Point, double, int[])}.
+     * <br>TC01: Only the lights near the point and the directional light are found
+     */
+    @Test
+    void testCull() {
+        LightTree tree = new LightTree(lights());
+        int[] result = new int[tree.size()];
+        // the lights 0..2 give at least 100 / (1 + 200^2) to the origin, the light 3 gives less than 0.002
+        int count = tree.cull(new Point(0, 0, 0), 0.002, result);
+        int[] found = Arrays.copyOf(result, count);
+        Arrays.sort(found);
+        assertArrayEquals(new int[] { 0, 1, 2, 20 }, found, "ERROR: wrong lights");
+        assertEquals(tree.size(), tree.cull(new Point(0, 0, 0), 0, result), "ERROR: a light is skipped");
+    }
+
+    /**
+     * Test method for {@link lighting.LightTree#sample(primitives.Point, double, int, java.util.Random, int[], double[])}.
+     * <br>TC02: The weights of the samples estimate the amount of the lights, and the near lights are chosen
+     * more often
+     */
+    @Test
+    void testSample() {
+        LightTree tree = new LightTree(lights());
+        final int samples = 4, rounds = 20000;
+        int[] result = new int[tree.size() + samples];
+        double[] weights = new double[tree.size() + samples];
+        Random random = new Random(17);
+        double total = 0;
+        int[] chosen = new int[tree.size()];
+        for (int round = 0; round < rounds; ++round) {
+            int count = tree.sample(new Point(950, 0, 500), 0, samples, random, result, weights);
+            assertEquals(20, result[0], "ERROR: the directional light is not chosen first");
+            assertEquals(1, weights[0], "ERROR: wrong weight of the directional light");
+            assertEquals(samples + 1, count, "ERROR: wrong amount of samples");
+            for (int i = 1; i < count; ++i) {
+                total += weights[i];
+                ++chosen[result[i]];
+            }
+        }
+        assertEquals(20, total / rounds, 0.5, "ERROR: the weights do not estimate the amount of the lights");
+        assertTrue(chosen[9] > chosen[0] && chosen[10] > chosen[19], "ERROR: far lights are chosen more often");
+    }
+
+    // ============================= Boundary Value Tests =================================
+
+    /**
+     * Test method for {@link lighting.LightTree#cull(primitives.Point, double, int[])}.
+     * <br>TC03: Scene without positioned lights
+     */
+    @Test
+    void testNoPositionedLights() {
+        LightTree tree = new LightTree(List.of(new DirectionalLight(new Color(10, 10, 10), new Vector(0, 0, -1))));
+        int[] result = new int[1];
+        assertEquals(1, tree.cull(Point.ZERO, 1000, result), "ERROR: the directional light is skipped");
+        assertEquals(1, tree.sample(Point.ZERO, 0, 3, new Random(1), new int[4], new double[4]),
+                "ERROR: a positioned light is sampled");
+    }
+}
@@ -0,0 +1,67 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the reach of point lights and spot lights
+ * This class contains tests for the `PointLight` and `SpotLight` classes.
+ */
+class PointLightTests {
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link lighting.PointLight#illuminates(primitives.Point)}.
+     * <br>TC01: Points inside and outside the range of an attenuated light
+     * <br>TC02: A light without attenuation reaches every point
+     */
+    @Test
+    void testIlluminates() {
+        // 100 / (1 + 0.1 * d) = 0.001 at d = 999990
+        PointLight light = new PointLight(new Color(100, 50, 0), Point.ZERO).setKl(0.1);
+        assertEquals(999990, light.getRange(), 1e-6, "ERROR: wrong range of a linear attenuation");
+        // TC01: Points inside and outside the range of an attenuated light
+        assertTrue(light.illuminates(new Point(999989, 0, 0)), "ERROR: a point in the range");
+        assertFalse(light.illuminates(new Point(0, 999991, 0)), "ERROR: a point out of the range");
+        // 100 / (1 + 1 * d^2) = 0.001 at d = sqrt(99999)
+        light.setKl(0).setKq(1);
+        assertEquals(Math.sqrt(99999), light.getRange(), 1e-9, "ERROR: wrong range of a quadratic attenuation");
+        // TC02: A light without attenuation reaches every point
+        light.setKq(0);
+        assertTrue(light.illuminates(new Point(1e30, 0, 0)), "ERROR: a light without attenuation");
+    }
+
+    /**
+     * Test method for {@link lighting.SpotLight#illuminates(primitives.Point)}.
+     * <br>TC03: A spot light reaches the points in front of it only, and they get no light behind it
+     */
+    @Test
+    void testSpotIlluminates() {
+        SpotLight light = new SpotLight(new Color(100, 100, 100), Point.ZERO, new Vector(0, 0, -1));
+        Point front = new Point(5, 5, -1);
+        Point behind = new Point(5, 5, 1);
+        assertTrue(light.illuminates(front), "ERROR: a point in front of the light");
+        assertFalse(light.illuminates(behind), "ERROR: a point behind the light");
+        assertEquals(Color.BLACK.toString(), light.getIntensity(behind).toString(),
+                "ERROR: a point which is not illuminated gets light");
+    }
+
+    // ============================= Boundary Value Tests =================================
+
+    /**
+     * Test method for {@link lighting.SpotLight#illuminates(primitives.Point)}.
+     * <br>TC04: A point on the plane of the spot light, and a light which is negligible everywhere
+     */
+    @Test
+    void testIlluminatesBoundary() {
+        SpotLight light = new SpotLight(new Color(100, 100, 100), Point.ZERO, new Vector(0, 0, -1));
+        assertFalse(light.illuminates(new Point(5, 5, 0)), "ERROR: a point on the plane of the light");
+        PointLight weak = new PointLight(new Color(0.0001, 0, 0), Point.ZERO).setKc(1);
+        assertFalse(weak.illuminates(new Point(1, 0, 0)), "ERROR: a negligible light");
+    }
+}
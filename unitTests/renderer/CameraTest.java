@@ -1,12 +1,27 @@
 
 
 package renderer;
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
 
+import org.junit.jupiter.api.io.TempDir;
 import primitives.*;
 import scene.Scene;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -14,6 +29,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  * @author Dan
  */
 class CameraTest {
+    /** Temporary directory for the checkpoint files */
+    @TempDir
+    Path directory;
+
     /** Camera builder for the tests */
     private final Camera.Builder cameraBuilder = Camera.getBuilder()
             .setRayTracer(new SimpleRayTracer(new Scene("Test")))
@@ -64,4 +83,392 @@ class CameraTest {
 
     }
 
+    /**
+     * Ray tracer which counts the traced rays and runs an action on every ray
+     */
+    private static class CountingRayTracer extends RayTracerBase {
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+        /** Amount of the traced rays */
+        final AtomicInteger rays = new AtomicInteger();
+        /** Action on the amount of the traced rays */
+        private final IntConsumer action;
+
+        /**
+         * Constructs the ray tracer
+         *
+         * @param action action on the amount of the traced rays
+         */
+        CountingRayTracer(IntConsumer action) {
+            super(new Scene("Test"));
+            this.action = action;
+        }
+
+        @Override
+        public Color traceRay(Ray ray) {
+            action.accept(rays.incrementAndGet());
+            return Color.BLACK;
+        }
+    }
+
+    /**
+     * Builds a camera of a 40x30 image for rendering tests
+     *
+     * @param rayTracer the ray tracer
+     * @return the camera builder
+     */
+    private Camera.Builder renderBuilder(RayTracerBase rayTracer) {
+        return Camera.getBuilder()
+                .setRayTracer(rayTracer)
+                .setImageWriter(new ImageWriter("camera test", 40, 30))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(8, 6)
+                .setTileSize(7);
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()}.
+     * <br>TC01: Every pixel is traced exactly once by the serial rendering, by platform threads,
+     * on the fork-join pool, on virtual threads and on an executor of the caller
+     */
+    @Test
+    void testRenderImage() {
+        final int pixels = 40 * 30;
+        CountingRayTracer tracer = new CountingRayTracer(n -> {});
+        renderBuilder(tracer).setMultiThreading(0).build().renderImage();
+        assertEquals(pixels, tracer.rays.get(), "ERROR: wrong amount of rays in the serial rendering");
+
+        tracer = new CountingRayTracer(n -> {});
+        Camera camera = renderBuilder(tracer).setMultiThreading(3).build();
+        camera.renderImage();
+        camera.renderImage();
+        assertEquals(2 * pixels, tracer.rays.get(), "ERROR: wrong amount of rays in rendering twice by threads");
+
+        tracer = new CountingRayTracer(n -> {});
+        renderBuilder(tracer).setForkJoinPool().build().renderImage();
+        assertEquals(pixels, tracer.rays.get(), "ERROR: wrong amount of rays on the fork-join pool");
+
+        tracer = new CountingRayTracer(n -> {});
+        renderBuilder(tracer).setMultiThreading(4).setVirtualThreads().build().renderImage();
+        assertEquals(pixels, tracer.rays.get(), "ERROR: wrong amount of rays on virtual threads");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            tracer = new CountingRayTracer(n -> {});
+            renderBuilder(tracer).setMultiThreading(2).setExecutor(executor).build().renderImage();
+            assertEquals(pixels, tracer.rays.get(), "ERROR: wrong amount of rays on the executor");
+            assertTrue(!executor.isShutdown(), "ERROR: the executor of the caller is shut down");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()}.
+     * <br>TC02: A failure of a rendering thread is thrown by the rendering
+     * <br>TC03: A cancelled rendering stops early
+     */
+    @Test
+    void testRenderImageFailure() {
+        // TC02: A failure of a rendering thread is thrown by the rendering
+        Camera failing = renderBuilder(new CountingRayTracer(n -> {
+            if (n == 100) throw new IllegalStateException("failure");
+        })).setMultiThreading(3).build();
+        assertThrows(IllegalStateException.class, failing::renderImage, "ERROR: the failure is lost");
+
+        // TC03: A cancelled rendering stops early
+        Camera[] cancelled = new Camera[1];
+        CountingRayTracer tracer = new CountingRayTracer(n -> {
+            if (n == 100) cancelled[0].cancel();
+        });
+        cancelled[0] = renderBuilder(tracer).setMultiThreading(3).build();
+        assertThrows(CancellationException.class, cancelled[0]::renderImage, "ERROR: the rendering is not cancelled");
+        assertTrue(tracer.rays.get() < 40 * 30, "ERROR: the cancelled rendering does not stop");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setAdaptiveSuperSampling(int)}.
+     * <br>TC04: A flat image is sampled by the corners and the center of every pixel only
+     * <br>TC05: Only the pixels on an edge are subdivided, up to the maximal depth
+     * <br>TC06: Negative depth and threshold
+     */
+    @Test
+    void testAdaptiveSuperSampling() {
+        final int pixels = 40 * 30;
+        // TC04: A flat image is sampled by the corners and the center of every pixel only
+        CountingRayTracer tracer = new CountingRayTracer(n -> {});
+        renderBuilder(tracer).setAntiAliasing(true).setAdaptiveSuperSampling(3).build().renderImage();
+        assertEquals(5 * pixels, tracer.rays.get(), "ERROR: a flat pixel is subdivided");
+
+        // TC05: Only the pixels on an edge are subdivided, up to the maximal depth
+        AtomicInteger rays = new AtomicInteger();
+        RayTracerBase edge = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                rays.incrementAndGet();
+                return ray.getDirection().getX() > 0.0123 ? new Color(255, 255, 255) : Color.BLACK;
+            }
+        };
+        renderBuilder(edge).setAntiAliasing(true).setAdaptiveSuperSampling(2).build().renderImage();
+        // a column of pixels on the edge - at most 4 corners, a center, 4 middles and 4 quarter centers
+        assertTrue(rays.get() > 5 * pixels, "ERROR: the edge is not subdivided");
+        assertTrue(rays.get() <= 5 * pixels + 8 * 30, "ERROR: flat pixels are subdivided or the depth is exceeded");
+
+        // TC06: Negative depth and threshold
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setAdaptiveSuperSampling(-1),
+                "ERROR: negative depth");
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setAdaptiveThreshold(-1),
+                "ERROR: negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setDofThreshold(double)}.
+     * <br>TC07: All the aperture rays are traced without a threshold
+     * <br>TC08: The sampling of a uniform image stops early
+     * <br>TC09: Negative threshold
+     */
+    @Test
+    void testDofThreshold() {
+        final int pixels = 40 * 30;
+        // TC07: All the aperture rays are traced without a threshold
+        CountingRayTracer tracer = new CountingRayTracer(n -> {});
+        Camera camera = renderBuilder(tracer).setDofON(true).setAperture(1).setDepthOfField(5).build();
+        camera.renderImage();
+        Camera.DofStatistics statistics = camera.getDofStatistics();
+        assertEquals(pixels, statistics.pixels(), "ERROR: wrong amount of pixels");
+        assertEquals(tracer.rays.get(), statistics.samples(), "ERROR: wrong amount of samples");
+        assertEquals(0, statistics.convergedPixels(), "ERROR: the sampling stops without a threshold");
+        assertTrue(statistics.averageSamples() > 9, "ERROR: too few aperture rays");
+        final long allSamples = statistics.samples();
+
+        // TC08: The sampling of a uniform image stops early
+        tracer = new CountingRayTracer(n -> {});
+        camera = renderBuilder(tracer).setDofON(true).setAperture(1).setDepthOfField(5).setDofThreshold(1).build();
+        camera.renderImage();
+        statistics = camera.getDofStatistics();
+        assertEquals(pixels, statistics.convergedPixels(), "ERROR: a uniform pixel does not converge");
+        assertEquals(9 * pixels, statistics.samples(), "ERROR: a uniform pixel takes more than the minimal samples");
+        assertTrue(statistics.samples() < allSamples, "ERROR: the sampling does not stop early");
+
+        // TC09: Negative threshold
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setDofThreshold(-1),
+                "ERROR: negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setAntiAliasingNumberOfRays(int)}.
+     * <br>TC10: A grid of rays is traced through every pixel
+     */
+    @Test
+    void testAntiAliasing() {
+        CountingRayTracer tracer = new CountingRayTracer(n -> {});
+        renderBuilder(tracer).setAntiAliasing(true).setAntiAliasingNumberOfRays(5).build().renderImage();
+        assertEquals(25 * 40 * 30, tracer.rays.get(), "ERROR: wrong amount of anti-aliasing rays");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setProgressive(int)}.
+     * <br>TC11: Every pass traces a sample of every pixel into the image, with snapshots between the passes
+     * <br>TC12: The rendering of a uniform image stops at the noise target after 2 passes
+     * <br>TC13: The rendering stops when the time budget is spent
+     * <br>TC14: The samples of a pixel on an edge are spread over the pixel
+     * <br>TC15: Negative passes, time budget, noise target and snapshot interval
+     */
+    @Test
+    void testProgressive() {
+        final int pixels = 40 * 30;
+        // TC11: Every pass traces a sample of every pixel into the image, with snapshots between the passes
+        AtomicInteger writes = new AtomicInteger();
+        ImageWriter writer = new ImageWriter("camera test", 40, 30) {
+            @Override
+            public void writeToImage() {
+                writes.incrementAndGet();
+            }
+        };
+        CountingRayTracer tracer = new CountingRayTracer(n -> {});
+        Camera camera = renderBuilder(tracer).setImageWriter(writer).setProgressive(4).setSnapshotInterval(1, 0)
+                .setMultiThreading(3).build();
+        camera.renderImage();
+        assertEquals(4 * pixels, tracer.rays.get(), "ERROR: wrong amount of rays");
+        assertEquals(4, camera.getPassesDone(), "ERROR: wrong amount of passes");
+        assertEquals(4, writer.getPixelCount(17, 11), "ERROR: the samples are not accumulated");
+        assertEquals(4, writes.get(), "ERROR: wrong amount of snapshots");
+
+        // TC12: The rendering of a uniform image stops at the noise target after 2 passes
+        tracer = new CountingRayTracer(n -> {});
+        camera = renderBuilder(tracer).setProgressive(50).setNoiseTarget(0.5).build();
+        camera.renderImage();
+        assertEquals(2, camera.getPassesDone(), "ERROR: the rendering does not stop at the noise target");
+        assertEquals(2 * pixels, tracer.rays.get(), "ERROR: wrong amount of rays");
+
+        // TC13: The rendering stops when the time budget is spent
+        camera = renderBuilder(new CountingRayTracer(n -> {})).setProgressive(50).setTimeBudget(1e-9).build();
+        camera.renderImage();
+        assertEquals(1, camera.getPassesDone(), "ERROR: the rendering does not stop at the time budget");
+
+        // TC14: The samples of a pixel on an edge are spread over the pixel
+        // the edge is the middle of the 21st column of pixels
+        RayTracerBase edge = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                return ray.getDirection().getX() < -0.01 ? new Color(255, 255, 255) : Color.BLACK;
+            }
+        };
+        writer = new ImageWriter("camera test", 40, 30);
+        renderBuilder(edge).setImageWriter(writer).setProgressive(16).build().renderImage();
+        assertEquals(127.5, writer.getPixel(20, 5).getRed(), 20, "ERROR: the edge pixel is not anti-aliased");
+        assertEquals(0, writer.getPixel(10, 5).getRed(), 0, "ERROR: wrong color");
+
+        // TC15: Negative passes, time budget, noise target and snapshot interval
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setProgressive(-1),
+                "ERROR: negative passes");
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setTimeBudget(-1),
+                "ERROR: negative time budget");
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setNoiseTarget(-1),
+                "ERROR: negative noise target");
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setSnapshotInterval(-1, 0),
+                "ERROR: negative snapshot interval");
+    }
+
+    /**
+     * Ray tracer which colors a ray by its direction, and cancels the rendering of a camera at a given ray
+     */
+    private static class CancellingRayTracer extends RayTracerBase {
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+        /** Amount of the traced rays */
+        final AtomicInteger rays = new AtomicInteger();
+        /** The ray which cancels the rendering */
+        private final int cancelAt;
+        /** The camera to be cancelled */
+        Camera camera;
+
+        /**
+         * Constructs the ray tracer
+         *
+         * @param cancelAt the ray which cancels the rendering, 0 for none
+         */
+        CancellingRayTracer(int cancelAt) {
+            super(new Scene("Test"));
+            this.cancelAt = cancelAt;
+        }
+
+        @Override
+        public Color traceRay(Ray ray) {
+            if (rays.incrementAndGet() == cancelAt) camera.cancel();
+            Vector direction = ray.getDirection();
+            return new Color(1000 * Math.abs(direction.getX()), 1000 * Math.abs(direction.getY()), 100);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setCheckpoint(java.nio.file.Path, double)}.
+     * <br>TC16: A cancelled rendering is resumed from its checkpoint without the finished tiles, into the same
+     * image, and the checkpoint is deleted
+     * <br>TC17: A progressive rendering is resumed after its last finished pass
+     * <br>TC18: A checkpoint of another image is rejected
+     * <br>TC19: Null file and negative interval
+     */
+    @Test
+    void testCheckpoint() {
+        final int pixels = 40 * 30;
+        Path file = directory.resolve("render.checkpoint");
+        ImageWriter expected = new ImageWriter("camera test", 40, 30);
+        renderBuilder(new CancellingRayTracer(0)).setImageWriter(expected).build().renderImage();
+
+        // TC16: A cancelled rendering is resumed from its checkpoint without the finished tiles
+        CancellingRayTracer tracer = new CancellingRayTracer(500);
+        tracer.camera = renderBuilder(tracer).setCheckpoint(file, 0).setMultiThreading(2).build();
+        assertThrows(CancellationException.class, tracer.camera::renderImage, "ERROR: the rendering is not cancelled");
+        assertTrue(Files.exists(file), "ERROR: no checkpoint");
+        CancellingRayTracer resumed = new CancellingRayTracer(0);
+        ImageWriter writer = new ImageWriter("camera test", 40, 30);
+        renderBuilder(resumed).setImageWriter(writer).setCheckpoint(file, 1000).setResume(true).build()
+                .renderImage();
+        assertTrue(resumed.rays.get() < pixels - 400, "ERROR: the finished tiles are rendered again");
+        for (int i = 0; i < 30; ++i)
+            for (int j = 0; j < 40; ++j)
+                assertEquals(expected.getPixel(j, i).toString(), writer.getPixel(j, i).toString(),
+                        "ERROR: wrong pixel (" + j + ", " + i + ") of the resumed image");
+        assertTrue(!Files.exists(file), "ERROR: the checkpoint of a complete rendering is not deleted");
+
+        // TC17: A progressive rendering is resumed after its last finished pass
+        tracer = new CancellingRayTracer(2 * pixels + 100);
+        tracer.camera = renderBuilder(tracer).setProgressive(4).setNoiseTarget(0.01).setCheckpoint(file, 0).build();
+        assertThrows(CancellationException.class, tracer.camera::renderImage, "ERROR: the rendering is not cancelled");
+        resumed = new CancellingRayTracer(0);
+        writer = new ImageWriter("camera test", 40, 30);
+        Camera camera = renderBuilder(resumed).setImageWriter(writer).setProgressive(4).setNoiseTarget(0.01)
+                .setCheckpoint(file, 0).setResume(true).build();
+        camera.renderImage();
+        assertEquals(2 * pixels, resumed.rays.get(), "ERROR: wrong amount of rays of the resumed passes");
+        assertEquals(4, camera.getPassesDone(), "ERROR: wrong amount of passes");
+        assertEquals(4, writer.getPixelCount(3, 3), "ERROR: the samples of the finished passes are lost");
+
+        // =============== Boundary Values Tests ==================
+        // TC18: A checkpoint of another image is rejected
+        tracer = new CancellingRayTracer(500);
+        tracer.camera = renderBuilder(tracer).setCheckpoint(file, 0).build();
+        assertThrows(CancellationException.class, tracer.camera::renderImage, "ERROR: the rendering is not cancelled");
+        Camera other = renderBuilder(new CancellingRayTracer(0)).setImageWriter(new ImageWriter("camera test", 30, 40))
+                .setCheckpoint(file, 0).setResume(true).build();
+        assertThrows(IllegalStateException.class, other::renderImage, "ERROR: a checkpoint of another image");
+
+        // TC19: Null file and negative interval
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setCheckpoint(null, 1),
+                "ERROR: null file");
+        assertThrows(IllegalArgumentException.class, () -> Camera.getBuilder().setCheckpoint(file, -1),
+                "ERROR: negative interval");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()}.
+     * <br>TC20: An interrupted rendering waits for its tasks, keeps the interrupt status and is cancelled
+     */
+    @Test
+    void testInterrupt() throws InterruptedException {
+        Thread caller = Thread.currentThread();
+        CountingRayTracer tracer = new CountingRayTracer(n -> {
+            if (n == 100) caller.interrupt();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Camera camera = renderBuilder(tracer).setMultiThreading(2).build();
+        CancellationException e = assertThrows(CancellationException.class, camera::renderImage,
+                "ERROR: the interrupted rendering is not cancelled");
+        assertTrue(e.getCause() instanceof InterruptedException, "ERROR: the interrupt is not the cause");
+        assertTrue(Thread.interrupted(), "ERROR: the interrupt status is lost");
+        int rays = tracer.rays.get();
+        Thread.sleep(100);
+        assertEquals(rays, tracer.rays.get(), "ERROR: a task still renders after the rendering has returned");
+        assertTrue(rays < 40 * 30, "ERROR: the interrupted rendering does not stop");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()}.
+     * <br>TC21: A geometry which was removed from the scene between two renderings by the same ray tracer
+     * casts no shadow from the occluder cache of the first rendering
+     */
+    @Test
+    void testEditedScene() {
+        Scene scene = new Scene("Edited");
+        Sphere occluder = new Sphere(new Point(50, 0, -50), 10d);
+        scene.geometries.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKd(0.5)), occluder);
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(100, 0, 0)));
+        ImageWriter writer = new ImageWriter("camera test", 1, 1);
+        Camera camera = cameraBuilder.setRayTracer(new SimpleRayTracer(scene)).setImageWriter(writer)
+                .setVpSize(1, 1).setMultiThreading(0).build();
+
+        camera.renderImage();
+        assertEquals(Color.BLACK.toString(), writer.getPixel(0, 0).toString(), "ERROR: the point is not shadowed");
+        scene.geometries.remove(occluder);
+        camera.renderImage();
+        assertTrue(writer.getPixel(0, 0).getRed() > 0, "ERROR: a removed geometry still casts a shadow");
+    }
 }
@@ -32,4 +32,40 @@ class ImageWriterTests {
         imageWriter.writeToImage();
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link renderer.ImageWriter#quantize()}.
+     * <br>TC01: Clamping, Reinhard tone mapping and exposure of colors beyond the 8 bit range
+     */
+    @Test
+    void testQuantize() {
+        ImageWriter imageWriter = new ImageWriter("hdr", 2, 1);
+        imageWriter.writePixel(0, 0, new Color(510, 255, 100));
+        imageWriter.writePixel(1, 0, new Color(0, 1, 2.5));
+        assertEquals(new Color(510, 255, 100).toString(), imageWriter.getPixel(0, 0).toString(),
+                "ERROR: the dynamic range is lost");
+        assertArrayEquals(new int[] { 0xFFFF64, 0x000102 }, imageWriter.quantize(), "ERROR: wrong clamping");
+        imageWriter.setToneMapping(ImageWriter.ToneMapping.REINHARD);
+        assertArrayEquals(new int[] { 170 << 16 | 127 << 8 | 71, 0x000002 }, imageWriter.quantize(),
+                "ERROR: wrong Reinhard tone mapping");
+        imageWriter.setToneMapping(ImageWriter.ToneMapping.CLAMP).setExposure(0.5);
+        assertArrayEquals(new int[] { 0xFF7F32, 0x000001 }, imageWriter.quantize(), "ERROR: wrong exposure");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#addPixel(int, int, primitives.Color)}.
+     * <br>TC02: The pixel gets the average of the added colors
+     */
+    @Test
+    void testAddPixel() {
+        ImageWriter imageWriter = new ImageWriter("accumulation", 1, 1);
+        imageWriter.addPixel(0, 0, new Color(100, 0, 30));
+        imageWriter.addPixel(0, 0, new Color(200, 0, 0));
+        imageWriter.addPixel(0, 0, new Color(0, 0, 0));
+        assertEquals(3, imageWriter.getPixelCount(0, 0), "ERROR: wrong amount of colors");
+        assertEquals(new Color(100, 0, 10).toString(), imageWriter.getPixel(0, 0).toString(),
+                "ERROR: wrong average");
+        assertArrayEquals(new int[] { 100 << 16 | 10 }, imageWriter.quantize(), "ERROR: wrong quantized average");
+        imageWriter.writePixel(0, 0, new Color(1, 2, 3));
+        assertEquals(1, imageWriter.getPixelCount(0, 0), "ERROR: writing does not replace the colors");
+    }
+}
@@ -0,0 +1,219 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the rendering by several processes
+ * This class contains tests for the `RenderCoordinator` and `RenderWorker` classes.
+ */
+class RenderCoordinatorTests {
+
+    /**
+     * Builds a camera of a sphere on a plane with anti-aliasing
+     *
+     * @param writer the image writer
+     * @return the camera
+     */
+    private static Camera camera(ImageWriter writer) {
+        Scene scene = new Scene("Distributed").setAmbientLight(new AmbientLight(new Color(30, 30, 30), 1));
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -100), 30).setEmission(new Color(60, 20, 20))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)),
+                new Plane(new Point(0, -30, 0), new Vector(0, 1, 0)).setEmission(new Color(20, 20, 40))
+                        .setMaterial(new Material().setKd(0.6).setKr(0.2)));
+        scene.lights.add(new PointLight(new Color(500, 400, 300), new Point(50, 80, 0)).setKl(0.001));
+        return Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(writer)
+                .setLocation(new Point(0, 10, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(100)
+                .setVpSize(100, 75)
+                .setAntiAliasing(true)
+                .setAntiAliasingNumberOfRays(2)
+                .setTileSize(8)
+                .build();
+    }
+
+    /**
+     * Renders the image by a worker on a thread of this process
+     *
+     * @param port the port of the coordinator
+     * @return the thread of the worker
+     */
+    private static Thread startWorker(int port) {
+        Thread thread = new Thread(() -> {
+            try {
+                new RenderWorker("localhost", port, 2).run();
+            } catch (IOException ignore) {
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Starts a worker process
+     *
+     * @param port the port of the coordinator
+     * @return the process of the worker
+     * @throws Exception if the process can not be started
+     */
+    private static Process startProcess(int port) throws Exception {
+        Path classes = Path.of(RenderWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        return new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", classes.toString(), "renderer.RenderWorker", "localhost", String.valueOf(port), "2")
+                .inheritIO().start();
+    }
+
+    /**
+     * Checks that the image rendered by the workers is the image of the camera, without writing the image
+     *
+     * @param actual the image rendered by the workers
+     */
+    private static void assertSameImage(ImageWriter actual) {
+        ImageWriter expected = new ImageWriter("distributed test", actual.getNx(), actual.getNy());
+        Camera camera = camera(expected);
+        for (int i = 0; i < actual.getNy(); ++i)
+            for (int j = 0; j < actual.getNx(); ++j) {
+                expected.writePixel(j, i, camera.calcPixelColor(actual.getNx(), actual.getNy(), j, i));
+                assertEquals(expected.getPixel(j, i).toString(), actual.getPixel(j, i).toString(),
+                        "ERROR: wrong pixel (" + j + ", " + i + ")");
+            }
+    }
+
+    /**
+     * Test method for {@link renderer.RenderCoordinator#render()}.
+     * <br>TC01: Two worker processes render the same image as the camera
+     */
+    @Test
+    void testRender() throws Exception {
+        ImageWriter writer = new ImageWriter("distributed test", 40, 30);
+        try (RenderCoordinator coordinator = new RenderCoordinator(camera(writer), 0)) {
+            Process[] processes = { startProcess(coordinator.getPort()), startProcess(coordinator.getPort()) };
+            try {
+                coordinator.render();
+                for (Process process : processes) {
+                    assertTrue(process.waitFor(30, TimeUnit.SECONDS), "ERROR: a worker process does not end");
+                    assertEquals(0, process.exitValue(), "ERROR: a worker process failed");
+                }
+            } finally {
+                for (Process process : processes) process.destroyForcibly();
+            }
+        }
+        assertSameImage(writer);
+    }
+
+    // =============== Boundary Values Tests ==================
+
+    /**
+     * Test method for {@link renderer.RenderCoordinator#render()}.
+     * <br>TC02: The tiles of a worker which disconnects are rendered by another worker
+     */
+    @Test
+    void testFailingWorker() throws Exception {
+        ImageWriter writer = new ImageWriter("distributed test", 40, 30);
+        try (RenderCoordinator coordinator = new RenderCoordinator(camera(writer), 0)) {
+            Thread failing = new Thread(() -> {
+                // takes 4 tiles and disconnects without rendering them
+                try (Socket socket = new Socket("localhost", coordinator.getPort())) {
+                    ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+                    out.writeInt(4);
+                    out.flush();
+                    ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+                    in.readInt();
+                    in.readInt();
+                    in.readFully(new byte[in.readInt()]);
+                    for (int k = 0; k < 16; ++k) in.readInt();
+                } catch (IOException ignore) {
+                }
+            });
+            Thread rendering = new Thread(coordinator::render);
+            rendering.start();
+            failing.start();
+            failing.join();
+            Thread worker = startWorker(coordinator.getPort());
+            rendering.join();
+            worker.join();
+        }
+        assertSameImage(writer);
+    }
+
+    /**
+     * Test method for {@link renderer.RenderCoordinator#setTimeout(double)}.
+     * <br>TC03: The rendering fails when no worker connects for the timeout
+     * <br>TC04: Negative timeout
+     */
+    @Test
+    void testTimeout() throws IOException {
+        // TC03: The rendering fails when no worker connects for the timeout
+        Camera camera = camera(new ImageWriter("distributed test", 40, 30));
+        try (RenderCoordinator coordinator = new RenderCoordinator(camera, 0).setTimeout(0.3)) {
+            long start = System.nanoTime();
+            assertThrows(IllegalStateException.class, coordinator::render,
+                    "ERROR: the rendering waits without workers");
+            assertTrue(System.nanoTime() - start < 10_000_000_000L, "ERROR: the timeout is not kept");
+
+            // TC04: Negative timeout
+            assertThrows(IllegalArgumentException.class, () -> coordinator.setTimeout(-1), "ERROR: negative timeout");
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.RenderCoordinator#close()}.
+     * <br>TC05: Closing the coordinator cancels the rendering and disconnects a worker which holds tiles
+     */
+    @Test
+    void testClose() throws Exception {
+        Camera camera = camera(new ImageWriter("distributed test", 40, 30));
+        RenderCoordinator coordinator = new RenderCoordinator(camera, 0);
+        boolean[] disconnected = new boolean[1];
+        Thread stuck = new Thread(() -> {
+            // takes 2 tiles and never returns them
+            try (Socket socket = new Socket("localhost", coordinator.getPort())) {
+                ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+                out.writeInt(2);
+                out.flush();
+                ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+                in.readInt();
+                in.readInt();
+                in.readFully(new byte[in.readInt()]);
+                for (int k = 0; k < 8; ++k) in.readInt();
+                in.readInt();
+            } catch (IOException e) {
+                disconnected[0] = true;
+            }
+        });
+        stuck.start();
+        Thread closing = new Thread(() -> {
+            try {
+                Thread.sleep(500);
+                coordinator.close();
+            } catch (InterruptedException | IOException ignore) {
+            }
+        });
+        closing.start();
+        assertThrows(CancellationException.class, coordinator::render, "ERROR: the closed rendering is not cancelled");
+        stuck.join(10_000);
+        assertFalse(stuck.isAlive(), "ERROR: the worker is not disconnected");
+        assertTrue(disconnected[0], "ERROR: the worker is not disconnected");
+        closing.join();
+    }
+}
@@ -0,0 +1,45 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the running statistics of color samples
+ * This class contains tests for the `SampleStatistics` class.
+ */
+class SampleStatisticsTests {
+
+    /**
+     * Test method for {@link renderer.SampleStatistics#add(primitives.Color)}.
+     * <br>TC01: The mean and the variance of several samples
+     */
+    @Test
+    void testAdd() {
+        SampleStatistics statistics = new SampleStatistics();
+        statistics.add(new Color(10, 20, 0));
+        statistics.add(new Color(20, 20, 0));
+        statistics.add(new Color(30, 20, 6));
+        assertEquals(3, statistics.getCount(), "ERROR: wrong amount of samples");
+        assertEquals(new Color(20, 20, 2).toString(), statistics.getMean().toString(), "ERROR: wrong mean");
+        assertEquals(100, statistics.getVariance(), 1e-10, "ERROR: wrong variance");
+        assertTrue(statistics.converged(6), "ERROR: the standard error is below the threshold");
+        assertFalse(statistics.converged(5), "ERROR: the standard error is above the threshold");
+    }
+
+    // =============== Boundary Values Tests ==================
+
+    /**
+     * Test method for {@link renderer.SampleStatistics#converged(double)}.
+     * <br>TC02: No samples and a single sample
+     */
+    @Test
+    void testConverged() {
+        SampleStatistics statistics = new SampleStatistics();
+        assertEquals(Color.BLACK, statistics.getMean(), "ERROR: the mean of no samples is not black");
+        statistics.add(new Color(1, 2, 3));
+        assertEquals(0, statistics.getVariance(), "ERROR: the variance of a single sample");
+        assertFalse(statistics.converged(100), "ERROR: a single sample converges");
+    }
+}
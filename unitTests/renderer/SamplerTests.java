@@ -0,0 +1,151 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the sample generators
+ * This class contains tests for the `StratifiedSampler`, `HaltonSampler` and `SobolSampler` classes.
+ */
+class SamplerTests {
+    /**
+     * Counts the samples of a pixel in every cell of a grid over the unit square, and checks that
+     * the samples are in the unit square and depend only on the pixel and the index
+     *
+     * @param sampler the sampler
+     * @param pixel   the index of the pixel
+     * @param count   the amount of the samples
+     * @param grid    the amount of the cells in a row of the grid
+     * @return the amount of the samples in every cell
+     */
+    private static int[] cells(Sampler sampler, long pixel, int count, int grid) {
+        int[] cells = new int[grid * grid];
+        double[] point = new double[2];
+        double[] again = new double[2];
+        for (int k = 0; k < count; ++k) {
+            sampler.sample(pixel, k, count, point);
+            assertTrue(point[0] >= 0 && point[0] < 1 && point[1] >= 0 && point[1] < 1,
+                    "ERROR: a sample out of the unit square");
+            sampler.sample(pixel, k, count, again);
+            assertArrayEquals(point, again, "ERROR: the sample is not deterministic");
+            ++cells[(int) (point[1] * grid) * grid + (int) (point[0] * grid)];
+        }
+        return cells;
+    }
+
+    /**
+     * Test method for {@link renderer.StratifiedSampler#sample(long, int, int, double[])}.
+     * <br>TC01: Every cell gets a sample, and the first samples are spread over the square
+     */
+    @Test
+    void testStratified() {
+        Sampler sampler = new StratifiedSampler();
+        for (int cell : cells(sampler, 7, 64, 8))
+            assertEquals(1, cell, "ERROR: a cell without a single sample");
+        // the first quarter of the samples reaches every quarter of the square
+        for (int cell : cells(sampler, 7, 16, 2))
+            assertTrue(cell > 0, "ERROR: the first samples are not spread");
+    }
+
+    /**
+     * Test method for {@link renderer.HaltonSampler#sample(long, int, int, double[])}.
+     * <br>TC02: Every cell of a 2x2 grid gets a quarter of the samples, up to the rotation of the pixel
+     */
+    @Test
+    void testHalton() {
+        Sampler sampler = new HaltonSampler();
+        for (int cell : cells(sampler, 3, 64, 2))
+            assertTrue(cell >= 14 && cell <= 18, "ERROR: the samples are not spread evenly");
+        assertEquals(0.5, HaltonSampler.radicalInverse(1, 2), "ERROR: wrong radical inverse");
+        assertEquals(1 / 3d + 1 / 9d, HaltonSampler.radicalInverse(4, 3), 1e-15, "ERROR: wrong radical inverse");
+    }
+
+    /**
+     * Test method for {@link renderer.SobolSampler#sample(long, int, int, double[])}.
+     * <br>TC03: The scrambled sequence keeps the stratification of the elementary intervals,
+     * and the pixels are scrambled differently
+     */
+    @Test
+    void testSobol() {
+        Sampler sampler = new SobolSampler();
+        for (long pixel = 0; pixel < 10; ++pixel)
+            for (int cell : cells(sampler, pixel, 16, 4))
+                assertEquals(1, cell, "ERROR: an elementary interval without a single sample");
+        double[] p1 = new double[2];
+        double[] p2 = new double[2];
+        sampler.sample(1, 0, 16, p1);
+        sampler.sample(2, 0, 16, p2);
+        assertNotEquals(p1[0], p2[0], "ERROR: the pixels are not scrambled");
+    }
+
+    /**
+     * Test method for {@link renderer.StratifiedSampler#sample(long, int, int, double[])}.
+     * <br>TC04: An amount of samples which is not a square still gets a cell of its own for every sample,
+     * and the cells cover the whole square
+     */
+    @Test
+    void testStratifiedNotSquare() {
+        Sampler sampler = new StratifiedSampler();
+        double[] point = new double[2];
+        for (int count : new int[] { 5, 50 }) {
+            int rows = (int) Math.sqrt(count);
+            for (long pixel = 0; pixel < 20; ++pixel) {
+                int[] inRow = new int[rows];
+                for (int k = 0; k < count; ++k) {
+                    sampler.sample(pixel, k, count, point);
+                    int row = (int) (point[1] * rows);
+                    ++inRow[row];
+                }
+                for (int row = 0; row < rows; ++row) {
+                    assertTrue(inRow[row] == count / rows || inRow[row] == count / rows + 1,
+                            "ERROR: the rows are not even for " + count + " samples");
+                    boolean[] taken = new boolean[inRow[row]];
+                    for (int k = 0; k < count; ++k) {
+                        sampler.sample(pixel, k, count, point);
+                        if ((int) (point[1] * rows) != row) continue;
+                        int column = (int) (point[0] * inRow[row]);
+                        assertFalse(taken[column], "ERROR: two samples in a cell for " + count + " samples");
+                        taken[column] = true;
+                    }
+                }
+            }
+        }
+        // no quarter of the square is left without a sample
+        for (long pixel = 0; pixel < 20; ++pixel)
+            for (int cell : cells(sampler, pixel, 5, 2))
+                assertTrue(cell > 0, "ERROR: a quarter of the square without a sample");
+    }
+
+    /**
+     * Test method for {@link renderer.Sampler#sample(long, int, int, int, double[])}.
+     * <br>TC05: The aperture samples are not correlated with the pixel samples of the same index - every pair
+     * of a pixel cell and an aperture cell of each coordinate gets samples
+     */
+    @Test
+    void testLensDimensions() {
+        final int count = 256;
+        final int grid = 4;
+        double[] pixelPoint = new double[2];
+        double[] lensPoint = new double[2];
+        double[] again = new double[2];
+        for (Sampler sampler : new Sampler[] { new StratifiedSampler(), new HaltonSampler(), new SobolSampler() })
+            for (long pixel = 0; pixel < 5; ++pixel) {
+                int[][] joint = new int[2][grid * grid];
+                for (int k = 0; k < count; ++k) {
+                    sampler.sample(pixel, k, count, Sampler.PIXEL, pixelPoint);
+                    sampler.sample(pixel, k, count, Sampler.LENS, lensPoint);
+                    assertTrue(lensPoint[0] >= 0 && lensPoint[0] < 1 && lensPoint[1] >= 0 && lensPoint[1] < 1,
+                            "ERROR: an aperture sample out of the unit square");
+                    sampler.sample(pixel, k, count, Sampler.LENS, again);
+                    assertArrayEquals(lensPoint, again, "ERROR: the aperture sample is not deterministic");
+                    for (int c = 0; c < 2; ++c)
+                        ++joint[c][(int) (pixelPoint[c] * grid) * grid + (int) (lensPoint[c] * grid)];
+                }
+                for (int c = 0; c < 2; ++c)
+                    for (int cell : joint[c])
+                        assertTrue(cell >= count / (grid * grid) / 3, "ERROR: the aperture samples of "
+                                + sampler.getClass().getSimpleName() + " follow the pixel samples");
+            }
+    }
+}
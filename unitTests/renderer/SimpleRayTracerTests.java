@@ -0,0 +1,158 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the ray tracer
+ * This class contains tests for the `SimpleRayTracer` class.
+ */
+class SimpleRayTracerTests {
+
+    /**
+     * Builds a scene of two parallel half mirrors, z = 0 and z = -10, without lights
+     *
+     * @return the scene
+     */
+    private static Scene mirrors() {
+        Scene scene = new Scene("Mirrors");
+        Material mirror = new Material().setKr(0.5);
+        scene.geometries.add(
+                new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).setEmission(new Color(100, 100, 100))
+                        .setMaterial(mirror),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)).setEmission(new Color(100, 100, 100))
+                        .setMaterial(mirror));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(primitives.Ray)}.
+     * <br>TC01: The ray bounces between the mirrors up to the maximal level
+     */
+    @Test
+    void testTraceRay() {
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, -1));
+        // 10 levels of the ray tree, each one half of the previous one
+        double expected = 100 * (2 - Math.pow(0.5, 9));
+        assertEquals(expected, new SimpleRayTracer(mirrors()).traceRay(ray).getRed(), 1e-9,
+                "ERROR: wrong color of the ray tree");
+    }
+
+    // =============== Boundary Values Tests ==================
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setMaxSecondaryRays(int)}.
+     * <br>TC02: The limit drops the rest of the ray tree
+     * <br>TC03: A limit above the ray tree does not change the color
+     * <br>TC04: Negative limit
+     */
+    @Test
+    void testMaxSecondaryRays() {
+        Ray ray = new Ray(new Point(0, 0, -5), new Vector(0, 0, -1));
+        // TC02: The limit drops the rest of the ray tree
+        assertEquals(150, new SimpleRayTracer(mirrors()).setMaxSecondaryRays(1).traceRay(ray).getRed(), 1e-9,
+                "ERROR: the limit does not drop the rest of the ray tree");
+        // TC03: A limit above the ray tree does not change the color
+        assertEquals(new SimpleRayTracer(mirrors()).traceRay(ray).getRed(),
+                new SimpleRayTracer(mirrors()).setMaxSecondaryRays(100).traceRay(ray).getRed(), 1e-9,
+                "ERROR: the limit changes the color");
+        // TC04: Negative limit
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(mirrors()).setMaxSecondaryRays(-1),
+                "ERROR: negative limit");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setOccluderCache(boolean)}.
+     * <br>TC05: Neighbouring shadowed points are blocked by the cached occluder, with the same colors
+     */
+    @Test
+    void testOccluderCache() {
+        Scene scene = new Scene("Shadow");
+        scene.geometries.add(
+                new Plane(new Point(0, 0, -100), new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)),
+                new Sphere(new Point(0, 0, -50), 20d).setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(0, 0, 100)));
+        SimpleRayTracer cached = new SimpleRayTracer(scene);
+        SimpleRayTracer uncached = new SimpleRayTracer(scene).setOccluderCache(false);
+        for (int x = -3; x <= 3; ++x) {
+            Ray ray = new Ray(new Point(x, 100, 0), new Vector(0, -0.8, -1));
+            assertEquals(uncached.traceRay(ray).toString(), cached.traceRay(ray).toString(),
+                    "ERROR: the cache changes the color");
+        }
+        assertEquals(1, cached.getOccluderCacheMisses(), "ERROR: the occluder is not cached");
+        assertEquals(6, cached.getOccluderCacheHits(), "ERROR: the cached occluder does not block the points");
+        assertEquals(0, uncached.getOccluderCacheHits() + uncached.getOccluderCacheMisses(),
+                "ERROR: the cache is used when it is off");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setLightCulling(boolean)}.
+     * <br>TC06: A light whose contribution is below the threshold is skipped, the other light is not
+     * <br>TC07: Negative threshold and amount of light samples
+     */
+    @Test
+    void testLightCulling() {
+        Scene near = new Scene("Near");
+        near.geometries.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)));
+        near.lights.add(new PointLight(new Color(300, 300, 300), new Point(0, 0, 100)).setKl(0.01));
+        Scene both = new Scene("Both");
+        both.geometries = near.geometries;
+        both.lights.add(near.lights.get(0));
+        both.lights.add(new PointLight(new Color(300, 300, 300), new Point(1000, 0, 100)).setKq(0.001));
+
+        // TC06: A light whose contribution is below the threshold is skipped, the other light is not
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+        Color expected = new SimpleRayTracer(near).traceRay(ray);
+        assertNotEquals(expected.toString(), new SimpleRayTracer(both).traceRay(ray).toString(),
+                "ERROR: the far light does not contribute");
+        assertEquals(expected.toString(),
+                new SimpleRayTracer(both).setLightCulling(true).setLightThreshold(1).traceRay(ray).toString(),
+                "ERROR: wrong lights are skipped");
+
+        // TC07: Negative threshold and amount of light samples
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(both).setLightThreshold(-1),
+                "ERROR: negative threshold");
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(both).setLightSamples(-1),
+                "ERROR: negative amount of light samples");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setLightSamples(int)}.
+     * <br>TC08: The sampled lights of a point are the same on every tracer and every thread, and differ
+     * between points
+     */
+    @Test
+    void testLightSamples() throws InterruptedException {
+        Scene scene = new Scene("Lights");
+        scene.geometries.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1)).setMaterial(new Material().setKd(0.5)));
+        for (int i = 0; i < 8; ++i)
+            scene.lights.add(new PointLight(new Color(100 + 20 * i, 300 - 20 * i, 200), new Point(40 * i - 140, 0, 0))
+                    .setKl(0.001));
+        Ray[] rays = new Ray[20];
+        for (int i = 0; i < rays.length; ++i) rays[i] = new Ray(Point.ZERO, new Vector(i - 10, 3, -100));
+
+        String[] expected = new String[rays.length];
+        SimpleRayTracer tracer = new SimpleRayTracer(scene).setLightSamples(1);
+        for (int i = 0; i < rays.length; ++i) expected[i] = tracer.traceRay(rays[i]).toString();
+        String[] other = new String[rays.length];
+        Thread thread = new Thread(() -> {
+            SimpleRayTracer second = new SimpleRayTracer(scene).setLightSamples(1);
+            for (int i = rays.length - 1; i >= 0; --i) other[i] = second.traceRay(rays[i]).toString();
+        });
+        thread.start();
+        thread.join();
+        assertArrayEquals(expected, other, "ERROR: the sampled lights depend on the tracer or the thread");
+        for (int i = 0; i < rays.length; ++i)
+            assertEquals(expected[i], tracer.traceRay(rays[i]).toString(), "ERROR: the sampled lights change");
+        assertNotEquals(1, Arrays.stream(expected).distinct().count(),
+                "ERROR: every point samples the same lights");
+    }
+}
@@ -0,0 +1,74 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the tile scheduler
+ * This class contains tests for the `TileManager` class.
+ */
+class TileManagerTests {
+
+    /**
+     * Test method for {@link renderer.TileManager#nextTile()}.
+     * <br>TC01: Several threads get every pixel of the image exactly once, and the tiles on the right
+     * and bottom edges are clipped to the image
+     */
+    @Test
+    void testNextTile() throws InterruptedException {
+        final int nX = 100, nY = 70;
+        TileManager manager = new TileManager(nY, nX, 16, 0);
+        AtomicIntegerArray counts = new AtomicIntegerArray(nX * nY);
+        var threads = new LinkedList<Thread>();
+        for (int t = 0; t < 4; ++t)
+            threads.add(new Thread(() -> {
+                TileManager.Tile tile;
+                while ((tile = manager.nextTile()) != null) {
+                    for (int i = tile.y0(); i < tile.y1(); i++)
+                        for (int j = tile.x0(); j < tile.x1(); j++)
+                            counts.incrementAndGet(i * nX + j);
+                    manager.tileDone(tile);
+                }
+            }));
+        for (var thread : threads) thread.start();
+        for (var thread : threads) thread.join();
+
+        for (int p = 0; p < nX * nY; ++p)
+            assertEquals(1, counts.get(p), "ERROR: pixel " + p + " is not rendered exactly once");
+        assertEquals(nX * nY, manager.getPixelsDone(), "ERROR: wrong progress");
+        assertNull(manager.nextTile(), "ERROR: a tile is handed out after the end");
+    }
+
+    // =============== Boundary Values Tests ==================
+
+    /**
+     * Test method for {@link renderer.TileManager#nextTile()}.
+     * <br>TC02: A tile larger than the image
+     */
+    @Test
+    void testLargeTile() {
+        TileManager manager = new TileManager(3, 5, 32, 0);
+        assertEquals(new TileManager.Tile(0, 0, 5, 3), manager.nextTile(), "ERROR: the tile is not clipped");
+        assertNull(manager.nextTile(), "ERROR: more than one tile");
+    }
+
+    /**
+     * Test method for {@link renderer.TileManager#restoreTile(int)}.
+     * <br>TC03: The tiles finished by an earlier rendering are not handed out, and count as processed
+     */
+    @Test
+    void testRestoreTile() {
+        TileManager manager = new TileManager(20, 20, 10, 0);
+        manager.restoreTile(0);
+        manager.restoreTile(2);
+        assertTrue(manager.isFinished(2), "ERROR: the restored tile is not finished");
+        assertEquals(200, manager.getPixelsDone(), "ERROR: wrong progress");
+        assertEquals(new TileManager.Tile(10, 0, 20, 10), manager.nextTile(), "ERROR: a restored tile");
+        assertEquals(new TileManager.Tile(10, 10, 20, 20), manager.nextTile(), "ERROR: a restored tile");
+        assertNull(manager.nextTile(), "ERROR: a restored tile");
+    }
+}
@@ -0,0 +1,187 @@
+package scene;
+
+import geometries.Intersectable;
+import geometries.Mesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the mesh loader
+ * This class contains tests for the `MeshLoader` class.
+ */
+class MeshLoaderTests {
+    /**
+     * Temporary directory for the mesh files
+     */
+    @TempDir
+    Path directory;
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadObj(java.nio.file.Path)}.
+     * <br>TC01: A mesh for every material, sharing the vertices, with the materials of the library
+     * and quads split into triangles
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        Files.writeString(directory.resolve("box.mtl"), """
+                # two materials
+                newmtl red
+                Kd 0.8 0.1 0.1
+                Ks 0.5 0.5 0.5
+                Ns 30
+                d 0.75
+                newmtl light
+                Ke 1 1 0.5
+                """);
+        Files.writeString(directory.resolve("box.obj"), """
+                mtllib box.mtl
+                v 0 0 0
+                v 1 0 0
+                v 1 1 0
+                v 0 1 0
+                v 0 0 1
+                vn 0 0 1
+                usemtl red
+                f 1//1 2//1 3//1 4//1
+                usemtl light
+                f -5/1/1 -4/2/1 -1/3/1 # a comment
+                """);
+        List<Mesh> meshes = MeshLoader.loadObj(directory.resolve("box.obj"));
+        assertEquals(2, meshes.size(), "ERROR: wrong amount of meshes");
+        Mesh red = meshes.get(0), light = meshes.get(1);
+        assertEquals(2, red.getFaceCount(), "ERROR: the quad is not split into 2 triangles");
+        assertEquals(1, light.getFaceCount(), "ERROR: wrong amount of faces");
+        assertEquals(5, light.getVertexCount(), "ERROR: the meshes do not share the vertices");
+        assertEquals(new Double3(0.8, 0.1, 0.1), red.getMaterial().kD, "ERROR: wrong diffuse coefficient");
+        assertEquals(new Double3(0.5), red.getMaterial().kS, "ERROR: wrong specular coefficient");
+        assertEquals(30, red.getMaterial().nShininess, "ERROR: wrong shininess");
+        assertEquals(new Double3(0.25), red.getMaterial().kT, "ERROR: wrong transparency");
+        assertEquals(new Color(255, 255, 127.5).toString(), light.getEmission().toString(),
+                "ERROR: wrong emission");
+
+        Intersectable.GeoPoint gp = red.findClosestGeoIntersection(
+                new Ray(new Point(0.5, 0.7, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, true);
+        assertNotNull(gp, "ERROR: Ray intersects the mesh");
+        assertEquals(new Point(0.5, 0.7, 0), gp.point, "ERROR: wrong intersection");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadPly(java.nio.file.Path)}.
+     * <br>TC02: Binary PLY file with skipped properties and elements
+     */
+    @Test
+    void testLoadBinaryPly() throws IOException {
+        String header = """
+                ply
+                format binary_little_endian 1.0
+                comment a square
+                element vertex 4
+                property float x
+                property float y
+                property float z
+                property uchar red
+                element face 1
+                property list uchar int vertex_indices
+                element edge 1
+                property int vertex1
+                property int vertex2
+                end_header
+                """;
+        ByteBuffer data = ByteBuffer.allocate(4 * 13 + 1 + 16 + 8).order(ByteOrder.LITTLE_ENDIAN);
+        float[][] vertices = { { 0, 0, 0 }, { 2, 0, 0 }, { 2, 2, 0 }, { 0, 2, 0 } };
+        for (float[] vertex : vertices) {
+            for (float coordinate : vertex) data.putFloat(coordinate);
+            data.put((byte) 200);
+        }
+        data.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        data.putInt(0).putInt(1);
+        byte[] headerBytes = header.getBytes();
+        byte[] file = new byte[headerBytes.length + data.position()];
+        System.arraycopy(headerBytes, 0, file, 0, headerBytes.length);
+        System.arraycopy(data.array(), 0, file, headerBytes.length, data.position());
+        Path path = directory.resolve("square.ply");
+        Files.write(path, file);
+
+        Mesh mesh = MeshLoader.loadPly(path);
+        assertEquals(4, mesh.getVertexCount(), "ERROR: wrong amount of vertices");
+        assertEquals(2, mesh.getFaceCount(), "ERROR: the quad is not split into 2 triangles");
+        assertNotNull(mesh.findClosestGeoIntersection(new Ray(new Point(1.5, 0.2, 1), new Vector(0, 0, -1)),
+                Double.POSITIVE_INFINITY, true), "ERROR: Ray intersects the mesh");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#load(java.nio.file.Path, Scene)}.
+     * <br>TC03: ASCII PLY file with normals is added to the scene
+     */
+    @Test
+    void testLoadAsciiPly() throws IOException {
+        Path path = directory.resolve("triangle.ply");
+        Files.writeString(path, """
+                ply
+                format ascii 1.0
+                element vertex 3
+                property double x
+                property double y
+                property double z
+                property float nx
+                property float ny
+                property float nz
+                element face 1
+                property list uchar uint vertex_index
+                end_header
+                0 0 0 0 0 1
+                1 0 0 0 0 1
+                0 1 0
+                0 0 1
+                3 0 1 2
+                """);
+        Scene scene = new Scene("ply");
+        List<Mesh> meshes = MeshLoader.load(path, scene);
+        assertEquals(1, meshes.get(0).getFaceCount(), "ERROR: wrong amount of faces");
+        Intersectable.GeoPoint gp = scene.geometries.findClosestGeoIntersection(
+                new Ray(new Point(0.2, 0.2, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY, false);
+        assertNotNull(gp, "ERROR: the mesh is not in the scene");
+        assertEquals(new Vector(0, 0, 1), gp.geometry.getNormal(gp.point), "ERROR: wrong normal");
+    }
+
+    // ============================= Boundary Value Tests =================================
+
+    /**
+     * Test method for {@link scene.MeshLoader#load(java.nio.file.Path)}.
+     * <br>TC04: Malformed files
+     */
+    @Test
+    void testMalformed() throws IOException {
+        Path face = directory.resolve("face.obj");
+        Files.writeString(face, "v 0 0 0\nv 1 0 0\nf 1 2\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(face), "ERROR: a face of 2 vertices");
+        Path index = directory.resolve("index.obj");
+        Files.writeString(index, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(index), "ERROR: an index out of range");
+        Path number = directory.resolve("number.obj");
+        Files.writeString(number, "v 0 x 0\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(number), "ERROR: a malformed number");
+        Path truncated = directory.resolve("truncated.ply");
+        Files.writeString(truncated, "ply\nformat ascii 1.0\nelement vertex 2\nproperty float x\nend_header\n1\n");
+        assertThrows(IOException.class, () -> MeshLoader.load(truncated), "ERROR: a truncated file");
+        Path unknown = directory.resolve("mesh.stl");
+        Files.writeString(unknown, "solid");
+        assertThrows(IOException.class, () -> MeshLoader.load(unknown), "ERROR: an unknown file type");
+    }
+}
@@ -0,0 +1,156 @@
+package scene;
+
+import geometries.Intersectable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.Camera;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the scene loader
+ * This class contains tests for the `SceneLoader` class.
+ */
+class SceneLoaderTests {
+    /**
+     * Temporary directory for the scene files
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Finds the closest geometry of the scene on a ray
+     *
+     * @param scene the scene
+     * @param ray   the ray
+     * @return the closest intersection, or null
+     */
+    private static Intersectable.GeoPoint closest(Scene scene, Ray ray) {
+        return scene.geometries.findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true);
+    }
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link scene.SceneLoader#load(java.nio.file.Path, renderer.Camera.Builder)}.
+     * <br>TC01: A scene of all the kinds of elements, with a mesh file, a camera and shared materials
+     */
+    @Test
+    void testLoad() throws IOException {
+        Files.writeString(directory.resolve("quad.obj"), """
+                v -10 -10 -50
+                v 10 -10 -50
+                v 10 10 -50
+                v -10 10 -50
+                f 1 2 3 4
+                """);
+        Path path = directory.resolve("scene.xml");
+        Files.writeString(path, """
+                <?xml version="1.0"?>
+                <!-- all the kinds of elements -->
+                <scene name="loaded" background="10 20 30" flatbvh="true">
+                  <ambient color="40 40 40" k="0.5"/>
+                  <camera location="0 0 100" to="0 0 -1" up="0 1 0" distance="100" size="200 150"
+                          resolution="40 30" antialiasing="3" threads="2" tile="8"/>
+                  <materials>
+                    <material id="shiny" kd="0.5" ks="0.2 0.3 0.4" shininess="30"/>
+                  </materials>
+                  <lights>
+                    <directional color="100 100 100" direction="1 -1 -1"/>
+                    <point color="300 200 100" position="50 50 0" kl="0.001"/>
+                    <spot color="200 300 200" position="-50 50 0" direction="1, -1, -2" kq="0.0001"/>
+                  </lights>
+                  <geometries>
+                    <sphere center="0 0 -100" radius="20" emission="80 20 20" material="shiny"/>
+                    <plane point="0 -30 0" normal="0 1 0" emission="30 30 30"/>
+                    <triangle vertices="30 -10 -80, 50 -10 -80, 40 10 -80" material="shiny"/>
+                    <polygon vertices="-50 -10 -80 -30 -10 -80 -30 10 -80 -50 10 -80"/>
+                    <tube head="0 60 -100" direction="1 0 0" radius="2"/>
+                    <cylinder head="60 -30 -100" direction="0 1 0" radius="5" height="40"/>
+                    <mesh vertices="-10 30 -60 10 30 -60 0 40 -60" faces="0 1 2" emission="1 2 3"/>
+                    <mesh file="quad.obj" material="shiny"/>
+                  </geometries>
+                </scene>
+                """);
+        Camera.Builder builder = Camera.getBuilder();
+        Scene scene = SceneLoader.load(path, builder);
+
+        assertEquals("loaded", scene.name, "ERROR: wrong name");
+        assertEquals(new Color(10, 20, 30).toString(), scene.background.toString(), "ERROR: wrong background");
+        assertEquals(new Color(20, 20, 20).toString(), scene.ambientLight.getIntensity().toString(),
+                "ERROR: wrong ambient light");
+        assertTrue(scene.getFLATBVHON(), "ERROR: wrong hierarchy setting");
+        assertEquals(3, scene.lights.size(), "ERROR: wrong amount of lights");
+
+        Intersectable.GeoPoint sphere = closest(scene, new Ray(new Point(0, 15, 100), new Vector(0, 0, -1)));
+        assertNotNull(sphere, "ERROR: the sphere is not loaded");
+        assertEquals(new Point(0, 15, -100 + Math.sqrt(175)), sphere.point, "ERROR: wrong sphere");
+        assertEquals(new Double3(0.2, 0.3, 0.4), sphere.geometry.getMaterial().kS, "ERROR: wrong material");
+        assertEquals(new Color(80, 20, 20).toString(), sphere.geometry.getEmission().toString(),
+                "ERROR: wrong emission");
+        Intersectable.GeoPoint quad = closest(scene, new Ray(new Point(3, -4, 100), new Vector(0, 0, -1)));
+        assertEquals(new Point(3, -4, -50), quad.point, "ERROR: the mesh file is not loaded");
+        assertSame(sphere.geometry.getMaterial(), quad.geometry.getMaterial(), "ERROR: the material is not shared");
+        assertEquals(new Point(40, 0, -80),
+                closest(scene, new Ray(new Point(40, 0, 100), new Vector(0, 0, -1))).point,
+                "ERROR: the triangle is not loaded");
+        assertEquals(new Point(-40, 0, -80),
+                closest(scene, new Ray(new Point(-40, 0, 100), new Vector(0, 0, -1))).point,
+                "ERROR: the polygon is not loaded");
+        assertEquals(new Point(0, 35, -60),
+                closest(scene, new Ray(new Point(0, 35, 100), new Vector(0, 0, -1))).point,
+                "ERROR: the inline mesh is not loaded");
+        assertEquals(new Point(60, 0, -95),
+                closest(scene, new Ray(new Point(60, 0, 100), new Vector(0, 0, -1))).point,
+                "ERROR: the cylinder is not loaded");
+        assertEquals(new Point(80, -30, -120),
+                closest(scene, new Ray(new Point(80, 100, -120), new Vector(0, -1, 0))).point,
+                "ERROR: the plane is not loaded");
+
+        Camera camera = builder.build();
+        assertEquals(40, camera.getImageWriter().getNx(), "ERROR: wrong resolution");
+        assertEquals(30, camera.getImageWriter().getNy(), "ERROR: wrong resolution");
+        assertEquals(200, camera.getWidth(), "ERROR: wrong view plane size");
+        assertEquals(150, camera.getHeight(), "ERROR: wrong view plane size");
+        assertEquals(new Point(0, 0, 100), camera.getLocation(), "ERROR: wrong camera location");
+        assertNotNull(camera.getRayTracer(), "ERROR: the camera has no ray tracer");
+    }
+
+    // =============== Boundary Values Tests ==================
+
+    /**
+     * Test method for {@link scene.SceneLoader#load(java.nio.file.Path)}.
+     * <br>TC02: Malformed elements are rejected with their line
+     */
+    @Test
+    void testMalformed() throws IOException {
+        String[] bodies = {
+                "<sphere center=\"0 0\" radius=\"1\"/>",
+                "<sphere center=\"0 0 0\" radius=\"one\"/>",
+                "<sphere center=\"0 0 0\" radius=\"1\" material=\"missing\"/>",
+                "<triangle vertices=\"0 0 0 1 0 0 0 1 0 1 1 0\"/>",
+                "<cone apex=\"0 0 0\"/>",
+                "<plane point=\"0 0 0\" normal=\"0 0 0\"/>",
+                "<sphere center=\"0 0 0\" radius=\"1\">"
+        };
+        for (String body : bodies) {
+            Path path = directory.resolve("bad.xml");
+            Files.writeString(path, "<scene>\n" + body + "\n</scene>\n");
+            IOException e = assertThrows(IOException.class, () -> SceneLoader.load(path),
+                    "ERROR: a malformed element is loaded: " + body);
+            assertTrue(e.getMessage().startsWith(path.toString()), "ERROR: the file is not reported: " + body);
+        }
+        Path path = directory.resolve("other.xml");
+        Files.writeString(path, "<camera/>");
+        assertThrows(IOException.class, () -> SceneLoader.load(path), "ERROR: a file without a scene is loaded");
+    }
+}
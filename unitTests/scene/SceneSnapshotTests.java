@@ -0,0 +1,131 @@
+package scene;
+
+import geometries.Intersectable;
+import geometries.Mesh;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.SimpleRayTracer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the scene snapshots
+ * This class contains tests for the `SceneSnapshot` class.
+ */
+class SceneSnapshotTests {
+    /**
+     * Temporary directory for the snapshot files
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a scene of a sphere, a triangle and two meshes sharing their vertices and material on a plane
+     *
+     * @return the scene
+     */
+    private static Scene scene() {
+        Scene scene = new Scene("Snapshot").setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(40, 40, 40), 0.5));
+        Material shared = new Material().setKd(0.5).setKs(0.3).setShininess(20).setKr(0.1);
+        double[] vertices = { -40, -20, -150, 40, -20, -150, 40, 40, -150, -40, 40, -150 };
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -100), 20).setEmission(new Color(80, 20, 20))
+                        .setMaterial(new Material().setKd(0.4).setKs(0.6).setShininess(50).setKt(0.3)),
+                new Triangle(new Point(-50, -20, -80), new Point(-30, -20, -80), new Point(-40, 10, -80))
+                        .setEmission(new Color(20, 80, 20)).setMaterial(shared),
+                new Mesh(vertices, new int[] { 0, 1, 2 }).setEmission(new Color(20, 20, 80)).setMaterial(shared),
+                new Mesh(vertices, new int[] { 0, 2, 3 }).setEmission(new Color(40, 40, 80)).setMaterial(shared),
+                new Plane(new Point(0, -20, 0), new Vector(0, 1, 0)).setEmission(new Color(30, 30, 30))
+                        .setMaterial(new Material().setKd(0.6)));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)));
+        scene.lights.add(new PointLight(new Color(300, 200, 100), new Point(50, 50, 0)).setKl(0.001).setKq(0.0001));
+        scene.lights.add(new SpotLight(new Color(200, 300, 200), new Point(-50, 50, 0), new Vector(1, -1, -2))
+                .setKl(0.002));
+        return scene;
+    }
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link scene.SceneSnapshot#load(java.nio.file.Path)}.
+     * <br>TC01: A loaded snapshot renders the same colors as the saved scene, with the saved hierarchy
+     */
+    @Test
+    void testSaveLoad() throws IOException {
+        Scene scene = scene();
+        Path path = directory.resolve("scene.snap");
+        SceneSnapshot.save(scene, path);
+        Scene loaded = SceneSnapshot.load(path);
+
+        assertEquals("Snapshot", loaded.name, "ERROR: wrong name");
+        assertEquals(scene.background.toString(), loaded.background.toString(), "ERROR: wrong background");
+        assertEquals(scene.ambientLight.getIntensity().toString(), loaded.ambientLight.getIntensity().toString(),
+                "ERROR: wrong ambient light");
+        assertEquals(3, loaded.lights.size(), "ERROR: wrong amount of lights");
+        assertTrue(loaded.getFLATBVHON(), "ERROR: the loaded scene does not trace through the hierarchy");
+        assertEquals(scene.getFlatBvh().getNodeCount(), loaded.getFlatBvh().getNodeCount(),
+                "ERROR: the hierarchy is not the saved one");
+        assertEquals(scene.getFlatBvh().getStats(), loaded.getFlatBvh().getStats(),
+                "ERROR: the hierarchy report is not the saved one");
+
+        Mesh first = null, second = null;
+        for (Intersectable geometry : loaded.getFlatBvh().getGeometries())
+            if (geometry instanceof Mesh mesh) {
+                if (first == null) first = mesh;
+                else second = mesh;
+            }
+        assertNotNull(second, "ERROR: the meshes are not loaded");
+        assertSame(first.getMaterial(), second.getMaterial(), "ERROR: the shared material is loaded twice");
+
+        scene.setFLATBVHON(true);
+        SimpleRayTracer expected = new SimpleRayTracer(scene);
+        SimpleRayTracer actual = new SimpleRayTracer(loaded);
+        Point eye = new Point(0, 10, 100);
+        for (int i = -4; i <= 4; ++i)
+            for (int j = -4; j <= 4; ++j) {
+                Ray ray = new Ray(eye, new Vector(j * 0.15, i * 0.1 - 0.05, -1));
+                assertEquals(expected.traceRay(ray).toString(), actual.traceRay(ray).toString(),
+                        "ERROR: wrong color of the ray (" + j + ", " + i + ")");
+            }
+    }
+
+    // =============== Boundary Values Tests ==================
+
+    /**
+     * Test method for {@link scene.SceneSnapshot#load(java.nio.file.Path)}.
+     * <br>TC02: A truncated snapshot and a file which is not a snapshot are rejected
+     */
+    @Test
+    void testMalformed() throws IOException {
+        Path path = directory.resolve("scene.snap");
+        SceneSnapshot.save(scene(), path);
+        byte[] bytes = Files.readAllBytes(path);
+        Path truncated = directory.resolve("truncated.snap");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 20));
+        assertThrows(IOException.class, () -> SceneSnapshot.load(truncated),
+                "ERROR: a truncated snapshot is loaded");
+
+        Path other = directory.resolve("other.snap");
+        Files.writeString(other, "v 0 0 0\n");
+        assertThrows(IOException.class, () -> SceneSnapshot.load(other),
+                "ERROR: a file which is not a snapshot is loaded");
+    }
+}
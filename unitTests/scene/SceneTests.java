@@ -0,0 +1,61 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Sphere;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the scene
+ * This class contains tests for the `Scene` class.
+ */
+class SceneTests {
+
+    // ============================ Equivalence Partitions Tests ================================
+
+    /**
+     * Test method for {@link scene.Scene#setGeometries(geometries.Geometries)}.
+     * <br>TC01: The compiled hierarchy of the former geometries is not traced after the geometries are replaced
+     */
+    @Test
+    void testSetGeometries() {
+        Scene scene = new Scene("Test").setFLATBVHON(true);
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 10d));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+        assertEquals(new Point(0, 0, -90),
+                scene.getFlatBvh().findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true).point,
+                "ERROR: wrong intersection of the first geometries");
+
+        scene.setGeometries(new Geometries(new Sphere(new Point(0, 0, -50), 10d)));
+        assertEquals(new Point(0, 0, -40),
+                scene.getFlatBvh().findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY, true).point,
+                "ERROR: the hierarchy of the former geometries is traced");
+    }
+
+    /**
+     * Test method for {@link scene.Scene#getLightTree()}.
+     * <br>TC02: Light sources set or added after the hierarchy of the lights was built are in the hierarchy
+     */
+    @Test
+    void testLightTree() {
+        Scene scene = new Scene("Test");
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)));
+        assertEquals(1, scene.getLightTree().size(), "ERROR: wrong amount of lights in the hierarchy");
+
+        scene.setLights(List.of(new PointLight(new Color(100, 100, 100), new Point(10, 0, 10))));
+        assertEquals(2, scene.getLightTree().size(), "ERROR: the set light is not in the hierarchy");
+        assertSame(scene.lights.get(1), scene.getLightTree().get(1), "ERROR: the set light is not in the hierarchy");
+
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        assertEquals(3, scene.getLightTree().size(), "ERROR: the added light is not in the hierarchy");
+    }
+}